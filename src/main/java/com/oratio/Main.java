@@ -2,12 +2,17 @@
 package com.oratio;
 
 import com.oratio.gui.MainFrame;
+import com.oratio.services.ServiceBootstrap;
+
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
+import java.util.concurrent.CompletableFuture;
 
 public class Main {
     public static void main(String[] args) {
-        new MainFrame().setVisible(true);
+        // Load services in the background so the window can show right away
+        CompletableFuture<Void> servicesReady = ServiceBootstrap.createDefault().start();
+        SwingUtilities.invokeLater(() -> new MainFrame(servicesReady).setVisible(true));
 }
 
 }
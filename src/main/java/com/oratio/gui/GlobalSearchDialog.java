@@ -0,0 +1,199 @@
+package com.oratio.gui;
+
+import com.oratio.search.SearchResult;
+import com.oratio.services.GlobalSearchService;
+import com.oratio.services.LanguageService;
+import com.oratio.services.ThemeService;
+import com.oratio.utils.ModernUIUtils;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Dialog listing global search results across prayers, rosary, psalms, novenas and notes.
+ * Opening a result hands it to the navigator and closes the dialog.
+ */
+public class GlobalSearchDialog extends JDialog {
+    private final JTextField queryField;
+    private final JButton searchButton;
+    private final JCheckBox exactCheckBox;
+    private final JCheckBox allLanguagesCheckBox;
+    private final JList<SearchResult> resultList;
+    private final DefaultListModel<SearchResult> resultModel = new DefaultListModel<>();
+    private final JLabel statusLabel;
+    private final Consumer<SearchResult> navigator;
+
+    public GlobalSearchDialog(Frame owner, String query, Consumer<SearchResult> navigator) {
+        super(owner, "Search Oratio", false);
+        this.navigator = navigator;
+        ThemeService themeService = ThemeService.getInstance();
+
+        queryField = ModernUIUtils.createModernTextField(null);
+        queryField.setText(query);
+        searchButton = ModernUIUtils.createModernButton("Search", true, "");
+        exactCheckBox = new JCheckBox("Exact text");
+        exactCheckBox.setOpaque(false);
+        exactCheckBox.setForeground(themeService.getForegroundColor());
+        exactCheckBox.setToolTipText("Find the text anywhere, even inside words, instead of matching whole words");
+
+        allLanguagesCheckBox = new JCheckBox("All languages");
+        allLanguagesCheckBox.setOpaque(false);
+        allLanguagesCheckBox.setForeground(themeService.getForegroundColor());
+        allLanguagesCheckBox.setToolTipText("Search English, Tagalog and Latin together");
+
+        JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        actionPanel.setOpaque(false);
+        actionPanel.add(allLanguagesCheckBox);
+        actionPanel.add(exactCheckBox);
+        actionPanel.add(searchButton);
+
+        JPanel queryPanel = new JPanel(new BorderLayout(10, 10));
+        queryPanel.setOpaque(false);
+        queryPanel.add(queryField, BorderLayout.CENTER);
+        queryPanel.add(actionPanel, BorderLayout.EAST);
+
+        resultList = new JList<>(resultModel);
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.setCellRenderer(new SearchResultRenderer());
+        ModernUIUtils.styleModernList(resultList);
+
+        JScrollPane scrollPane = new JScrollPane(resultList);
+        scrollPane.setBorder(new ModernUIUtils.RoundedBorder(8, themeService.getBorderColor()));
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        statusLabel.setForeground(themeService.getSecondaryTextColor());
+
+        JPanel content = new JPanel(new BorderLayout(0, 12));
+        content.setBackground(themeService.getCardBackgroundColor());
+        content.setBorder(BorderFactory.createEmptyBorder(20, 20, 15, 20));
+        content.add(queryPanel, BorderLayout.NORTH);
+        content.add(scrollPane, BorderLayout.CENTER);
+        content.add(statusLabel, BorderLayout.SOUTH);
+        setContentPane(content);
+
+        setupEventHandlers();
+
+        setSize(640, 520);
+        setLocationRelativeTo(owner);
+        performSearch();
+    }
+
+    private void setupEventHandlers() {
+        queryField.addActionListener(e -> performSearch());
+        searchButton.addActionListener(e -> performSearch());
+        exactCheckBox.addActionListener(e -> performSearch());
+        allLanguagesCheckBox.addActionListener(e -> performSearch());
+
+        resultList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelectedResult();
+                }
+            }
+        });
+
+        resultList.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "openResult");
+        resultList.getActionMap().put("openResult", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                openSelectedResult();
+            }
+        });
+
+        getRootPane().registerKeyboardAction(e -> dispose(),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+    }
+
+    private void performSearch() {
+        String query = queryField.getText().trim();
+        resultModel.clear();
+        if (query.isEmpty()) {
+            statusLabel.setText("Type words to search prayers, rosary, psalms, novenas and notes");
+            return;
+        }
+
+        long start = System.nanoTime();
+        GlobalSearchService searchService = GlobalSearchService.getInstance();
+        String language = LanguageService.getInstance().getCurrentLanguage();
+        boolean exact = exactCheckBox.isSelected();
+        List<SearchResult> results;
+        if (allLanguagesCheckBox.isSelected()) {
+            results = searchService.searchAllLanguages(query, GlobalSearchService.DEFAULT_LIMIT, exact);
+        } else {
+            results = exact
+                    ? searchService.searchText(query, language, GlobalSearchService.DEFAULT_LIMIT)
+                    : searchService.search(query, language);
+        }
+        long micros = (System.nanoTime() - start) / 1_000;
+
+        resultModel.addAll(results);
+        if (!results.isEmpty()) {
+            resultList.setSelectedIndex(0);
+        }
+        statusLabel.setText(String.format("%d result%s in %.1f ms",
+                results.size(), results.size() == 1 ? "" : "s", micros / 1000.0));
+    }
+
+    private void openSelectedResult() {
+        SearchResult result = resultList.getSelectedValue();
+        if (result != null) {
+            navigator.accept(result);
+            dispose();
+        }
+    }
+
+    /**
+     * Shows the content type, title and snippet of a result
+     */
+    private static class SearchResultRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            JPanel panel = new JPanel(new BorderLayout(10, 4));
+            ThemeService themeService = ThemeService.getInstance();
+
+            panel.setBackground(isSelected ? themeService.getAccentColor() : themeService.getCardBackgroundColor());
+            panel.setOpaque(true);
+            panel.setBorder(BorderFactory.createEmptyBorder(10, 15, 10, 15));
+
+            if (value instanceof SearchResult) {
+                SearchResult result = (SearchResult) value;
+
+                // Results of a multi-language search also name their language
+                String type = result.getType().getDisplayName();
+                JLabel typeLabel = new JLabel(result.getLanguage() != null
+                        ? "<html>" + type + "<br>" + result.getLanguage() + "</html>"
+                        : type);
+                typeLabel.setFont(new Font("Segoe UI", Font.BOLD, 11));
+                typeLabel.setForeground(isSelected ? Color.WHITE : themeService.getAccentColor());
+                typeLabel.setPreferredSize(new Dimension(60, result.getLanguage() != null ? 32 : 20));
+
+                JLabel titleLabel = new JLabel(result.getTitle());
+                titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
+                titleLabel.setForeground(isSelected ? Color.WHITE : themeService.getForegroundColor());
+
+                JLabel snippetLabel = new JLabel(result.getSnippet());
+                snippetLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+                snippetLabel.setForeground(isSelected ? Color.WHITE : themeService.getSecondaryTextColor());
+
+                JPanel textPanel = new JPanel(new BorderLayout(0, 2));
+                textPanel.setOpaque(false);
+                textPanel.add(titleLabel, BorderLayout.NORTH);
+                textPanel.add(snippetLabel, BorderLayout.CENTER);
+
+                panel.add(typeLabel, BorderLayout.WEST);
+                panel.add(textPanel, BorderLayout.CENTER);
+            }
+
+            return panel;
+        }
+    }
+}
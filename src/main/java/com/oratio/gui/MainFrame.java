@@ -1,5 +1,7 @@
 package com.oratio.gui;
 
+import com.oratio.search.SearchResult;
+import com.oratio.services.GlobalSearchService;
 import com.oratio.services.LanguageService;
 import com.oratio.services.ThemeService;
 import com.oratio.utils.Constants;
@@ -8,7 +10,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main application window with modern sidebar navigation
@@ -22,6 +27,7 @@ public class MainFrame extends JFrame {
     private JPanel contentPanel;
     private JPanel headerPanel;
     private JComboBox<String> languageSelector;
+    private JTextField globalSearchField;
     private JToggleButton darkModeToggle;
     private MusicControlPanel musicControlPanel;
 
@@ -35,8 +41,22 @@ public class MainFrame extends JFrame {
     private ThemeService themeService;
 
     private JButton selectedNavButton;
+    private JButton prayersNavButton;
+    private JButton rosaryNavButton;
+    private JButton psalmsNavButton;
+    private JButton novenasNavButton;
+    private JButton notesNavButton;
+
+    // Content panels are built once the background service bootstrap has finished
+    private final CompletableFuture<Void> servicesReady;
+    private boolean panelsReady = false;
 
     public MainFrame() {
+        this(CompletableFuture.completedFuture(null));
+    }
+
+    public MainFrame(CompletableFuture<Void> servicesReady) {
+        this.servicesReady = servicesReady;
         initializeServices();
         initializeGUI();
         setupEventHandlers();
@@ -50,6 +70,15 @@ public class MainFrame extends JFrame {
     private void initializeGUI() {
         setTitle("Oratio - A Catholic Prayer App");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // Written by the notes service's shutdown hook; no edits exist before the panels are built
+                if (panelsReady) {
+                    notesPanel.saveUnsavedEdits();
+                }
+            }
+        });
         setSize(1200, 800);
         setLocationRelativeTo(null);
         setMinimumSize(new Dimension(1000, 700));
@@ -73,15 +102,13 @@ public class MainFrame extends JFrame {
         contentPanel.setBackground(themeService.getBackgroundColor());
         contentPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
 
-        // Initialize panels
-        prayersPanel = new PrayersPanel();
-        rosaryPanel = new RosaryPanel();
-        psalmsPanel = new PsalmsPanel();
-        novenaPanel = new NovenaPanel();
-        notesPanel = new NotesPanel();
+        // Show a placeholder until the services have loaded their content
+        JLabel loadingLabel = new JLabel("Loading prayers...", SwingConstants.CENTER);
+        loadingLabel.setFont(new Font("Segoe UI", Font.ITALIC, 14));
+        loadingLabel.setForeground(themeService.getSecondaryTextColor());
+        contentPanel.add(loadingLabel, BorderLayout.CENTER);
 
-        // Show default panel
-        showPanel(prayersPanel);
+        servicesReady.whenComplete((ignored, error) -> SwingUtilities.invokeLater(this::initializePanels));
 
         mainContainer.add(contentPanel, BorderLayout.CENTER);
         add(mainContainer, BorderLayout.CENTER);
@@ -96,6 +123,27 @@ public class MainFrame extends JFrame {
         SwingUtilities.invokeLater(this::applyThemeToAllComponents);
     }
 
+    /**
+     * Build the content panels once the services are ready. If a service failed to
+     * initialize in the background it is retried here by its getInstance().
+     */
+    private void initializePanels() {
+        long start = System.nanoTime();
+
+        prayersPanel = new PrayersPanel();
+        rosaryPanel = new RosaryPanel();
+        psalmsPanel = new PsalmsPanel();
+        novenaPanel = new NovenaPanel();
+        notesPanel = new NotesPanel();
+        panelsReady = true;
+
+        System.out.printf("[startup] Panels built in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        // Show the panel for whichever section is selected
+        selectedNavButton.doClick();
+        applyThemeToAllComponents();
+    }
+
     // In your MainFrame.java, update the createModernHeader() method:
 
     private JPanel createModernHeader() {
@@ -138,6 +186,16 @@ public class MainFrame extends JFrame {
         updateToggleButtonAppearance();
         styleToggleButton(darkModeToggle);
 
+        // Global search box; Enter opens the results dialog
+        globalSearchField = new JTextField();
+        globalSearchField.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        globalSearchField.setToolTipText("Search prayers, rosary, psalms, novenas and notes");
+        globalSearchField.setPreferredSize(new Dimension(180, 36));
+        globalSearchField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+                BorderFactory.createEmptyBorder(5, 10, 5, 10)
+        ));
+
         // Language selector
         JLabel langLabel = new JLabel("Language:");
         langLabel.setFont(new Font("Segoe UI", Font.BOLD, 11));
@@ -147,6 +205,7 @@ public class MainFrame extends JFrame {
         languageSelector.setSelectedItem(languageService.getCurrentLanguage());
         styleModernComboBox(languageSelector);
 
+        rightPanel.add(globalSearchField);
         rightPanel.add(darkModeToggle);
         rightPanel.add(Box.createHorizontalStrut(15));
         rightPanel.add(langLabel);
@@ -181,21 +240,21 @@ public class MainFrame extends JFrame {
         sidebar.add(navTitle);
 
         // Navigation buttons
-        JButton prayersBtn = createNavButton("", "Daily Prayers", true);
-        JButton rosaryBtn = createNavButton("", "Rosary", false);
-        JButton psalmsBtn = createNavButton("", "Psalms", false);
-        JButton novenasBtn = createNavButton("", "Novenas", false);
-        JButton notesBtn = createNavButton("", "Notes", false);
+        prayersNavButton = createNavButton("", "Daily Prayers", true);
+        rosaryNavButton = createNavButton("", "Rosary", false);
+        psalmsNavButton = createNavButton("", "Psalms", false);
+        novenasNavButton = createNavButton("", "Novenas", false);
+        notesNavButton = createNavButton("", "Notes", false);
 
-        sidebar.add(prayersBtn);
+        sidebar.add(prayersNavButton);
         sidebar.add(Box.createVerticalStrut(5));
-        sidebar.add(rosaryBtn);
+        sidebar.add(rosaryNavButton);
         sidebar.add(Box.createVerticalStrut(5));
-        sidebar.add(psalmsBtn);
+        sidebar.add(psalmsNavButton);
         sidebar.add(Box.createVerticalStrut(5));
-        sidebar.add(novenasBtn);
+        sidebar.add(novenasNavButton);
         sidebar.add(Box.createVerticalStrut(5));
-        sidebar.add(notesBtn);
+        sidebar.add(notesNavButton);
 
         // Add glue to push everything to top
         sidebar.add(Box.createVerticalGlue());
@@ -214,29 +273,29 @@ public class MainFrame extends JFrame {
         sidebar.add(bottomInfo);
 
         // Set up click handlers
-        prayersBtn.addActionListener(e -> {
-            selectNavButton(prayersBtn);
+        prayersNavButton.addActionListener(e -> {
+            selectNavButton(prayersNavButton);
             showPanel(prayersPanel);
         });
-        rosaryBtn.addActionListener(e -> {
-            selectNavButton(rosaryBtn);
+        rosaryNavButton.addActionListener(e -> {
+            selectNavButton(rosaryNavButton);
             showPanel(rosaryPanel);
         });
-        psalmsBtn.addActionListener(e -> {
-            selectNavButton(psalmsBtn);
+        psalmsNavButton.addActionListener(e -> {
+            selectNavButton(psalmsNavButton);
             showPanel(psalmsPanel);
         });
-        novenasBtn.addActionListener(e -> {
-            selectNavButton(novenasBtn);
+        novenasNavButton.addActionListener(e -> {
+            selectNavButton(novenasNavButton);
             showPanel(novenaPanel);
         });
-        notesBtn.addActionListener(e -> {
-            selectNavButton(notesBtn);
+        notesNavButton.addActionListener(e -> {
+            selectNavButton(notesNavButton);
             showPanel(notesPanel);
         });
 
         // Select first button by default
-        selectNavButton(prayersBtn);
+        selectNavButton(prayersNavButton);
 
         return sidebar;
     }
@@ -336,12 +395,57 @@ public class MainFrame extends JFrame {
      * Shows a panel in the content area
      */
     private void showPanel(JPanel panel) {
+        if (panel == null) {
+            return; // Still loading
+        }
         contentPanel.removeAll();
         contentPanel.add(panel, BorderLayout.CENTER);
         contentPanel.revalidate();
         contentPanel.repaint();
     }
 
+    /**
+     * Open the global search dialog for the text in the header search box
+     */
+    private void openGlobalSearch() {
+        if (!panelsReady) {
+            return; // Still loading
+        }
+        new GlobalSearchDialog(this, globalSearchField.getText().trim(), this::navigateTo).setVisible(true);
+    }
+
+    /**
+     * Switch to the section of a search result and show the item in it,
+     * in the language it was found in
+     */
+    private void navigateTo(SearchResult result) {
+        if (result.getLanguage() != null && !result.getLanguage().equals(languageService.getCurrentLanguage())) {
+            languageSelector.setSelectedItem(result.getLanguage());
+        }
+
+        switch (result.getType()) {
+            case PRAYER:
+                prayersNavButton.doClick();
+                prayersPanel.showPrayer(result.getId());
+                break;
+            case ROSARY:
+                rosaryNavButton.doClick();
+                break;
+            case PSALM:
+                psalmsNavButton.doClick();
+                psalmsPanel.showPsalm(Integer.parseInt(result.getId()));
+                break;
+            case NOVENA:
+                novenasNavButton.doClick();
+                novenaPanel.showNovena(result.getId());
+                break;
+            case NOTE:
+                notesNavButton.doClick();
+                notesPanel.showNote(result.getId());
+                break;
+        }
+    }
+
     /**
      * Gets sidebar background color
      */
@@ -526,6 +630,11 @@ public class MainFrame extends JFrame {
             repaint();
         });
 
+        // Enter on a suggestion completes the word instead of opening the search
+        SuggestionPopup.install(globalSearchField, prefix -> GlobalSearchService.getInstance()
+                .suggest(prefix, languageService.getCurrentLanguage(), 8));
+        globalSearchField.addActionListener(e -> openGlobalSearch());
+
         languageSelector.addActionListener(e -> {
             String selectedLanguage = (String) languageSelector.getSelectedItem();
             languageService.setCurrentLanguage(selectedLanguage);
@@ -588,13 +697,15 @@ public class MainFrame extends JFrame {
         updateToggleButtonAppearance();
         styleModernComboBox(languageSelector);
 
-        themeService.applyTheme(prayersPanel);
-        themeService.applyTheme(rosaryPanel);
-        themeService.applyTheme(psalmsPanel);
-        themeService.applyTheme(novenaPanel);
-        themeService.applyTheme(notesPanel);
+        if (panelsReady) {
+            themeService.applyTheme(prayersPanel);
+            themeService.applyTheme(rosaryPanel);
+            themeService.applyTheme(psalmsPanel);
+            themeService.applyTheme(novenaPanel);
+            themeService.applyTheme(notesPanel);
 
-        refreshAllPanels();
+            refreshAllPanels();
+        }
 
         if (psalmsPanel != null) {
             try {
@@ -612,6 +723,9 @@ public class MainFrame extends JFrame {
     }
 
     private void refreshAllPanels() {
+        if (!panelsReady) {
+            return;
+        }
         prayersPanel.refreshContent();
         rosaryPanel.refreshContent();
         psalmsPanel.refreshContent();
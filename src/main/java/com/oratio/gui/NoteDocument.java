@@ -0,0 +1,108 @@
+package com.oratio.gui;
+
+import com.oratio.models.StyleRuns;
+
+import javax.swing.text.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Styled document of the note editor, converting to and from a note's style runs.
+ *
+ * A note is loaded in one bulk insert of its lines and runs, rather than by inserting
+ * the text and then formatting it a run at a time, and its runs are read back from the
+ * document's character elements, one per stretch of equal formatting, rather than
+ * character by character.
+ */
+public class NoteDocument extends DefaultStyledDocument {
+    private final Map<Integer, AttributeSet> styleAttributes = new HashMap<>();
+
+    /**
+     * Replace the document's content with formatted text
+     * @param runs Style runs of the text; text past the last run is plain
+     */
+    public void load(String text, StyleRuns runs) {
+        SimpleAttributeSet paragraph = new SimpleAttributeSet();
+        paragraph.setResolveParent(getStyle(StyleContext.DEFAULT_STYLE));
+
+        List<ElementSpec> specs = new ArrayList<>();
+        // The first spec gives the attributes of the root element
+        specs.add(new ElementSpec(null, ElementSpec.StartTagType));
+        ElementSpec lastParagraph = new ElementSpec(paragraph, ElementSpec.StartTagType);
+        specs.add(lastParagraph);
+
+        int run = 0;
+        int length = text.length();
+        int runEnd = runs.getRunCount() > 0 ? runs.getRunLength(0) : length;
+        int position = 0;
+        while (position < length) {
+            while (position >= runEnd) {
+                run++;
+                runEnd = run < runs.getRunCount() ? runEnd + runs.getRunLength(run) : length;
+            }
+            int style = run < runs.getRunCount() ? runs.getRunStyle(run) : StyleRuns.PLAIN_STYLE;
+            int lineEnd = text.indexOf('\n', position);
+            int end = Math.min(runEnd, lineEnd < 0 ? length : lineEnd + 1);
+            // Each spec gets its own piece, as specs copy the whole array they are given
+            char[] piece = new char[end - position];
+            text.getChars(position, end, piece, 0);
+            specs.add(new ElementSpec(attributesOf(style), ElementSpec.ContentType, piece, 0, piece.length));
+            if (end == lineEnd + 1) {
+                specs.add(new ElementSpec(null, ElementSpec.EndTagType));
+                lastParagraph = new ElementSpec(paragraph, ElementSpec.StartTagType);
+                specs.add(lastParagraph);
+            }
+            position = end;
+        }
+        // The last line joins the paragraph that holds the document's closing newline
+        lastParagraph.setDirection(ElementSpec.JoinNextDirection);
+
+        create(specs.toArray(new ElementSpec[0]));
+    }
+
+    /**
+     * Style runs of the document's text
+     */
+    public StyleRuns getStyleRuns() {
+        StyleRuns.Builder builder = new StyleRuns.Builder();
+        readLock();
+        try {
+            int length = getLength();
+            Element root = getDefaultRootElement();
+            for (int p = 0; p < root.getElementCount(); p++) {
+                Element paragraph = root.getElement(p);
+                for (int c = 0; c < paragraph.getElementCount(); c++) {
+                    Element content = paragraph.getElement(c);
+                    int end = Math.min(content.getEndOffset(), length);
+                    builder.add(Math.max(0, end - content.getStartOffset()), styleOf(content.getAttributes()));
+                }
+            }
+        } finally {
+            readUnlock();
+        }
+        return builder.build();
+    }
+
+    private AttributeSet attributesOf(int style) {
+        return styleAttributes.computeIfAbsent(style, s -> {
+            SimpleAttributeSet attributes = new SimpleAttributeSet();
+            if (StyleRuns.isBold(s)) {
+                StyleConstants.setBold(attributes, true);
+            }
+            if (StyleRuns.isItalic(s)) {
+                StyleConstants.setItalic(attributes, true);
+            }
+            if (StyleRuns.getFontSize(s) > 0) {
+                StyleConstants.setFontSize(attributes, StyleRuns.getFontSize(s));
+            }
+            return attributes;
+        });
+    }
+
+    private static int styleOf(AttributeSet attributes) {
+        int fontSize = attributes.isDefined(StyleConstants.FontSize) ? StyleConstants.getFontSize(attributes) : 0;
+        return StyleRuns.style(StyleConstants.isBold(attributes), StyleConstants.isItalic(attributes), fontSize);
+    }
+}
@@ -3,20 +3,46 @@ package com.oratio.gui;
 
 import com.oratio.models.Note;
 import com.oratio.models.Novena;
+import com.oratio.search.PatternScan;
+import com.oratio.services.GlobalSearchService;
 import com.oratio.services.NotesService;
 import com.oratio.services.ThemeService;
 import com.oratio.utils.ModernUIUtils;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.text.*;
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.PatternSyntaxException;
 
 public class NotesPanel extends JPanel {
     private JList<Note> notesList;
+    private JTextField searchField;
+    private JCheckBox fuzzyCheckBox;
+    private Timer searchDebounceTimer;
+
+    // Searches run off the EDT: an expression can backtrack for ages, and a word search may
+    // first update the notes index after a save. A newer search cancels the pending one
+    // and only the newest result is shown. The fields below are only touched on the EDT.
+    private static final ExecutorService scanExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notes-scan");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> pendingScan;
+    private int searchGeneration;
+
     private JTextField titleField;
     private JTextPane contentArea;
+    private NoteDocument contentDocument;
     private JButton saveButton;
     private JButton newButton;
     private JButton deleteButton;
@@ -39,6 +65,14 @@ public class NotesPanel extends JPanel {
     private NotesService notesService;
     private Note currentNote;
 
+    // Edits are saved once typing pauses for AUTOSAVE_DELAY ms, and at least every
+    // AUTOSAVE_MAX_DELAY ms while it goes on
+    private static final int AUTOSAVE_DELAY = 500;
+    private static final long AUTOSAVE_MAX_DELAY = 1000;
+    private Timer autosaveTimer;
+    private long unsavedSince;
+    private boolean loadingNote;
+
     // Track current formatting for new text
     private boolean currentBold = false;
     private boolean currentItalic = false;
@@ -76,7 +110,26 @@ public class NotesPanel extends JPanel {
         JLabel leftTitle = new JLabel("Prayer Journal");
         leftTitle.setFont(ThemeService.getInstance().getHeadingFont());
         leftTitle.setForeground(ThemeService.getInstance().getForegroundColor());
-        leftPanel.add(leftTitle, BorderLayout.NORTH);
+
+        // Search the journal; fuzzy matching tolerates typos
+        searchField = new JTextField();
+        styleTextField(searchField);
+        searchField.setToolTipText("Search notes, or /a regular expression/");
+        fuzzyCheckBox = new JCheckBox("Fuzzy");
+        fuzzyCheckBox.setOpaque(false);
+        fuzzyCheckBox.setForeground(ThemeService.getInstance().getForegroundColor());
+        fuzzyCheckBox.setToolTipText("Also find words with small spelling differences");
+
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 0));
+        searchPanel.setOpaque(false);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        searchPanel.add(fuzzyCheckBox, BorderLayout.EAST);
+
+        JPanel leftHeader = new JPanel(new BorderLayout(0, 10));
+        leftHeader.setOpaque(false);
+        leftHeader.add(leftTitle, BorderLayout.NORTH);
+        leftHeader.add(searchPanel, BorderLayout.CENTER);
+        leftPanel.add(leftHeader, BorderLayout.NORTH);
 
         notesList = new JList<>();
         notesList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -167,7 +220,8 @@ public class NotesPanel extends JPanel {
         centerContentPanel.add(formattingToolbar, BorderLayout.NORTH);
 
         // Content area with JTextPane for rich text
-        contentArea = new JTextPane();
+        contentDocument = new NoteDocument();
+        contentArea = new JTextPane(contentDocument);
         contentArea.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         contentArea.setBackground(ThemeService.getInstance().getCardBackgroundColor());
         contentArea.setForeground(ThemeService.getInstance().getForegroundColor());
@@ -484,28 +538,119 @@ public class NotesPanel extends JPanel {
             }
         });
 
+        searchDebounceTimer = new Timer(150, e -> loadNotes());
+        searchDebounceTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        searchField.addActionListener(e -> loadNotes());
+        fuzzyCheckBox.addActionListener(e -> loadNotes());
+
+        autosaveTimer = new Timer(AUTOSAVE_DELAY, e -> autosave());
+        autosaveTimer.setRepeats(false);
+        DocumentListener editListener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                editorChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                editorChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Formatting changed
+                editorChanged();
+            }
+        };
+        titleField.getDocument().addDocumentListener(editListener);
+        contentArea.getDocument().addDocumentListener(editListener);
+        for (JRadioButton radio : new JRadioButton[]{prayerRadio, reflectionRadio, intentionRadio, gratitudeRadio, otherRadio}) {
+            radio.addActionListener(e -> editorChanged());
+        }
+
         newButton.addActionListener(e -> createNewNote());
         deleteButton.addActionListener(e -> deleteSelectedNote());
         saveButton.addActionListener(e -> saveCurrentNote());
     }
 
     private void loadNotes() {
-        List<Note> notes = notesService.getAllNotes();
+        searchDebounceTimer.stop();
+        String searchText = searchField.getText().trim();
+        // Text written as /expression/ is a regular expression, scanned note by note
+        PatternScan pattern;
+        try {
+            pattern = PatternScan.parseDelimited(searchText);
+        } catch (PatternSyntaxException e) {
+            // Keep the current list until the expression is complete
+            return;
+        }
+        if (pendingScan != null) {
+            pendingScan.cancel(true);
+            pendingScan = null;
+        }
+        int generation = ++searchGeneration;
+
+        if (searchText.isEmpty()) {
+            showNotes(notesService.getNotesView());
+            return;
+        }
+
+        boolean fuzzy = fuzzyCheckBox.isSelected();
+        pendingScan = scanExecutor.submit(() -> {
+            try {
+                List<Note> matches = pattern != null
+                        ? notesService.searchNotesByPattern(pattern)
+                        : GlobalSearchService.getInstance().searchNotes(searchText, fuzzy);
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == searchGeneration) {
+                        showNotes(matches);
+                    }
+                });
+            } catch (CancellationException e) {
+                // Superseded by a newer search
+            } catch (RuntimeException e) {
+                System.err.println("Error searching notes: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void showNotes(Collection<Note> notes) {
         DefaultListModel<Note> model = new DefaultListModel<>();
         for (Note note : notes) {
             model.addElement(note);
         }
         notesList.setModel(model);
 
-        if (!notes.isEmpty()) {
+        // Keep the note being edited selected while it is listed
+        if (currentNote != null && notes.contains(currentNote)) {
+            notesList.setSelectedValue(currentNote, true);
+        } else if (!notes.isEmpty()) {
             notesList.setSelectedIndex(0);
         }
     }
 
     private void createNewNote() {
+        autosave();
         String title = JOptionPane.showInputDialog(this, "Enter note title:", "New Note", JOptionPane.PLAIN_MESSAGE);
         if (title != null && !title.trim().isEmpty()) {
             Note newNote = notesService.createNote(title.trim(), "", "Prayer");
+            searchField.setText("");
             loadNotes();
             notesList.setSelectedValue(newNote, true);
             setEditorEnabled(true);
@@ -522,6 +667,9 @@ public class NotesPanel extends JPanel {
                     JOptionPane.YES_NO_OPTION);
 
             if (result == JOptionPane.YES_OPTION) {
+                if (selectedNote == currentNote) {
+                    discardUnsavedEdits();
+                }
                 notesService.deleteNote(selectedNote);
                 loadNotes();
                 setEditorEnabled(false);
@@ -532,6 +680,7 @@ public class NotesPanel extends JPanel {
 
     private void saveCurrentNote() {
         if (currentNote != null) {
+            discardUnsavedEdits();
             updateCurrentNoteFromEditor();
             notesService.saveNote(currentNote);
             loadNotes();
@@ -540,10 +689,55 @@ public class NotesPanel extends JPanel {
         }
     }
 
+    /**
+     * Note that the editor changed, and schedule the autosave
+     */
+    private void editorChanged() {
+        if (loadingNote || currentNote == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (unsavedSince == 0) {
+            unsavedSince = now;
+        }
+        autosaveTimer.setInitialDelay((int) Math.max(0, Math.min(AUTOSAVE_DELAY, unsavedSince + AUTOSAVE_MAX_DELAY - now)));
+        autosaveTimer.restart();
+    }
+
+    /**
+     * Save the editor's unsaved changes. The note is copied here and written in the
+     * background, and the list is only repainted, so typing is not held up.
+     */
+    private void autosave() {
+        autosaveTimer.stop();
+        if (currentNote == null || unsavedSince == 0) {
+            return;
+        }
+        unsavedSince = 0;
+        updateCurrentNoteFromEditor();
+        notesService.saveNote(currentNote);
+        showDates(currentNote);
+        notesList.repaint();
+    }
+
+    private void discardUnsavedEdits() {
+        autosaveTimer.stop();
+        unsavedSince = 0;
+    }
+
+    /**
+     * Save the editor's unsaved changes now, e.g. before the app closes
+     */
+    public void saveUnsavedEdits() {
+        autosave();
+    }
+
     private void loadNoteIntoEditor(Note note) {
+        autosave();
         currentNote = note;
+        loadingNote = true;
         titleField.setText(note.getTitle());
-        contentArea.setText(note.getContent());
+        contentDocument.load(note.getContent(), note.getStyles());
 
         // Set the appropriate radio button based on category
         String category = note.getCategory();
@@ -566,18 +760,23 @@ public class NotesPanel extends JPanel {
             default:
                 prayerRadio.setSelected(true);
         }
+        loadingNote = false;
+
+        showDates(note);
+        setEditorEnabled(true);
+    }
 
+    private void showDates(Note note) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
         dateLabel.setText("Created: " + note.getCreatedDate().format(formatter) +
                 " | Modified: " + note.getModifiedDate().format(formatter));
-
-        setEditorEnabled(true);
     }
 
     private void updateCurrentNoteFromEditor() {
         if (currentNote != null) {
             currentNote.setTitle(titleField.getText().trim());
             currentNote.setContent(contentArea.getText());
+            currentNote.setStyles(contentDocument.getStyleRuns());
             currentNote.setCategory(getSelectedCategory());
         }
     }
@@ -592,6 +791,8 @@ public class NotesPanel extends JPanel {
     }
 
     private void clearEditor() {
+        discardUnsavedEdits();
+        loadingNote = true;
         titleField.setText("");
         contentArea.setText("");
         prayerRadio.setSelected(true);
@@ -599,6 +800,7 @@ public class NotesPanel extends JPanel {
         fontSizeField.setText("14");
         dateLabel.setText("");
         currentNote = null;
+        loadingNote = false;
         currentBold = false;
         currentItalic = false;
         currentFontSize = 14;
@@ -620,6 +822,20 @@ public class NotesPanel extends JPanel {
         applyFontSizeButton.setEnabled(enabled);
     }
 
+    /**
+     * Select a note and load it into the editor
+     */
+    public void showNote(String id) {
+        Note note = notesService.getNoteById(id);
+        if (note != null) {
+            if (!((DefaultListModel<Note>) notesList.getModel()).contains(note)) {
+                searchField.setText("");
+                loadNotes();
+            }
+            notesList.setSelectedValue(note, true);
+        }
+    }
+
     public void refreshContent() {
         // Apply current theme
         ThemeService theme = ThemeService.getInstance();
@@ -180,6 +180,16 @@ public class NovenaPanel extends JPanel {
         novenaTextArea.setCaretPosition(0);
     }
 
+    /**
+     * Select and show the novena with the given id, if it is listed
+     */
+    public void showNovena(String id) {
+        Novena novena = novenaService.getNovenaById(id);
+        if (novena != null) {
+            novenaList.setSelectedValue(novena, true);
+        }
+    }
+
     public void refreshContent() {
         Novena selectedNovena = novenaList.getSelectedValue();
         if (selectedNovena != null) {
@@ -199,6 +199,16 @@ public class PrayersPanel extends JPanel {
         prayerTextArea.setCaretPosition(0);
     }
 
+    /**
+     * Select and show the prayer with the given id, if it is listed
+     */
+    public void showPrayer(String id) {
+        Prayer prayer = prayerService.getPrayerById(id);
+        if (prayer != null) {
+            prayerList.setSelectedValue(prayer, true);
+        }
+    }
+
     public void refreshContent() {
         Prayer selectedPrayer = prayerList.getSelectedValue();
         loadPrayers();
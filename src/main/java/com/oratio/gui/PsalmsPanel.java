@@ -1,17 +1,33 @@
 package com.oratio.gui;
 
 import com.oratio.models.Psalm;
+import com.oratio.models.PsalmReference;
+import com.oratio.search.PatternScan;
+import com.oratio.search.SearchQuery;
+import com.oratio.services.ContentRepository;
 import com.oratio.services.PsalmService;
 import com.oratio.services.LanguageService;
 import com.oratio.services.ThemeService;
 import com.oratio.utils.ModernUIUtils;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.text.*;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Modern panel for browsing and searching psalms with text highlighting support
@@ -19,9 +35,15 @@ import java.util.List;
 public class PsalmsPanel extends JPanel {
     private JTextField searchField;
     private JButton searchButton;
+    private JCheckBox fuzzyCheckBox;
+    private JCheckBox containsCheckBox;
     private JList<Psalm> psalmList;
+    private final DefaultListModel<Psalm> psalmListModel = new DefaultListModel<>();
     private JTextPane psalmTextPane; // Changed from JTextArea to JTextPane for highlighting
     private JLabel psalmTitleLabel;
+    private JList<Psalm> relatedList;
+    private final DefaultListModel<Psalm> relatedListModel = new DefaultListModel<>();
+    private JLabel relatedLabel;
 
     // Highlight controls
     private JButton highlightButton;
@@ -33,6 +55,48 @@ public class PsalmsPanel extends JPanel {
     private LanguageService languageService;
     private Psalm currentPsalm;
 
+    private static final int RELATED_PSALMS_SHOWN = 5;
+
+    // Search-as-you-type: typing is debounced, queries run off the EDT and only the
+    // newest one is applied. The fields below are only touched on the EDT.
+    private static final int SEARCH_DELAY_MS = 150;
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "psalm-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Timer searchDebounceTimer;
+    private Future<?> pendingSearch;
+    private int searchGeneration;
+    private KeywordSearch lastKeywordSearch;
+
+    // Where the current search matched each listed psalm, and the highlights showing it
+    private static final Highlighter.HighlightPainter SEARCH_MATCH_PAINTER =
+            new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 165, 0, 110));
+    private Map<Psalm, int[]> searchMatches = Map.of();
+    private final List<Object> searchMatchTags = new ArrayList<>();
+
+    /**
+     * A finished keyword search, kept so a query that extends it only searches its results
+     */
+    private static class KeywordSearch {
+        final SearchQuery query;
+        final String language;
+        final long contentVersion;
+        final List<Psalm> results;
+
+        KeywordSearch(SearchQuery query, String language, long contentVersion, List<Psalm> results) {
+            this.query = query;
+            this.language = language;
+            this.contentVersion = contentVersion;
+            this.results = results;
+        }
+
+        boolean canNarrowTo(SearchQuery next, String language, long contentVersion) {
+            return this.language.equals(language) && this.contentVersion == contentVersion && next.narrows(query);
+        }
+    }
+
     public PsalmsPanel() {
         initializeServices();
         initializeGUI();
@@ -63,8 +127,27 @@ public class PsalmsPanel extends JPanel {
         searchField = ModernUIUtils.createModernTextField("Search psalms...");
         searchButton = ModernUIUtils.createModernButton("Search", true, "");
 
+        fuzzyCheckBox = new JCheckBox("Fuzzy");
+        fuzzyCheckBox.setOpaque(false);
+        fuzzyCheckBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        fuzzyCheckBox.setForeground(ThemeService.getInstance().getForegroundColor());
+        fuzzyCheckBox.setToolTipText("Also find words with small spelling differences");
+
+        containsCheckBox = new JCheckBox("Contains");
+        containsCheckBox.setOpaque(false);
+        containsCheckBox.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        containsCheckBox.setForeground(ThemeService.getInstance().getForegroundColor());
+        containsCheckBox.setToolTipText("Find the exact text anywhere, even inside words: \"herd\" finds \"shepherd\"");
+        searchField.setToolTipText("Words, \"a phrase\", a psalm number, verses such as 23:4 or 119:1-16, or /a regular expression/");
+
+        JPanel searchActions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        searchActions.setOpaque(false);
+        searchActions.add(containsCheckBox);
+        searchActions.add(fuzzyCheckBox);
+        searchActions.add(searchButton);
+
         searchInputPanel.add(searchField, BorderLayout.CENTER);
-        searchInputPanel.add(searchButton, BorderLayout.EAST);
+        searchInputPanel.add(searchActions, BorderLayout.EAST);
 
         JPanel searchContent = new JPanel(new BorderLayout(0, 10));
         searchContent.setOpaque(false);
@@ -81,7 +164,7 @@ public class PsalmsPanel extends JPanel {
         JPanel leftPanel = createModernCard("Psalms");
         leftPanel.setPreferredSize(new Dimension(250, 10));
 
-        psalmList = new JList<>();
+        psalmList = new JList<>(psalmListModel);
         psalmList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         psalmList.setCellRenderer(new ModernPsalmListRenderer());
         ModernUIUtils.styleModernList(psalmList);
@@ -115,9 +198,14 @@ public class PsalmsPanel extends JPanel {
         // Highlight controls panel
         JPanel highlightControlPanel = createHighlightControlPanel();
 
+        JPanel bottomPanel = new JPanel(new BorderLayout(0, 5));
+        bottomPanel.setOpaque(false);
+        bottomPanel.add(createRelatedPanel(), BorderLayout.NORTH);
+        bottomPanel.add(highlightControlPanel, BorderLayout.SOUTH);
+
         rightPanel.add(psalmTitleLabel, BorderLayout.NORTH);
         rightPanel.add(textScrollPane, BorderLayout.CENTER);
-        rightPanel.add(highlightControlPanel, BorderLayout.SOUTH);
+        rightPanel.add(bottomPanel, BorderLayout.SOUTH);
 
         splitPane.setRightComponent(rightPanel);
         splitPane.setDividerLocation(300);
@@ -125,6 +213,59 @@ public class PsalmsPanel extends JPanel {
         add(splitPane, BorderLayout.CENTER);
     }
 
+    /**
+     * Create the row of psalms related to the displayed one; clicking one shows it
+     */
+    private JPanel createRelatedPanel() {
+        JPanel relatedPanel = new JPanel(new BorderLayout(10, 0));
+        relatedPanel.setOpaque(false);
+        relatedPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
+
+        relatedLabel = new JLabel("Related psalms:");
+        relatedLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
+
+        relatedList = new JList<>(relatedListModel);
+        relatedList.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+        relatedList.setVisibleRowCount(1);
+        relatedList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        relatedList.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        relatedList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                Psalm psalm = (Psalm) value;
+                JLabel label = (JLabel) super.getListCellRendererComponent(list, "Psalm " + psalm.getNumber(),
+                        index, isSelected, cellHasFocus);
+                label.setBorder(BorderFactory.createEmptyBorder(2, 8, 2, 8));
+                label.setToolTipText(psalmService.getPsalmTitle(psalm, languageService.getCurrentLanguage()));
+                return label;
+            }
+        });
+        relatedList.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                int index = relatedList.locationToIndex(e.getPoint());
+                if (index >= 0 && relatedList.getCellBounds(index, index).contains(e.getPoint())) {
+                    showPsalm(relatedListModel.get(index).getNumber());
+                }
+            }
+        });
+        styleRelatedList();
+
+        relatedPanel.add(relatedLabel, BorderLayout.WEST);
+        relatedPanel.add(relatedList, BorderLayout.CENTER);
+        return relatedPanel;
+    }
+
+    private void styleRelatedList() {
+        ThemeService theme = ThemeService.getInstance();
+        relatedLabel.setForeground(theme.getForegroundColor());
+        relatedList.setBackground(theme.getCardBackgroundColor());
+        relatedList.setForeground(theme.getAccentColor());
+        relatedList.setSelectionBackground(theme.getAccentColor());
+        relatedList.setSelectionForeground(Color.WHITE);
+    }
+
     /**
      * Create the highlight control panel with buttons
      */
@@ -203,10 +344,21 @@ public class PsalmsPanel extends JPanel {
     }
 
     private void setupEventHandlers() {
+        // Related psalms are found in the background; show them once they are
+        psalmService.addRelatedPsalmsListener(() -> SwingUtilities.invokeLater(() -> {
+            if (currentPsalm != null) {
+                showRelatedPsalms();
+            }
+        }));
+
+        // Installed first, so Enter on a suggestion is consumed before it starts a search
+        SuggestionPopup.install(searchField, prefix -> PsalmService.getInstance()
+                .suggest(prefix, languageService.getCurrentLanguage(), 8));
+
         searchField.addKeyListener(new KeyListener() {
             @Override
             public void keyPressed(KeyEvent e) {
-                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER && !e.isConsumed()) {
                     performSearch();
                 }
             }
@@ -221,6 +373,31 @@ public class PsalmsPanel extends JPanel {
         });
 
         searchButton.addActionListener(e -> performSearch());
+        fuzzyCheckBox.addActionListener(e -> performSearch());
+        containsCheckBox.addActionListener(e -> {
+            // Fuzzy matching does not apply to exact text
+            fuzzyCheckBox.setEnabled(!containsCheckBox.isSelected());
+            performSearch();
+        });
+
+        // Search as the user types, once typing pauses
+        searchDebounceTimer = new Timer(SEARCH_DELAY_MS, e -> performSearch());
+        searchDebounceTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchDebounceTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
 
         psalmList.addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
@@ -372,23 +549,105 @@ public class PsalmsPanel extends JPanel {
         }
     }
 
+    /**
+     * Start a search for the text in the search field. The query runs on the search
+     * thread; any search still pending is cancelled, and results of superseded
+     * searches are dropped.
+     */
     private void performSearch() {
+        searchDebounceTimer.stop();
+
         String searchText = searchField.getText().trim();
-        List<Psalm> searchResults;
+        if (searchText.equals("Search psalms...")) {
+            searchText = "";
+        }
 
-        if (searchText.isEmpty() || searchText.equals("Search psalms...")) {
-            searchResults = psalmService.getAllPsalms();
-        } else {
+        String language = languageService.getCurrentLanguage();
+        long contentVersion = ContentRepository.getInstance().getVersion();
+        // Text written as /expression/ is a regular expression, scanned psalm by psalm
+        PatternScan pattern;
+        try {
+            pattern = PatternScan.parseDelimited(searchText);
+        } catch (PatternSyntaxException e) {
+            // Keep the current results until the expression is complete
+            return;
+        }
+        PsalmReference reference = pattern != null ? null : PsalmReference.parse(searchText);
+        // In contains mode any other text is looked up as is, through the substring index
+        String contains = pattern == null && reference == null && containsCheckBox.isSelected() ? searchText : null;
+        SearchQuery query = pattern != null || reference != null || contains != null ? null
+                : SearchQuery.parseIncremental(searchText).fuzzy(fuzzyCheckBox.isSelected());
+
+        // When the query only extends the previous one, search within its results
+        KeywordSearch previous = lastKeywordSearch;
+        List<Psalm> within = query != null && previous != null
+                && previous.canNarrowTo(query, language, contentVersion) ? previous.results : null;
+
+        if (pendingSearch != null) {
+            pendingSearch.cancel(true);
+        }
+        int generation = ++searchGeneration;
+
+        pendingSearch = searchExecutor.submit(() -> {
             try {
-                int psalmNumber = Integer.parseInt(searchText);
-                Psalm psalm = psalmService.getPsalmByNumber(psalmNumber);
-                searchResults = psalm != null ? List.of(psalm) : List.of();
-            } catch (NumberFormatException e) {
-                searchResults = psalmService.searchPsalmsByKeyword(searchText);
+                List<PsalmService.PsalmMatch> matches = runSearch(pattern, reference, contains, query, language, within);
+                List<Psalm> results = new ArrayList<>(matches.size());
+                Map<Psalm, int[]> offsets = new HashMap<>();
+                for (PsalmService.PsalmMatch match : matches) {
+                    results.add(match.getPsalm());
+                    if (match.getMatchOffsets().length > 0) {
+                        offsets.put(match.getPsalm(), match.getMatchOffsets());
+                    }
+                }
+                SwingUtilities.invokeLater(() -> {
+                    if (generation != searchGeneration) {
+                        return;
+                    }
+                    lastKeywordSearch = query != null && !query.isEmpty()
+                            ? new KeywordSearch(query, language, contentVersion, results)
+                            : null;
+                    searchMatches = offsets;
+                    Psalm shown = currentPsalm;
+                    updatePsalmList(results);
+                    if (currentPsalm == shown) {
+                        showSearchMatches();
+                    }
+                });
+            } catch (CancellationException e) {
+                // Superseded while scanning for an expression
+            } catch (RuntimeException e) {
+                System.err.println("Error searching psalms: " + e.getMessage());
+                e.printStackTrace();
             }
+        });
+    }
+
+    /**
+     * Runs on the search thread
+     */
+    private List<PsalmService.PsalmMatch> runSearch(PatternScan pattern, PsalmReference reference, String contains,
+                                                    SearchQuery query, String language, List<Psalm> within) {
+        if (pattern != null) {
+            return psalmService.searchPsalmsByPattern(pattern, language);
+        }
+        if (reference != null) {
+            // The referenced verses are shown as the match
+            PsalmService.PsalmMatch match = psalmService.findPsalm(reference, language);
+            return match != null ? List.of(match) : List.of();
+        }
+        if (contains != null) {
+            return psalmService.findPsalmsContaining(contains, language);
+        }
+        if (!query.isEmpty()) {
+            return psalmService.findPsalms(query, language, within);
         }
 
-        updatePsalmList(searchResults);
+        List<Psalm> psalms = psalmService.getAllPsalms();
+        List<PsalmService.PsalmMatch> matches = new ArrayList<>(psalms.size());
+        for (Psalm psalm : psalms) {
+            matches.add(new PsalmService.PsalmMatch(psalm, new int[0]));
+        }
+        return matches;
     }
 
     private void loadAllPsalms() {
@@ -396,16 +655,53 @@ public class PsalmsPanel extends JPanel {
         updatePsalmList(allPsalms);
     }
 
+    /**
+     * Apply only the difference between the listed psalms and the new results to the
+     * list model, so unchanged rows stay put and the selection survives when it can
+     */
     private void updatePsalmList(List<Psalm> psalms) {
-        DefaultListModel<Psalm> model = new DefaultListModel<>();
-        for (Psalm psalm : psalms) {
-            model.addElement(psalm);
+        Psalm selected = psalmList.getSelectedValue();
+        Set<Psalm> remaining = new HashSet<>(psalms);
+
+        // Remove rows that dropped out of the results, a contiguous run at a time
+        int end = psalmListModel.size() - 1;
+        while (end >= 0) {
+            if (remaining.contains(psalmListModel.get(end))) {
+                end--;
+                continue;
+            }
+            int start = end;
+            while (start > 0 && !remaining.contains(psalmListModel.get(start - 1))) {
+                start--;
+            }
+            psalmListModel.removeRange(start, end);
+            end = start - 1;
+        }
+
+        // Reorder the surviving rows in place, then append the new ones
+        int shown = psalmListModel.size();
+        for (int i = 0; i < shown; i++) {
+            if (psalmListModel.get(i) != psalms.get(i)) {
+                psalmListModel.set(i, psalms.get(i));
+            }
+        }
+        if (psalms.size() > shown) {
+            psalmListModel.addAll(psalms.subList(shown, psalms.size()));
         }
-        psalmList.setModel(model);
 
-        if (!psalms.isEmpty()) {
-            psalmList.setSelectedIndex(0);
+        if (psalms.isEmpty()) {
+            return;
+        }
+        int selectedIndex = selected != null ? psalms.indexOf(selected) : -1;
+        if (selectedIndex < 0) {
+            selectedIndex = 0;
+        }
+        if (psalmList.getSelectedIndex() != selectedIndex) {
+            psalmList.setSelectedIndex(selectedIndex);
+        } else if (psalmList.getSelectedValue() != currentPsalm) {
+            displayPsalm(psalmList.getSelectedValue());
         }
+        psalmList.ensureIndexIsVisible(selectedIndex);
     }
 
     private void displayPsalm(Psalm psalm) {
@@ -419,14 +715,85 @@ public class PsalmsPanel extends JPanel {
         psalmTextPane.setText(text);
         psalmTextPane.setCaretPosition(0);
 
+        showRelatedPsalms();
+
         // Apply saved highlights
         applyAllHighlights();
+        showSearchMatches();
 
         // Update clear button state
         boolean hasHighlights = psalmService.hasHighlights(psalm.getNumber());
         clearHighlightsButton.setEnabled(hasHighlights);
     }
 
+    /**
+     * List the psalms related to the displayed one. They are computed in the background,
+     * so this only copies a few numbers, or says they are on the way.
+     */
+    private void showRelatedPsalms() {
+        List<Psalm> related = psalmService.getRelatedPsalms(currentPsalm, languageService.getCurrentLanguage(),
+                RELATED_PSALMS_SHOWN);
+        relatedListModel.clear();
+        if (related == null) {
+            relatedLabel.setText("Related psalms: finding...");
+            return;
+        }
+        relatedLabel.setText("Related psalms:");
+        relatedListModel.addAll(related);
+    }
+
+    /**
+     * Mark where the current search matched the displayed psalm, using the offsets the
+     * search reported, and scroll to the first match. Painted by the highlighter, so the
+     * saved highlights in the document are left alone.
+     */
+    private void showSearchMatches() {
+        Highlighter highlighter = psalmTextPane.getHighlighter();
+        for (Object tag : searchMatchTags) {
+            highlighter.removeHighlight(tag);
+        }
+        searchMatchTags.clear();
+
+        int[] offsets = currentPsalm != null ? searchMatches.get(currentPsalm) : null;
+        if (offsets == null) {
+            return;
+        }
+        int length = psalmTextPane.getDocument().getLength();
+        try {
+            for (int i = 0; i + 1 < offsets.length && offsets[i + 1] <= length; i += 2) {
+                searchMatchTags.add(highlighter.addHighlight(offsets[i], offsets[i + 1], SEARCH_MATCH_PAINTER));
+            }
+        } catch (BadLocationException e) {
+            System.err.println("Error highlighting search matches: " + e.getMessage());
+        }
+        if (!searchMatchTags.isEmpty()) {
+            psalmTextPane.setCaretPosition(offsets[0]);
+        }
+    }
+
+    /**
+     * Select and show a psalm, clearing the search if it filters the psalm out
+     */
+    public void showPsalm(int number) {
+        Psalm psalm = psalmService.getPsalmByNumber(number);
+        if (psalm == null) {
+            return;
+        }
+
+        if (!psalmListModel.contains(psalm)) {
+            searchField.setText("");
+            searchDebounceTimer.stop();
+            if (pendingSearch != null) {
+                pendingSearch.cancel(true);
+            }
+            searchGeneration++;
+            lastKeywordSearch = null;
+            searchMatches = Map.of();
+            loadAllPsalms();
+        }
+        psalmList.setSelectedValue(psalm, true);
+    }
+
     public void refreshContent() {
         Psalm selectedPsalm = psalmList.getSelectedValue();
         if (selectedPsalm != null) {
@@ -439,6 +806,7 @@ public class PsalmsPanel extends JPanel {
      */
     public void refreshTheme() {
         styleTextPane();
+        styleRelatedList();
         if (currentPsalm != null) {
             displayPsalm(currentPsalm);
         }
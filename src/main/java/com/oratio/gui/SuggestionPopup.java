@@ -0,0 +1,243 @@
+package com.oratio.gui;
+
+import com.oratio.services.ThemeService;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Drop-down of word completions under a search field.
+ *
+ * As the user types, the word at the end of the field is completed from the words that
+ * occur in the searched content, so queries steer towards terms that have results. Up
+ * and Down move through the suggestions, Enter or a click accepts one and Escape closes
+ * the list; while the list is open Enter accepts rather than searching. The popup never
+ * takes the focus away from the field.
+ *
+ * Completions are looked up on a background thread, as the lookup may first have to
+ * build or update a search index; suggestions for text that has since changed are dropped.
+ */
+public class SuggestionPopup {
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private static final ExecutorService suggestExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-suggestions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final JTextField field;
+    private final Function<String, List<String>> suggester;
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<String> model = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(model);
+    private Future<?> pendingLookup;
+    private int lookupGeneration;
+
+    private SuggestionPopup(JTextField field, Function<String, List<String>> suggester) {
+        this.field = field;
+        this.suggester = suggester;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    accept(model.get(index));
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        popup.setFocusable(false);
+        popup.setLayout(new BorderLayout());
+        popup.add(scrollPane, BorderLayout.CENTER);
+    }
+
+    /**
+     * Suggest completions under a field
+     * @param suggester Returns the completions of a word prefix, best first
+     */
+    public static SuggestionPopup install(JTextField field, Function<String, List<String>> suggester) {
+        SuggestionPopup suggestions = new SuggestionPopup(field, suggester);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                SwingUtilities.invokeLater(suggestions::update);
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                SwingUtilities.invokeLater(suggestions::update);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+
+        // Enter is consumed while suggestions are shown, so the field's own Enter handling can skip it
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                suggestions.handleKey(e);
+            }
+        });
+
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                suggestions.hide();
+            }
+        });
+        return suggestions;
+    }
+
+    private void handleKey(KeyEvent e) {
+        if (!popup.isVisible()) {
+            return;
+        }
+
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                list.setSelectedIndex(Math.min(list.getSelectedIndex() + 1, model.size() - 1));
+                list.ensureIndexIsVisible(list.getSelectedIndex());
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                list.setSelectedIndex(Math.max(list.getSelectedIndex() - 1, 0));
+                list.ensureIndexIsVisible(list.getSelectedIndex());
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                String selected = list.getSelectedValue();
+                if (selected != null) {
+                    accept(selected);
+                    e.consume();
+                } else {
+                    hide();
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                hide();
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Look up suggestions for the word being typed at the end of the field, in the background
+     */
+    private void update() {
+        if (pendingLookup != null) {
+            pendingLookup.cancel(false);
+        }
+        int generation = ++lookupGeneration;
+        if (!field.isFocusOwner()) {
+            return;
+        }
+
+        String text = field.getText();
+        String prefix = lastWord(text);
+        if (prefix.length() < MIN_PREFIX_LENGTH) {
+            hide();
+            return;
+        }
+
+        pendingLookup = suggestExecutor.submit(() -> {
+            try {
+                List<String> words = suggester.apply(prefix);
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == lookupGeneration && field.isFocusOwner() && field.getText().equals(text)) {
+                        show(prefix, words);
+                    }
+                });
+            } catch (RuntimeException e) {
+                System.err.println("Error looking up suggestions: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void show(String prefix, List<String> words) {
+        // Nothing to suggest once the word is complete and has no longer completions
+        if (words.isEmpty() || (words.size() == 1 && words.get(0).equalsIgnoreCase(prefix))) {
+            hide();
+            return;
+        }
+
+        model.clear();
+        for (String word : words.subList(0, Math.min(words.size(), MAX_SUGGESTIONS))) {
+            model.addElement(word);
+        }
+        list.setSelectedIndex(0);
+        applyTheme();
+
+        list.setVisibleRowCount(model.size());
+        popup.setPreferredSize(null);
+        Dimension size = popup.getPreferredSize();
+        popup.setPreferredSize(new Dimension(Math.max(size.width, field.getWidth()), size.height));
+        if (popup.isVisible()) {
+            popup.pack();
+        } else {
+            popup.show(field, 0, field.getHeight());
+        }
+    }
+
+    /**
+     * Replace the word being typed with a suggestion
+     */
+    private void accept(String word) {
+        String text = field.getText();
+        String prefix = lastWord(text);
+        field.setText(text.substring(0, text.length() - prefix.length()) + word + " ");
+        field.setCaretPosition(field.getText().length());
+        hide();
+    }
+
+    public void hide() {
+        lookupGeneration++;
+        popup.setVisible(false);
+    }
+
+    /**
+     * The unfinished word at the end of a text, empty after a space or punctuation
+     */
+    static String lastWord(String text) {
+        int start = text.length();
+        while (start > 0 && (Character.isLetterOrDigit(text.charAt(start - 1)) || text.charAt(start - 1) == '\'')) {
+            start--;
+        }
+        return text.substring(start);
+    }
+
+    private void applyTheme() {
+        ThemeService themeService = ThemeService.getInstance();
+        list.setBackground(themeService.getCardBackgroundColor());
+        list.setForeground(themeService.getForegroundColor());
+        list.setSelectionBackground(themeService.getAccentColor());
+        list.setSelectionForeground(Color.WHITE);
+        popup.setBorder(BorderFactory.createLineBorder(themeService.getBorderColor()));
+    }
+}
@@ -10,6 +10,7 @@ public class Note {
     private String id;
     private String title;
     private String content;
+    private StyleRuns styles = StyleRuns.PLAIN;
     private LocalDateTime createdDate;
     private LocalDateTime modifiedDate;
     private String category;
@@ -36,6 +37,12 @@ public class Note {
         this.modifiedDate = LocalDateTime.now();
     }
 
+    /**
+     * Bold, italic and font size of the content's text
+     */
+    public StyleRuns getStyles() { return styles; }
+    public void setStyles(StyleRuns styles) { this.styles = styles != null ? styles : StyleRuns.PLAIN; }
+
     public LocalDateTime getCreatedDate() { return createdDate; }
     public void setCreatedDate(LocalDateTime createdDate) { this.createdDate = createdDate; }
 
@@ -0,0 +1,121 @@
+// File: src/main/java/com/oratio/models/PsalmReference.java
+package com.oratio.models;
+
+/**
+ * A reference to a psalm or some of its verses, such as "23", "23:4" or "119:1-16"
+ */
+public class PsalmReference {
+    private final int psalm;
+    private final int firstVerse;
+    private final int lastVerse;
+
+    /**
+     * @param firstVerse First verse, or 0 for the whole psalm
+     * @param lastVerse Last verse, or 0 for the whole psalm
+     */
+    public PsalmReference(int psalm, int firstVerse, int lastVerse) {
+        this.psalm = psalm;
+        this.firstVerse = firstVerse;
+        this.lastVerse = lastVerse;
+    }
+
+    /**
+     * Parse "N", "N:V" or "N:V-W", optionally preceded by "Psalm" or "Ps"
+     * @return the reference, or null if the text is not one
+     */
+    public static PsalmReference parse(String text) {
+        String reference = text.trim();
+        if (reference.regionMatches(true, 0, "psalm", 0, 5)) {
+            reference = reference.substring(5).trim();
+        } else if (reference.regionMatches(true, 0, "ps", 0, 2)) {
+            reference = reference.substring(2).trim();
+        }
+        if (reference.startsWith(".")) {
+            reference = reference.substring(1).trim();
+        }
+
+        int[] cursor = {0};
+        int psalm = readNumber(reference, cursor);
+        if (psalm <= 0) {
+            return null;
+        }
+        if (cursor[0] == reference.length()) {
+            return new PsalmReference(psalm, 0, 0);
+        }
+        if (!skip(reference, cursor, ':')) {
+            return null;
+        }
+
+        int first = readNumber(reference, cursor);
+        if (first <= 0) {
+            return null;
+        }
+        int last = first;
+        if (skip(reference, cursor, '-') || skip(reference, cursor, '\u2013')) {
+            last = readNumber(reference, cursor);
+            if (last < first) {
+                return null;
+            }
+        }
+        return cursor[0] == reference.length() ? new PsalmReference(psalm, first, last) : null;
+    }
+
+    /**
+     * Read up to four digits, skipping surrounding spaces
+     * @return the number, or -1 if there is none
+     */
+    private static int readNumber(String text, int[] cursor) {
+        int i = cursor[0];
+        while (i < text.length() && text.charAt(i) == ' ') {
+            i++;
+        }
+        int start = i;
+        while (i < text.length() && i - start < 4 && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        if (i == start || (i < text.length() && Character.isDigit(text.charAt(i)))) {
+            return -1;
+        }
+        int value = Integer.parseInt(text.substring(start, i));
+        while (i < text.length() && text.charAt(i) == ' ') {
+            i++;
+        }
+        cursor[0] = i;
+        return value;
+    }
+
+    private static boolean skip(String text, int[] cursor, char c) {
+        if (cursor[0] < text.length() && text.charAt(cursor[0]) == c) {
+            cursor[0]++;
+            return true;
+        }
+        return false;
+    }
+
+    public int getPsalm() {
+        return psalm;
+    }
+
+    /**
+     * First verse, or 0 when the whole psalm is referenced
+     */
+    public int getFirstVerse() {
+        return firstVerse;
+    }
+
+    public int getLastVerse() {
+        return lastVerse;
+    }
+
+    public boolean isWholePsalm() {
+        return firstVerse == 0;
+    }
+
+    @Override
+    public String toString() {
+        if (isWholePsalm()) {
+            return String.valueOf(psalm);
+        }
+        return firstVerse == lastVerse ? psalm + ":" + firstVerse : psalm + ":" + firstVerse + "-" + lastVerse;
+    }
+}
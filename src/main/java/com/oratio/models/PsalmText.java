@@ -0,0 +1,159 @@
+// File: src/main/java/com/oratio/models/PsalmText.java
+package com.oratio.models;
+
+import java.util.Arrays;
+
+/**
+ * The text of a psalm in one language, split into verses.
+ *
+ * Psalm texts break verses over several lines, so the verses are given by a table of
+ * the line each verse starts on, compiled from the verse numbers in the source text.
+ * The verses are located once and kept as offset arrays, so a verse or a range of
+ * verses is cut out of the text directly and an offset in the text maps back to its
+ * verse with a binary search. Verses keep their numbers in the full psalm, which need
+ * not be consecutive when only part of a psalm is given.
+ */
+public class PsalmText {
+    private final int number;
+    private final String text;
+    private final int[] verseNumbers;
+    private final int[] verseStarts;
+    private final int[] verseEnds;
+
+    /**
+     * A psalm whose verse boundaries are unknown, so it has no verses
+     */
+    public PsalmText(int number, String text) {
+        this(number, text, new int[0], new int[0]);
+    }
+
+    /**
+     * @param verseNumbers Number of each verse, increasing
+     * @param firstLines Line of the text each verse starts on, counted from 0; the verse
+     *        runs up to the next verse, without trailing blank lines
+     */
+    public PsalmText(int number, String text, int[] verseNumbers, int[] firstLines) {
+        if (verseNumbers.length != firstLines.length) {
+            throw new IllegalArgumentException("Verse numbers and lines differ in length");
+        }
+        this.number = number;
+        this.text = text;
+        this.verseNumbers = verseNumbers.clone();
+
+        // Offsets of the line starts the verses need
+        int lineCount = firstLines.length > 0 ? firstLines[firstLines.length - 1] + 1 : 0;
+        int[] lineStarts = new int[lineCount];
+        int offset = 0;
+        for (int line = 0; line < lineCount; line++) {
+            if (offset > text.length()) {
+                throw new IllegalArgumentException("Psalm " + number + " has no line " + line);
+            }
+            lineStarts[line] = offset;
+            int lineEnd = text.indexOf('\n', offset);
+            offset = lineEnd < 0 ? text.length() + 1 : lineEnd + 1;
+        }
+
+        verseStarts = new int[firstLines.length];
+        verseEnds = new int[firstLines.length];
+        for (int i = 0; i < firstLines.length; i++) {
+            int start = lineStarts[firstLines[i]];
+            int end = i + 1 < firstLines.length ? lineStarts[firstLines[i + 1]] : text.length();
+            while (start < end && Character.isWhitespace(text.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+                end--;
+            }
+            verseStarts[i] = start;
+            verseEnds[i] = end;
+        }
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getVerseCount() {
+        return verseNumbers.length;
+    }
+
+    /**
+     * Number of the last verse, or 0 when the psalm has no verses
+     */
+    public int getLastVerse() {
+        return verseNumbers.length > 0 ? verseNumbers[verseNumbers.length - 1] : 0;
+    }
+
+    public boolean hasVerse(int verse) {
+        return Arrays.binarySearch(verseNumbers, verse) >= 0;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if the psalm has no such verse
+     */
+    public String getVerse(int verse) {
+        return text.substring(getVerseStart(verse), getVerseEnd(verse));
+    }
+
+    /**
+     * The text from the first verse through the last, with the line breaks between them.
+     * The range ends at the last verse given up to lastVerse.
+     * @throws IndexOutOfBoundsException if the first verse does not exist
+     */
+    public String getVerses(int firstVerse, int lastVerse) {
+        return text.substring(getVerseStart(firstVerse), getRangeEnd(firstVerse, lastVerse));
+    }
+
+    /**
+     * Offset of the first character of a verse in the text
+     */
+    public int getVerseStart(int verse) {
+        return verseStarts[indexOf(verse)];
+    }
+
+    /**
+     * Offset just past the last character of a verse in the text
+     */
+    public int getVerseEnd(int verse) {
+        return verseEnds[indexOf(verse)];
+    }
+
+    /**
+     * Offset just past a range of verses: the end of the last verse given from
+     * firstVerse up to lastVerse
+     * @throws IndexOutOfBoundsException if the first verse does not exist
+     */
+    public int getRangeEnd(int firstVerse, int lastVerse) {
+        int first = indexOf(firstVerse);
+        int index = Arrays.binarySearch(verseNumbers, lastVerse);
+        int last = index >= 0 ? index : -index - 2;
+        return verseEnds[Math.max(first, last)];
+    }
+
+    /**
+     * Number of the verse containing an offset in the text, or of the verse before it
+     * when the offset falls between verses; 0 before the first verse
+     */
+    public int verseAt(int offset) {
+        int index = Arrays.binarySearch(verseStarts, offset);
+        int verse = index >= 0 ? index : -index - 2;
+        return verse >= 0 ? verseNumbers[verse] : 0;
+    }
+
+    private int indexOf(int verse) {
+        int index = Arrays.binarySearch(verseNumbers, verse);
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Psalm " + number + " has no verse " + verse);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Psalm %d (%d verses)", number, verseNumbers.length);
+    }
+}
@@ -0,0 +1,177 @@
+// File: src/main/java/com/oratio/models/StyleRuns.java
+package com.oratio.models;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Formatting of a note's text as runs of characters sharing one style.
+ *
+ * A style is a small int id packing bold, italic and font size, where size 0 means the
+ * editor's default size. The runs cover the text from its start; text after the last run,
+ * and any run of style 0, is plain. Equal neighbouring runs are merged, so a note
+ * formatted in a few places holds a few runs however long it is. The runs are stored as
+ * varints: the run count, then each run's length and style.
+ */
+public final class StyleRuns {
+    public static final int PLAIN_STYLE = 0;
+    private static final int BOLD = 1;
+    private static final int ITALIC = 2;
+    private static final int SIZE_SHIFT = 2;
+    private static final int MAX_FONT_SIZE = 1 << 12;
+
+    public static final StyleRuns PLAIN = new StyleRuns(new int[0], new int[0]);
+
+    private final int[] lengths;
+    private final int[] styles;
+
+    private StyleRuns(int[] lengths, int[] styles) {
+        this.lengths = lengths;
+        this.styles = styles;
+    }
+
+    /**
+     * Style id of a combination of formatting
+     * @param fontSize Font size in points, or 0 for the default size
+     */
+    public static int style(boolean bold, boolean italic, int fontSize) {
+        if (fontSize < 0 || fontSize >= MAX_FONT_SIZE) {
+            throw new IllegalArgumentException("Bad font size: " + fontSize);
+        }
+        return (fontSize << SIZE_SHIFT) | (italic ? ITALIC : 0) | (bold ? BOLD : 0);
+    }
+
+    public static boolean isBold(int style) {
+        return (style & BOLD) != 0;
+    }
+
+    public static boolean isItalic(int style) {
+        return (style & ITALIC) != 0;
+    }
+
+    /**
+     * @return the font size in points, or 0 for the default size
+     */
+    public static int getFontSize(int style) {
+        return style >>> SIZE_SHIFT;
+    }
+
+    public int getRunCount() {
+        return lengths.length;
+    }
+
+    public int getRunLength(int run) {
+        return lengths[run];
+    }
+
+    public int getRunStyle(int run) {
+        return styles[run];
+    }
+
+    public boolean isPlain() {
+        return lengths.length == 0;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 + lengths.length * 4);
+        writeVarint(out, lengths.length);
+        for (int i = 0; i < lengths.length; i++) {
+            writeVarint(out, lengths[i]);
+            writeVarint(out, styles[i]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Read runs written by {@link #toBytes()}
+     * @throws IllegalArgumentException if the bytes are not valid runs
+     */
+    public static StyleRuns fromBytes(byte[] bytes) {
+        int[] position = {0};
+        int count = readVarint(bytes, position);
+        if (count > bytes.length) {
+            throw new IllegalArgumentException("Bad style run count: " + count);
+        }
+        Builder builder = new Builder();
+        for (int i = 0; i < count; i++) {
+            builder.add(readVarint(bytes, position), readVarint(bytes, position));
+        }
+        if (position[0] != bytes.length) {
+            throw new IllegalArgumentException("Trailing bytes after style runs");
+        }
+        return builder.build();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] bytes, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("Style runs cut short");
+            }
+            byte b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Bad varint in style runs");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof StyleRuns && Arrays.equals(lengths, ((StyleRuns) o).lengths)
+                && Arrays.equals(styles, ((StyleRuns) o).styles);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(lengths) * 31 + Arrays.hashCode(styles);
+    }
+
+    /**
+     * Collects runs in text order, merging equal neighbours
+     */
+    public static final class Builder {
+        private int[] lengths = new int[8];
+        private int[] styles = new int[8];
+        private int count;
+
+        public Builder add(int length, int style) {
+            if (length < 0 || style < 0) {
+                throw new IllegalArgumentException("Bad style run: " + length + ", " + style);
+            }
+            if (length == 0) {
+                return this;
+            }
+            if (count > 0 && styles[count - 1] == style) {
+                lengths[count - 1] += length;
+                return this;
+            }
+            if (count == lengths.length) {
+                lengths = Arrays.copyOf(lengths, count * 2);
+                styles = Arrays.copyOf(styles, count * 2);
+            }
+            lengths[count] = length;
+            styles[count] = style;
+            count++;
+            return this;
+        }
+
+        public StyleRuns build() {
+            // Plain text at the end needs no run
+            int end = count;
+            if (end > 0 && styles[end - 1] == PLAIN_STYLE) {
+                end--;
+            }
+            return end == 0 ? PLAIN : new StyleRuns(Arrays.copyOf(lengths, end), Arrays.copyOf(styles, end));
+        }
+    }
+}
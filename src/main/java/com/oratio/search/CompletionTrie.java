@@ -0,0 +1,184 @@
+package com.oratio.search;
+
+import java.util.Arrays;
+
+/**
+ * Prefix trie over a vocabulary that returns the most frequent completions of a prefix.
+ *
+ * The trie is stored in flat arrays: the children of a node are contiguous and sorted by
+ * character, so descending one character is a binary search among them, and there are
+ * no node objects. Every node also keeps the ids of the best few terms below it, ranked
+ * by weight, so answering a prefix costs one walk down its characters and a copy of that
+ * list, whatever the size of the subtree. The lists hold at most {@link #TOP_K} ids per
+ * node, so memory grows linearly with the vocabulary.
+ */
+final class CompletionTrie {
+    static final int TOP_K = 8;
+
+    private final String[] terms;
+    private final int[] weights;
+
+    // Node 0 is the root; children of node n are firstChild[n] .. firstChild[n] + childCount[n] - 1
+    private char[] labels;
+    private int[] firstChild;
+    private int[] childCount;
+    // The best terms below node n are topTerms[topStart[n] .. topStart[n] + topLength[n] - 1]
+    private int[] topStart;
+    private byte[] topLength;
+    private int[] topTerms;
+
+    private int nodeCount;
+    private int topCount;
+
+    /**
+     * @param terms The vocabulary, sorted
+     * @param weights Weight of each term, e.g. how often it occurs
+     */
+    CompletionTrie(String[] terms, int[] weights) {
+        this.terms = terms;
+        this.weights = weights;
+
+        // Every character adds at most one node
+        int capacity = 1;
+        for (String term : terms) {
+            capacity += term.length();
+        }
+        labels = new char[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        topStart = new int[capacity];
+        topLength = new byte[capacity];
+        topTerms = new int[capacity * Math.min(TOP_K, Math.max(1, terms.length))];
+
+        nodeCount = 1;
+        build(0, 0, terms.length, 0);
+
+        labels = Arrays.copyOf(labels, nodeCount);
+        firstChild = Arrays.copyOf(firstChild, nodeCount);
+        childCount = Arrays.copyOf(childCount, nodeCount);
+        topStart = Arrays.copyOf(topStart, nodeCount);
+        topLength = Arrays.copyOf(topLength, nodeCount);
+        topTerms = Arrays.copyOf(topTerms, topCount);
+    }
+
+    /**
+     * Lay out the children of a node covering the sorted terms [from, to) that share
+     * their first depth characters, then rank the node's best terms from its own term
+     * and its children's lists
+     */
+    private void build(int node, int from, int to, int depth) {
+        // A term ending at this node sorts before its longer extensions
+        int ownTerm = -1;
+        if (from < to && terms[from].length() == depth) {
+            ownTerm = from++;
+        }
+
+        int groups = 0;
+        for (int i = from; i < to; groups++) {
+            i = groupEnd(i, to, depth);
+        }
+        int first = nodeCount;
+        firstChild[node] = first;
+        childCount[node] = groups;
+        nodeCount += groups;
+
+        int child = first;
+        for (int i = from; i < to; child++) {
+            int end = groupEnd(i, to, depth);
+            labels[child] = terms[i].charAt(depth);
+            build(child, i, end, depth + 1);
+            i = end;
+        }
+
+        topStart[node] = topCount;
+        mergeTop(ownTerm, first, groups);
+        topLength[node] = (byte) (topCount - topStart[node]);
+    }
+
+    /**
+     * End of the run of terms from start that have the same character at depth
+     */
+    private int groupEnd(int start, int to, int depth) {
+        char c = terms[start].charAt(depth);
+        int end = start + 1;
+        while (end < to && terms[end].charAt(depth) == c) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Append the best TOP_K of a node's own term and its children's ranked lists
+     */
+    private void mergeTop(int ownTerm, int firstChild, int children) {
+        int[] cursors = new int[children];
+        boolean ownPending = ownTerm >= 0;
+        for (int taken = 0; taken < TOP_K; taken++) {
+            int best = ownPending ? ownTerm : -1;
+            int bestChild = -1;
+            for (int c = 0; c < children; c++) {
+                int node = firstChild + c;
+                if (cursors[c] < topLength[node]) {
+                    int candidate = topTerms[topStart[node] + cursors[c]];
+                    if (best < 0 || ranksBefore(candidate, best)) {
+                        best = candidate;
+                        bestChild = c;
+                    }
+                }
+            }
+            if (best < 0) {
+                return;
+            }
+            if (bestChild < 0) {
+                ownPending = false;
+            } else {
+                cursors[bestChild]++;
+            }
+            topTerms[topCount++] = best;
+        }
+    }
+
+    private boolean ranksBefore(int a, int b) {
+        return weights[a] != weights[b] ? weights[a] > weights[b] : a < b;
+    }
+
+    /**
+     * The heaviest terms starting with a prefix
+     * @return ids of at most limit terms, best first
+     */
+    int[] complete(String prefix, int limit) {
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = child(node, prefix.charAt(i));
+            if (node < 0) {
+                return new int[0];
+            }
+        }
+        int from = topStart[node];
+        return Arrays.copyOfRange(topTerms, from, from + Math.min(topLength[node], limit));
+    }
+
+    private int child(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < c) {
+                low = mid + 1;
+            } else if (labels[mid] > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    String term(int id) {
+        return terms[id];
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,164 @@
+package com.oratio.search;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Bloom filter of the words and trigrams of one document, for skipping documents in
+ * scans that cannot use an index, such as regular expressions.
+ *
+ * The filter holds every normalized token of the document and every three-character
+ * sequence of its case-folded text. It answers "might contain" conservatively: a
+ * false answer is certain, so a document whose filter lacks a word or a trigram of a
+ * required piece of text can be skipped without reading it, while a true answer only
+ * means the document has to be scanned. About ten bits are used per distinct key, for
+ * roughly one false positive in a hundred lookups.
+ *
+ * Immutable and safe to share between threads.
+ */
+public final class DocumentFilter {
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 5;
+    private static final long TRIGRAM = 1L << 48;
+    private static final long TOKEN = 2L << 48;
+    private static final Pattern APOSTROPHES = Pattern.compile("['\u2019\u2018\u02bc]");
+
+    private final long[] bits;
+    private final int mask;
+    private final TextNormalizer normalizer;
+
+    private DocumentFilter(long[] keys, int keyCount, TextNormalizer normalizer) {
+        this.normalizer = normalizer;
+        int size = Integer.highestOneBit(Math.max(64, keyCount * BITS_PER_KEY - 1)) << 1;
+        this.bits = new long[size >>> 6];
+        this.mask = size - 1;
+        for (int i = 0; i < keyCount; i++) {
+            long h = mix(keys[i]);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            for (int k = 0; k < HASHES; k++) {
+                int bit = (h1 + k * h2) & mask;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * Build the filter of a document made of one or more fragments, e.g. a title and a
+     * body. No trigram spans two fragments.
+     * @param normalizer Folds the document's words, usually the content language's normalizer
+     */
+    public static DocumentFilter of(TextNormalizer normalizer, String... fragments) {
+        KeyList keys = new KeyList();
+        for (String fragment : fragments) {
+            for (int i = 0; i + 3 <= fragment.length(); i++) {
+                keys.add(trigram(fold(fragment.charAt(i)), fold(fragment.charAt(i + 1)), fold(fragment.charAt(i + 2))));
+            }
+            Tokenizer.tokenize(fragment, normalizer, (term, position, start, end) -> {
+                keys.add(tokenKey(term));
+                // Pattern word boundaries also fall at apostrophes, so "Lord's" holds "lord" too
+                for (String part : APOSTROPHES.split(term)) {
+                    if (!part.isEmpty() && part.length() < term.length()) {
+                        keys.add(tokenKey(part));
+                    }
+                }
+            });
+        }
+
+        // Repeated trigrams and words count once when sizing the filter
+        long[] values = keys.values;
+        Arrays.sort(values, 0, keys.count);
+        int distinct = 0;
+        for (int i = 0; i < keys.count; i++) {
+            if (distinct == 0 || values[distinct - 1] != values[i]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return new DocumentFilter(values, distinct, normalizer);
+    }
+
+    private static final class KeyList {
+        long[] values = new long[64];
+        int count;
+
+        void add(long key) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = key;
+        }
+    }
+
+    /**
+     * Fold case one character at a time, the way case-insensitive patterns compare characters
+     */
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static long trigram(char a, char b, char c) {
+        return TRIGRAM | (long) a << 32 | (long) b << 16 | c;
+    }
+
+    /**
+     * Words are also folded one character at a time, so that characters a pattern
+     * treats as equal, like "\u017f" and "s", give the same key
+     */
+    private static long tokenKey(String term) {
+        int hash = 0;
+        for (int i = 0; i < term.length(); i++) {
+            hash = 31 * hash + fold(term.charAt(i));
+        }
+        return TOKEN | (hash & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Whether the document might contain a piece of text, ignoring case. Text shorter
+     * than three characters always might.
+     */
+    public boolean mightContainText(String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            if (!mightContain(trigram(fold(text.charAt(i)), fold(text.charAt(i + 1)), fold(text.charAt(i + 2))))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the document might contain a whole word, compared after normalizing it
+     * like the document's words
+     */
+    public boolean mightContainWord(String word) {
+        return mightContain(tokenKey(normalizer.normalize(word)));
+    }
+
+    private boolean mightContain(long key) {
+        long h = mix(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int k = 0; k < HASHES; k++) {
+            int bit = (h1 + k * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Size of the filter in bytes
+     */
+    public int getSize() {
+        return bits.length * 8;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,1051 @@
+package com.oratio.search;
+
+import java.util.*;
+
+/**
+ * Immutable token-level inverted index over a set of documents.
+ *
+ * Each term maps to a postings list of ascending document ids with their term
+ * frequencies, stored as primitive arrays. A query only touches the postings of its
+ * own terms, so its cost grows with the number of matches rather than the size of the
+ * corpus. AND queries are intersected starting from the rarest term; OR queries merge
+ * the postings lists. Hits are ranked by BM25, and only the requested top hits are
+ * sorted. A prefix term is expanded over the
+ * sorted term dictionary, and a query can be restricted to a candidate set, e.g. the
+ * results of the query it extends. Fuzzy queries expand each word to the terms within
+ * a few edits of it, found through a trigram index over the term dictionary that is
+ * built on first use. Documents and query words are folded by the same
+ * {@link TextNormalizer}, so accents, ligatures and apostrophe styles do not matter.
+ *
+ * Postings also keep the position and character offsets of every occurrence, so
+ * phrase and NEAR queries are checked against word positions, and each hit carries
+ * the offsets of its matches in the indexed text without the text being scanned again.
+ *
+ * Build with {@link Builder}; once built the index is read-only and safe to share
+ * between threads. {@link #withChanges} derives an updated copy that shares the
+ * postings of every term a change does not touch, for corpora that change a document
+ * at a time.
+ */
+public final class InvertedIndex {
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    /**
+     * A matching document, its relevance score and where it matched
+     */
+    public static final class Hit {
+        private final int docId;
+        private final float score;
+        private final int[] matchOffsets;
+
+        Hit(int docId, float score) {
+            this(docId, score, NO_MATCHES);
+        }
+
+        Hit(int docId, float score, int[] matchOffsets) {
+            this.docId = docId;
+            this.score = score;
+            this.matchOffsets = matchOffsets;
+        }
+
+        public int getDocId() {
+            return docId;
+        }
+
+        public float getScore() {
+            return score;
+        }
+
+        /**
+         * Character ranges of the matching words and phrases in the indexed text, as
+         * ascending, non-overlapping start and end pairs: {start0, end0, start1, end1, ...}.
+         * The array is shared and must not be modified.
+         */
+        public int[] getMatchOffsets() {
+            return matchOffsets;
+        }
+
+        /**
+         * Match offsets within a part of the indexed text that starts at textStart, e.g.
+         * the body of a document indexed as its title followed by its body.
+         * Matches before textStart are dropped and the rest are shifted to start at 0.
+         */
+        public int[] getMatchOffsets(int textStart) {
+            int first = 0;
+            while (first < matchOffsets.length && matchOffsets[first] < textStart) {
+                first += 2;
+            }
+            int[] shifted = new int[matchOffsets.length - first];
+            for (int i = 0; i < shifted.length; i++) {
+                shifted[i] = matchOffsets[first + i] - textStart;
+            }
+            return shifted;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Hit[doc=%d, score=%.3f]", docId, score);
+        }
+    }
+
+    private static final Comparator<Hit> BY_RANK = (a, b) -> {
+        int order = Float.compare(b.score, a.score);
+        return order != 0 ? order : Integer.compare(a.docId, b.docId);
+    };
+
+    /**
+     * Documents containing a term. The occurrences of the i-th document are at
+     * [firstOccurrence[i], firstOccurrence[i] + frequencies[i]) of the occurrence
+     * arrays, in position order.
+     */
+    private static final class Postings {
+        final int[] docIds;
+        final int[] frequencies;
+        final int[] firstOccurrence;
+        final int[] positions;
+        final int[] starts;
+        final int[] ends;
+
+        /**
+         * Documents without occurrences, used for candidate sets
+         */
+        Postings(int[] docIds, int[] frequencies) {
+            this(docIds, frequencies, null, null, null, null);
+        }
+
+        Postings(int[] docIds, int[] frequencies, int[] firstOccurrence, int[] positions, int[] starts, int[] ends) {
+            this.docIds = docIds;
+            this.frequencies = frequencies;
+            this.firstOccurrence = firstOccurrence;
+            this.positions = positions;
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        int size() {
+            return docIds.length;
+        }
+
+        /**
+         * @return the index of a document in this list, or -1
+         */
+        int indexOf(int docId) {
+            int index = Arrays.binarySearch(docIds, docId);
+            return index >= 0 ? index : -1;
+        }
+    }
+
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final Map<String, Postings> postings;
+    private final String[] sortedTerms;
+    private final int documentCount;
+    private final int[] documentLengths;
+    private final long totalLength;
+    private final float averageLength;
+    private final TextNormalizer normalizer;
+    private final Map<String, String> surfaceForms;
+    private volatile NGramIndex termGrams;
+    private volatile CompletionTrie completions;
+
+    /**
+     * @param sortedTerms The terms of the postings in order, or null to sort them here
+     */
+    private InvertedIndex(Map<String, Postings> postings, String[] sortedTerms, int documentCount, int[] documentLengths,
+                          long totalLength, TextNormalizer normalizer, Map<String, String> surfaceForms) {
+        this.postings = postings;
+        this.normalizer = normalizer;
+        this.surfaceForms = surfaceForms;
+        if (sortedTerms == null) {
+            sortedTerms = postings.keySet().toArray(new String[0]);
+            Arrays.sort(sortedTerms);
+        }
+        this.sortedTerms = sortedTerms;
+        this.documentCount = documentCount;
+        this.documentLengths = documentLengths;
+        this.totalLength = totalLength;
+        this.averageLength = documentCount > 0 ? Math.max(1f, (float) totalLength / documentCount) : 1f;
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * The normalizer documents were indexed with
+     */
+    public TextNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Number of documents containing a term
+     */
+    public int documentFrequency(String term) {
+        Postings list = postings.get(term);
+        return list != null ? list.size() : 0;
+    }
+
+    /**
+     * A copy of this index with some documents removed and others added, e.g. after a
+     * few notes were edited. Only the added documents are tokenized, and the postings of
+     * terms the change does not touch are shared with this index, so the cost is about
+     * the size of the term dictionary rather than that of a rebuild. Scores are the same
+     * as those of an index built from the resulting documents.
+     * @param removedDocIds Ids of documents in the index to drop
+     * @param addedDocIds Ids of the documents to add, ascending and above every id used so far
+     * @param addedTexts Texts of the added documents
+     */
+    public InvertedIndex withChanges(int[] removedDocIds, int[] addedDocIds, String[] addedTexts) {
+        Builder added = new Builder(normalizer);
+        added.lastDocId = documentLengths.length - 1;
+        for (int i = 0; i < addedDocIds.length; i++) {
+            added.add(addedDocIds[i], addedTexts[i]);
+        }
+        int[] removed = removedDocIds.clone();
+        Arrays.sort(removed);
+
+        Map<String, Postings> changed = new HashMap<>(postings.size() * 4 / 3 + 1);
+        boolean termsRemoved = false;
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            GrowablePostings additions = added.terms.remove(entry.getKey());
+            Postings list = splice(entry.getValue(), removed, additions != null ? additions.freeze() : null);
+            if (list != null) {
+                changed.put(entry.getKey(), list);
+            } else {
+                termsRemoved = true;
+            }
+        }
+        String[] newTerms = added.terms.keySet().toArray(new String[0]);
+        Arrays.sort(newTerms);
+        added.terms.forEach((term, list) -> changed.put(term, list.freeze()));
+
+        // Keep the vocabulary sorted by merging rather than sorting it again
+        String[] terms = sortedTerms;
+        if (termsRemoved || newTerms.length > 0) {
+            terms = new String[changed.size()];
+            int count = 0;
+            int next = 0;
+            for (String term : sortedTerms) {
+                if (!changed.containsKey(term)) {
+                    continue;
+                }
+                while (next < newTerms.length && newTerms[next].compareTo(term) < 0) {
+                    terms[count++] = newTerms[next++];
+                }
+                terms[count++] = term;
+            }
+            while (next < newTerms.length) {
+                terms[count++] = newTerms[next++];
+            }
+        }
+
+        int[] lengths = Arrays.copyOf(documentLengths, Math.max(documentLengths.length, added.lastDocId + 1));
+        long total = totalLength + added.totalLength;
+        for (int docId : removed) {
+            total -= lengths[docId];
+            lengths[docId] = 0;
+        }
+        for (int docId : addedDocIds) {
+            lengths[docId] = added.documentLengths[docId];
+        }
+
+        Map<String, String> forms = surfaceForms;
+        if (!added.surfaceForms.isEmpty()) {
+            forms = new HashMap<>(surfaceForms);
+            added.surfaceForms.forEach(forms::putIfAbsent);
+        }
+
+        InvertedIndex index = new InvertedIndex(changed, terms, documentCount - removed.length + added.documentCount,
+                lengths, total, normalizer, forms);
+        if (terms == sortedTerms) {
+            // The trigram index only depends on the vocabulary
+            index.termGrams = termGrams;
+        }
+        return index;
+    }
+
+    /**
+     * A postings list without some documents and with others appended, copied a run of
+     * documents at a time
+     * @param removed Ascending ids of documents to drop, which need not be in the list
+     * @param additions Documents to append, all above those in the list, or null
+     * @return the list itself when nothing changes, or null when no document is left
+     */
+    private static Postings splice(Postings list, int[] removed, Postings additions) {
+        int[] dropped = new int[removed.length];
+        int droppedCount = 0;
+        int droppedOccurrences = 0;
+        for (int docId : removed) {
+            int index = list.indexOf(docId);
+            if (index >= 0) {
+                dropped[droppedCount++] = index;
+                droppedOccurrences += list.frequencies[index];
+            }
+        }
+        if (droppedCount == 0 && additions == null) {
+            return list;
+        }
+
+        int addedCount = additions != null ? additions.size() : 0;
+        int addedOccurrences = additions != null ? additions.positions.length : 0;
+        int size = list.size() - droppedCount + addedCount;
+        if (size == 0) {
+            return null;
+        }
+        int occurrences = list.positions.length - droppedOccurrences + addedOccurrences;
+        Postings spliced = new Postings(new int[size], new int[size], new int[size],
+                new int[occurrences], new int[occurrences], new int[occurrences]);
+
+        int[] cursor = new int[2];
+        int from = 0;
+        for (int k = 0; k <= droppedCount; k++) {
+            int to = k < droppedCount ? dropped[k] : list.size();
+            copyRun(list, from, to, spliced, cursor);
+            from = to + 1;
+        }
+        if (additions != null) {
+            copyRun(additions, 0, additions.size(), spliced, cursor);
+        }
+        return spliced;
+    }
+
+    /**
+     * Copy documents [from, to) of a list to the end of another being filled
+     * @param cursor Documents and occurrences filled so far, advanced by the copy
+     */
+    private static void copyRun(Postings source, int from, int to, Postings target, int[] cursor) {
+        if (from >= to) {
+            return;
+        }
+        int firstOccurrence = source.firstOccurrence[from];
+        int endOccurrence = to < source.size() ? source.firstOccurrence[to] : source.positions.length;
+        int documents = to - from;
+        int occurrences = endOccurrence - firstOccurrence;
+
+        System.arraycopy(source.docIds, from, target.docIds, cursor[0], documents);
+        System.arraycopy(source.frequencies, from, target.frequencies, cursor[0], documents);
+        int shift = cursor[1] - firstOccurrence;
+        for (int i = 0; i < documents; i++) {
+            target.firstOccurrence[cursor[0] + i] = source.firstOccurrence[from + i] + shift;
+        }
+        System.arraycopy(source.positions, firstOccurrence, target.positions, cursor[1], occurrences);
+        System.arraycopy(source.starts, firstOccurrence, target.starts, cursor[1], occurrences);
+        System.arraycopy(source.ends, firstOccurrence, target.ends, cursor[1], occurrences);
+        cursor[0] += documents;
+        cursor[1] += occurrences;
+    }
+
+    /**
+     * Run a query
+     * @return matching documents, best first; empty for an empty query
+     */
+    public List<Hit> search(SearchQuery query) {
+        return search(query, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Run a query, keeping only the best hits
+     * @return at most limit matching documents, best first
+     */
+    public List<Hit> search(SearchQuery query, int limit) {
+        return search(query, null, limit);
+    }
+
+    /**
+     * Run a query restricted to a set of documents
+     * @param candidates Ascending document ids to search within, or null for all documents;
+     *                   only applies to AND queries
+     * @param limit Maximum number of hits to return
+     * @return matching documents, best first; empty for an empty query
+     */
+    public List<Hit> search(SearchQuery query, int[] candidates, int limit) {
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        boolean and = query.getOperator() == SearchQuery.Operator.AND;
+        List<String> terms = query.getTerms();
+        Postings[] lists = new Postings[terms.size() + 2];
+        float[] idf = new float[lists.length];
+        Map<String, Postings> termLists = new HashMap<>();
+        int found = 0;
+
+        for (String queryTerm : terms) {
+            String term = normalizer.normalize(queryTerm);
+            Postings list = query.isFuzzy() ? expandFuzzy(term, false) : postings.get(term);
+            if (list == null) {
+                if (and) {
+                    return Collections.emptyList();
+                }
+                continue;
+            }
+            termLists.put(queryTerm, list);
+            idf[found] = idf(list);
+            lists[found++] = list;
+        }
+
+        Postings prefixList = null;
+        if (query.getPrefix() != null) {
+            String prefix = normalizer.normalize(query.getPrefix());
+            prefixList = query.isFuzzy() ? expandFuzzy(prefix, true) : expandPrefix(prefix);
+            if (prefixList != null) {
+                idf[found] = idf(prefixList);
+                lists[found++] = prefixList;
+            } else if (and) {
+                return Collections.emptyList();
+            }
+        }
+
+        if (and && candidates != null) {
+            // The candidates take part in the intersection without adding to the score
+            int[] frequencies = new int[candidates.length];
+            Arrays.fill(frequencies, 1);
+            idf[found] = 0;
+            lists[found++] = new Postings(candidates, frequencies);
+        }
+
+        List<Hit> hits = and ? intersect(lists, idf, found) : union(lists, idf, found);
+        if (!query.getProximities().isEmpty()) {
+            hits.removeIf(hit -> !matchesProximities(hit.docId, query.getProximities(), termLists));
+        }
+
+        List<Hit> top = topHits(hits, limit);
+        List<Hit> located = new ArrayList<>(top.size());
+        for (Hit hit : top) {
+            located.add(new Hit(hit.docId, hit.score, matchOffsets(hit.docId, query, termLists, prefixList)));
+        }
+        return located;
+    }
+
+    private static boolean matchesProximities(int docId, List<SearchQuery.Proximity> proximities,
+                                              Map<String, Postings> termLists) {
+        for (SearchQuery.Proximity proximity : proximities) {
+            if (!matchProximity(docId, proximity, termLists, null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collect the offsets of a document's matches: whole phrases, both words of each
+     * NEAR match, and every occurrence of the other words
+     */
+    private static int[] matchOffsets(int docId, SearchQuery query, Map<String, Postings> termLists, Postings prefixList) {
+        Spans spans = new Spans();
+        Set<String> grouped = new HashSet<>();
+        for (SearchQuery.Proximity proximity : query.getProximities()) {
+            matchProximity(docId, proximity, termLists, spans);
+            grouped.addAll(proximity.getTerms());
+        }
+        for (String term : query.getTerms()) {
+            if (!grouped.contains(term)) {
+                addOccurrences(docId, termLists.get(term), spans);
+            }
+        }
+        addOccurrences(docId, prefixList, spans);
+        return spans.toOffsets();
+    }
+
+    private static void addOccurrences(int docId, Postings list, Spans spans) {
+        int index = list != null ? list.indexOf(docId) : -1;
+        if (index < 0 || list.firstOccurrence == null) {
+            return;
+        }
+        int first = list.firstOccurrence[index];
+        for (int k = first; k < first + list.frequencies[index]; k++) {
+            spans.add(list.starts[k], list.ends[k]);
+        }
+    }
+
+    /**
+     * Check a phrase or NEAR group against the word positions of a document
+     * @param spans Receives the offsets of every match, or null to stop at the first match
+     * @return whether the group matches
+     */
+    private static boolean matchProximity(int docId, SearchQuery.Proximity proximity,
+                                          Map<String, Postings> termLists, Spans spans) {
+        List<String> terms = proximity.getTerms();
+        Postings[] lists = new Postings[terms.size()];
+        int[] firsts = new int[terms.size()];
+        int[] lasts = new int[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = termLists.get(terms.get(i));
+            int index = lists[i] != null ? lists[i].indexOf(docId) : -1;
+            if (index < 0) {
+                return false;
+            }
+            firsts[i] = lists[i].firstOccurrence[index];
+            lasts[i] = firsts[i] + lists[i].frequencies[index];
+        }
+        return proximity.isOrdered()
+                ? matchPhrase(lists, firsts, lasts, spans)
+                : matchNear(lists[0], firsts[0], lasts[0], lists[1], firsts[1], lasts[1], proximity.getMaxGap(), spans);
+    }
+
+    /**
+     * Find the occurrences of the first word followed by each next word at the next position
+     */
+    private static boolean matchPhrase(Postings[] lists, int[] firsts, int[] lasts, Spans spans) {
+        Postings head = lists[0];
+        boolean matched = false;
+
+        occurrences:
+        for (int k = firsts[0]; k < lasts[0]; k++) {
+            int position = head.positions[k];
+            int end = head.ends[k];
+            for (int i = 1; i < lists.length; i++) {
+                int at = Arrays.binarySearch(lists[i].positions, firsts[i], lasts[i], position + i);
+                if (at < 0) {
+                    continue occurrences;
+                }
+                end = lists[i].ends[at];
+            }
+            if (spans == null) {
+                return true;
+            }
+            spans.add(head.starts[k], end);
+            matched = true;
+        }
+        return matched;
+    }
+
+    /**
+     * Find pairs of occurrences at most maxGap words apart, in either order
+     */
+    private static boolean matchNear(Postings a, int aFirst, int aLast, Postings b, int bFirst, int bLast,
+                                     int maxGap, Spans spans) {
+        int distance = maxGap + 1;
+        boolean matched = false;
+        int from = bFirst;
+        for (int k = aFirst; k < aLast; k++) {
+            int position = a.positions[k];
+            while (from < bLast && b.positions[from] < position - distance) {
+                from++;
+            }
+            for (int j = from; j < bLast && b.positions[j] <= position + distance; j++) {
+                if (b.positions[j] == position) {
+                    continue; // The same word matched by both terms
+                }
+                if (spans == null) {
+                    return true;
+                }
+                spans.add(a.starts[k], a.ends[k]);
+                spans.add(b.starts[j], b.ends[j]);
+                matched = true;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Character ranges collected for one hit, merged into ascending, non-overlapping pairs
+     */
+    private static final class Spans {
+        private long[] packed = new long[8];
+        private int size;
+
+        void add(int start, int end) {
+            if (size == packed.length) {
+                packed = Arrays.copyOf(packed, size * 2);
+            }
+            packed[size++] = ((long) start << 32) | end;
+        }
+
+        int[] toOffsets() {
+            if (size == 0) {
+                return NO_MATCHES;
+            }
+            Arrays.sort(packed, 0, size);
+            int[] offsets = new int[size * 2];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int start = (int) (packed[i] >>> 32);
+                int end = (int) packed[i];
+                if (count > 0 && start <= offsets[count - 1]) {
+                    offsets[count - 1] = Math.max(offsets[count - 1], end);
+                } else {
+                    offsets[count++] = start;
+                    offsets[count++] = end;
+                }
+            }
+            return Arrays.copyOf(offsets, count);
+        }
+    }
+
+    /**
+     * Select and sort the best hits; a bounded heap avoids sorting every match
+     */
+    private static List<Hit> topHits(List<Hit> hits, int limit) {
+        if (hits.size() <= limit) {
+            hits.sort(BY_RANK);
+            return hits;
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, BY_RANK.reversed());
+        for (Hit hit : hits) {
+            best.add(hit);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Hit> top = new ArrayList<>(best);
+        top.sort(BY_RANK);
+        return top;
+    }
+
+    /**
+     * Merge the postings of all terms starting with a prefix
+     * @return the merged postings, or null if no term matches
+     */
+    private Postings expandPrefix(String prefix) {
+        int[] range = prefixRange(prefix);
+        if (range[1] == range[0]) {
+            return null;
+        }
+        if (range[1] - range[0] == 1) {
+            return postings.get(sortedTerms[range[0]]);
+        }
+
+        Postings[] lists = new Postings[range[1] - range[0]];
+        for (int i = range[0]; i < range[1]; i++) {
+            lists[i - range[0]] = postings.get(sortedTerms[i]);
+        }
+        return merge(lists);
+    }
+
+    /**
+     * @return the range [from, to) of the sorted terms that start with a prefix
+     */
+    private int[] prefixRange(String prefix) {
+        int from = Arrays.binarySearch(sortedTerms, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < sortedTerms.length && sortedTerms[to].startsWith(prefix)) {
+            to++;
+        }
+        return new int[]{from, to};
+    }
+
+    /**
+     * Merge the postings of all terms within a few edits of a word, and optionally of
+     * the terms starting with it. A term found both ways is merged once, so its
+     * occurrences are not counted twice.
+     * @return the merged postings, or null if no term matches
+     */
+    private Postings expandFuzzy(String word, boolean includePrefixMatches) {
+        BitSet termIds = new BitSet(sortedTerms.length);
+        for (int termId : getTermGrams().similar(word, EditDistance.allowedEdits(word.length()))) {
+            termIds.set(termId);
+        }
+        if (includePrefixMatches) {
+            int[] range = prefixRange(word);
+            termIds.set(range[0], range[1]);
+        }
+
+        if (termIds.isEmpty()) {
+            return null;
+        }
+        Postings[] lists = new Postings[termIds.cardinality()];
+        int count = 0;
+        for (int termId = termIds.nextSetBit(0); termId >= 0; termId = termIds.nextSetBit(termId + 1)) {
+            lists[count++] = postings.get(sortedTerms[termId]);
+        }
+        return lists.length == 1 ? lists[0] : merge(lists);
+    }
+
+    private NGramIndex getTermGrams() {
+        NGramIndex grams = termGrams;
+        if (grams == null) {
+            synchronized (this) {
+                grams = termGrams;
+                if (grams == null) {
+                    termGrams = grams = new NGramIndex(sortedTerms);
+                }
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Complete the last word a user is typing from the indexed vocabulary
+     * @param prefix Start of a word, folded like the documents before lookup
+     * @return at most limit words, the most frequent first, as they appear in the documents
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String folded = normalizer.normalize(prefix);
+        if (folded.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        CompletionTrie trie = getCompletions();
+        int[] ids = trie.complete(folded, limit);
+        List<String> words = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            String term = trie.term(id);
+            words.add(surfaceForms.getOrDefault(term, term));
+        }
+        return words;
+    }
+
+    /**
+     * Find the k most similar documents of every document by TF-IDF cosine similarity.
+     * Costly, so callers build it once and keep it with the index.
+     */
+    public SimilarDocuments similarDocuments(int k) {
+        int documents = documentLengths.length;
+        int[][] termDocs = new int[sortedTerms.length][];
+        float[][] termWeights = new float[sortedTerms.length][];
+        int[] vectorSizes = new int[documents];
+        float[] squaredNorms = new float[documents];
+
+        for (int term = 0; term < sortedTerms.length; term++) {
+            Postings list = postings.get(sortedTerms[term]);
+            float idf = (float) Math.log((double) documentCount / list.size());
+            // A term in every document says nothing about similarity
+            termDocs[term] = idf > 0 ? list.docIds : new int[0];
+            termWeights[term] = new float[termDocs[term].length];
+            for (int i = 0; i < termDocs[term].length; i++) {
+                float weight = (1 + (float) Math.log(list.frequencies[i])) * idf;
+                termWeights[term][i] = weight;
+                vectorSizes[list.docIds[i]]++;
+                squaredNorms[list.docIds[i]] += weight * weight;
+            }
+        }
+
+        // Scale every vector to unit length, and lay the vectors out by document as well
+        int[][] docTerms = new int[documents][];
+        float[][] docWeights = new float[documents][];
+        for (int doc = 0; doc < documents; doc++) {
+            docTerms[doc] = new int[vectorSizes[doc]];
+            docWeights[doc] = new float[vectorSizes[doc]];
+            vectorSizes[doc] = 0;
+        }
+        for (int term = 0; term < sortedTerms.length; term++) {
+            for (int i = 0; i < termDocs[term].length; i++) {
+                int doc = termDocs[term][i];
+                float weight = termWeights[term][i] / (float) Math.sqrt(squaredNorms[doc]);
+                termWeights[term][i] = weight;
+                docTerms[doc][vectorSizes[doc]] = term;
+                docWeights[doc][vectorSizes[doc]++] = weight;
+            }
+        }
+        return new SimilarDocuments(docTerms, docWeights, termDocs, termWeights, k);
+    }
+
+    private CompletionTrie getCompletions() {
+        CompletionTrie trie = completions;
+        if (trie == null) {
+            synchronized (this) {
+                trie = completions;
+                if (trie == null) {
+                    // Rank by total occurrences across all documents
+                    int[] weights = new int[sortedTerms.length];
+                    for (int i = 0; i < sortedTerms.length; i++) {
+                        int total = 0;
+                        for (int frequency : postings.get(sortedTerms[i]).frequencies) {
+                            total += frequency;
+                        }
+                        weights[i] = total;
+                    }
+                    completions = trie = new CompletionTrie(sortedTerms, weights);
+                }
+            }
+        }
+        return trie;
+    }
+
+    private float idf(Postings list) {
+        int df = list.size();
+        return (float) Math.log(1.0 + (documentCount - df + 0.5) / (df + 0.5));
+    }
+
+    /**
+     * BM25 contribution of one term to one document
+     */
+    private float weight(int docId, int frequency, float idf) {
+        if (idf == 0) {
+            return 0;
+        }
+        float lengthRatio = documentLengths[docId] / averageLength;
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+    }
+
+    /**
+     * Walk the shortest list and probe the others, so the work is bounded by the rarest term
+     */
+    private List<Hit> intersect(Postings[] lists, float[] idf, int count) {
+        int shortest = 0;
+        for (int i = 1; i < count; i++) {
+            if (lists[i].size() < lists[shortest].size()) {
+                shortest = i;
+            }
+        }
+
+        Postings driver = lists[shortest];
+        int[] cursors = new int[count];
+        List<Hit> hits = new ArrayList<>(driver.size());
+
+        candidates:
+        for (int d = 0; d < driver.size(); d++) {
+            int docId = driver.docIds[d];
+            float score = weight(docId, driver.frequencies[d], idf[shortest]);
+
+            for (int i = 0; i < count; i++) {
+                if (i == shortest) {
+                    continue;
+                }
+                Postings other = lists[i];
+                int position = advance(other.docIds, cursors[i], docId);
+                cursors[i] = position;
+                if (position >= other.size()) {
+                    break candidates;
+                }
+                if (other.docIds[position] != docId) {
+                    continue candidates;
+                }
+                score += weight(docId, other.frequencies[position], idf[i]);
+            }
+            hits.add(new Hit(docId, score));
+        }
+        return hits;
+    }
+
+    /**
+     * Find the first index at or after from whose doc id is not below target,
+     * galloping forward and then binary searching the bracketed range
+     */
+    private static int advance(int[] docIds, int from, int target) {
+        int bound = 1;
+        int low = from;
+        while (from + bound < docIds.length && docIds[from + bound] < target) {
+            low = from + bound;
+            bound <<= 1;
+        }
+        int high = Math.min(from + bound, docIds.length - 1);
+
+        if (low >= docIds.length || docIds[high] < target) {
+            return docIds.length;
+        }
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (docIds[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * k-way merge of the sorted postings lists
+     */
+    private List<Hit> union(Postings[] lists, float[] idf, int count) {
+        int[] cursors = new int[count];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += lists[i].size();
+        }
+        List<Hit> hits = new ArrayList<>(total);
+
+        while (true) {
+            int docId = Integer.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                if (cursors[i] < lists[i].size()) {
+                    docId = Math.min(docId, lists[i].docIds[cursors[i]]);
+                }
+            }
+            if (docId == Integer.MAX_VALUE) {
+                return hits;
+            }
+
+            float score = 0;
+            for (int i = 0; i < count; i++) {
+                if (cursors[i] < lists[i].size() && lists[i].docIds[cursors[i]] == docId) {
+                    score += weight(docId, lists[i].frequencies[cursors[i]], idf[i]);
+                    cursors[i]++;
+                }
+            }
+            hits.add(new Hit(docId, score));
+        }
+    }
+
+    /**
+     * Merge postings lists into one, combining the occurrences of shared documents
+     */
+    private static Postings merge(Postings[] lists) {
+        GrowablePostings merged = new GrowablePostings();
+        int[] cursors = new int[lists.length];
+
+        while (true) {
+            int docId = Integer.MAX_VALUE;
+            for (int i = 0; i < lists.length; i++) {
+                if (cursors[i] < lists[i].size()) {
+                    docId = Math.min(docId, lists[i].docIds[cursors[i]]);
+                }
+            }
+            if (docId == Integer.MAX_VALUE) {
+                return merged.freeze();
+            }
+
+            int sources = 0;
+            for (int i = 0; i < lists.length; i++) {
+                if (cursors[i] < lists[i].size() && lists[i].docIds[cursors[i]] == docId) {
+                    merged.addAll(docId, lists[i], cursors[i]);
+                    cursors[i]++;
+                    sources++;
+                }
+            }
+            if (sources > 1) {
+                merged.sortLastDocument();
+            }
+        }
+    }
+
+    /**
+     * Collects documents and freezes them into an index
+     */
+    public static final class Builder {
+        private final Map<String, GrowablePostings> terms = new HashMap<>();
+        // Lowercased original spelling of terms the normalizer changed, e.g. with accents removed
+        private final Map<String, String> surfaceForms = new HashMap<>();
+        private final TextNormalizer normalizer;
+        private int documentCount;
+        private int lastDocId = -1;
+        private int[] documentLengths = new int[16];
+        private long totalLength;
+
+        public Builder() {
+            this(TextNormalizer.DEFAULT);
+        }
+
+        /**
+         * @param normalizer Folds the words of the documents, usually the content language's normalizer
+         */
+        public Builder(TextNormalizer normalizer) {
+            this.normalizer = normalizer;
+        }
+
+        /**
+         * Add a document. Ids are small non-negative numbers, added in ascending order.
+         */
+        public Builder add(int docId, String text) {
+            if (docId <= lastDocId) {
+                throw new IllegalArgumentException("Documents must be added in ascending id order: " + docId);
+            }
+            lastDocId = docId;
+            documentCount++;
+
+            int length = Tokenizer.tokenize(text, normalizer, (term, position, start, end) -> {
+                terms.computeIfAbsent(term, t -> new GrowablePostings()).add(docId, position, start, end);
+                if (!(end - start == term.length() && text.regionMatches(true, start, term, 0, term.length()))) {
+                    surfaceForms.putIfAbsent(term, text.substring(start, end).toLowerCase(Locale.ROOT));
+                }
+            });
+
+            if (docId >= documentLengths.length) {
+                documentLengths = Arrays.copyOf(documentLengths, Math.max(docId + 1, documentLengths.length * 2));
+            }
+            documentLengths[docId] = length;
+            totalLength += length;
+            return this;
+        }
+
+        public InvertedIndex build() {
+            Map<String, Postings> frozen = new HashMap<>(terms.size() * 4 / 3 + 1);
+            terms.forEach((term, list) -> frozen.put(term, list.freeze()));
+            return new InvertedIndex(frozen, null, documentCount, Arrays.copyOf(documentLengths, lastDocId + 1), totalLength,
+                    normalizer, surfaceForms);
+        }
+    }
+
+    private static final class GrowablePostings {
+        int[] docIds = new int[4];
+        int[] frequencies = new int[4];
+        int[] firstOccurrence = new int[4];
+        int size;
+        int[] positions = new int[4];
+        int[] starts = new int[4];
+        int[] ends = new int[4];
+        int occurrenceCount;
+
+        /**
+         * Add one occurrence; occurrences of a document are added in position order
+         */
+        void add(int docId, int position, int start, int end) {
+            if (size == 0 || docIds[size - 1] != docId) {
+                startDocument(docId);
+            }
+            if (occurrenceCount == positions.length) {
+                int capacity = occurrenceCount * 2;
+                positions = Arrays.copyOf(positions, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+            positions[occurrenceCount] = position;
+            starts[occurrenceCount] = start;
+            ends[occurrenceCount] = end;
+            occurrenceCount++;
+            frequencies[size - 1]++;
+        }
+
+        /**
+         * Add the occurrences of the index-th document of another list
+         */
+        void addAll(int docId, Postings list, int index) {
+            int first = list.firstOccurrence[index];
+            for (int k = first; k < first + list.frequencies[index]; k++) {
+                add(docId, list.positions[k], list.starts[k], list.ends[k]);
+            }
+        }
+
+        /**
+         * Restore position order after the last document's occurrences came from several lists
+         */
+        void sortLastDocument() {
+            int from = firstOccurrence[size - 1];
+            for (int i = from + 1; i < occurrenceCount; i++) {
+                int position = positions[i];
+                int start = starts[i];
+                int end = ends[i];
+                int j = i - 1;
+                while (j >= from && positions[j] > position) {
+                    positions[j + 1] = positions[j];
+                    starts[j + 1] = starts[j];
+                    ends[j + 1] = ends[j];
+                    j--;
+                }
+                positions[j + 1] = position;
+                starts[j + 1] = start;
+                ends[j + 1] = end;
+            }
+        }
+
+        private void startDocument(int docId) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+                firstOccurrence = Arrays.copyOf(firstOccurrence, size * 2);
+            }
+            docIds[size] = docId;
+            frequencies[size] = 0;
+            firstOccurrence[size] = occurrenceCount;
+            size++;
+        }
+
+        Postings freeze() {
+            return new Postings(Arrays.copyOf(docIds, size), Arrays.copyOf(frequencies, size),
+                    Arrays.copyOf(firstOccurrence, size), Arrays.copyOf(positions, occurrenceCount),
+                    Arrays.copyOf(starts, occurrenceCount), Arrays.copyOf(ends, occurrenceCount));
+        }
+    }
+}
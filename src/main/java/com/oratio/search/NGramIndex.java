@@ -0,0 +1,193 @@
+package com.oratio.search;
+
+import java.util.*;
+
+/**
+ * Character trigram index over a vocabulary, used to find terms that are close to a
+ * misspelled word.
+ *
+ * Candidates come from the trigram postings only: a term within k edits of a word
+ * shares at least (trigrams of the word - 3k) of its padded trigrams, so terms below
+ * that count, or whose length differs by more than k, are never looked at. The
+ * remaining candidates are verified with {@link EditDistance#bounded}. A word too short
+ * for that count to rule anything out, such as a three-letter word with one typo, which
+ * may share no trigram with its match, is compared with every term of about its length.
+ */
+final class NGramIndex {
+    private static final int N = 3;
+    private static final char PADDING = '\u0000';
+
+    private final String[] terms;
+    private final Map<String, int[]> postings;
+    // Term positions by term length, built on first use
+    private volatile int[][] termsByLength;
+
+    /**
+     * @param terms The vocabulary; the index refers to terms by their position in it
+     */
+    NGramIndex(String[] terms) {
+        this.terms = terms;
+
+        Map<String, int[]> lists = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        for (int termId = 0; termId < terms.length; termId++) {
+            final int id = termId;
+            forEachGram(terms[termId], gram -> {
+                int size = sizes.getOrDefault(gram, 0);
+                int[] list = lists.get(gram);
+                if (size > 0 && list[size - 1] == id) {
+                    return; // Repeated trigram within one term
+                }
+                if (list == null) {
+                    list = new int[4];
+                } else if (size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                }
+                list[size] = id;
+                lists.put(gram, list);
+                sizes.put(gram, size + 1);
+            });
+        }
+
+        postings = new HashMap<>(lists.size() * 4 / 3 + 1);
+        lists.forEach((gram, list) -> postings.put(gram, Arrays.copyOf(list, sizes.get(gram))));
+    }
+
+    /**
+     * Find the terms within maxEdits edits of a word
+     * @return positions of the matching terms in the vocabulary, closest first
+     */
+    int[] similar(String word, int maxEdits) {
+        List<int[]> lists = new ArrayList<>();
+        int[] gramCount = {0};
+        Set<String> seen = new HashSet<>();
+        forEachGram(word, gram -> {
+            if (seen.add(gram)) {
+                gramCount[0]++;
+                int[] list = postings.get(gram);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+        });
+
+        int required = gramCount[0] - N * maxEdits;
+        if (required <= 0) {
+            // Too few trigrams for a shared count to rule out any term
+            return verify(word, termsOfLength(word.length() - maxEdits, word.length() + maxEdits), maxEdits);
+        }
+
+        int total = 0;
+        for (int[] list : lists) {
+            total += list.length;
+        }
+
+        // Count shared trigrams per term by sorting the touched postings
+        int[] touched = new int[total];
+        int offset = 0;
+        for (int[] list : lists) {
+            System.arraycopy(list, 0, touched, offset, list.length);
+            offset += list.length;
+        }
+        Arrays.sort(touched);
+
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        for (int i = 0; i < touched.length; ) {
+            int termId = touched[i];
+            int shared = 0;
+            while (i < touched.length && touched[i] == termId) {
+                shared++;
+                i++;
+            }
+            if (shared < required || Math.abs(terms[termId].length() - word.length()) > maxEdits) {
+                continue;
+            }
+            if (candidateCount == candidates.length) {
+                candidates = Arrays.copyOf(candidates, candidateCount * 2);
+            }
+            candidates[candidateCount++] = termId;
+        }
+        return verify(word, Arrays.copyOf(candidates, candidateCount), maxEdits);
+    }
+
+    /**
+     * Keep the candidates within maxEdits edits of a word
+     * @return their positions in the vocabulary, closest first
+     */
+    private int[] verify(String word, int[] candidates, int maxEdits) {
+        long[] matches = new long[16];
+        int matchCount = 0;
+        for (int termId : candidates) {
+            int distance = EditDistance.bounded(word, terms[termId], maxEdits);
+            if (distance <= maxEdits) {
+                if (matchCount == matches.length) {
+                    matches = Arrays.copyOf(matches, matchCount * 2);
+                }
+                matches[matchCount++] = ((long) distance << 32) | termId;
+            }
+        }
+
+        // Order by distance, then by vocabulary position
+        Arrays.sort(matches, 0, matchCount);
+        int[] result = new int[matchCount];
+        for (int i = 0; i < matchCount; i++) {
+            result[i] = (int) matches[i];
+        }
+        return result;
+    }
+
+    /**
+     * Positions of the terms whose length is between min and max
+     */
+    private int[] termsOfLength(int min, int max) {
+        int[][] byLength = termsByLength;
+        if (byLength == null) {
+            int longest = 0;
+            for (String term : terms) {
+                longest = Math.max(longest, term.length());
+            }
+            int[] counts = new int[longest + 1];
+            for (String term : terms) {
+                counts[term.length()]++;
+            }
+            byLength = new int[longest + 1][];
+            for (int length = 0; length <= longest; length++) {
+                byLength[length] = new int[counts[length]];
+                counts[length] = 0;
+            }
+            for (int termId = 0; termId < terms.length; termId++) {
+                int length = terms[termId].length();
+                byLength[length][counts[length]++] = termId;
+            }
+            termsByLength = byLength;
+        }
+
+        int total = 0;
+        for (int length = Math.max(0, min); length <= max && length < byLength.length; length++) {
+            total += byLength[length].length;
+        }
+        int[] result = new int[total];
+        int offset = 0;
+        for (int length = Math.max(0, min); length <= max && length < byLength.length; length++) {
+            System.arraycopy(byLength[length], 0, result, offset, byLength[length].length);
+            offset += byLength[length].length;
+        }
+        return result;
+    }
+
+    private interface GramConsumer {
+        void accept(String gram);
+    }
+
+    /**
+     * Trigrams of a word padded at both ends, so short words and word boundaries count
+     */
+    private static void forEachGram(String word, GramConsumer consumer) {
+        StringBuilder padded = new StringBuilder(word.length() + 2);
+        padded.append(PADDING).append(word).append(PADDING);
+        for (int i = 0; i + N <= padded.length(); i++) {
+            consumer.accept(padded.substring(i, i + N));
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.oratio.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A regular expression or plain text searched for by scanning documents one by one.
+ *
+ * Matching ignores case. When the pattern is compiled, the pieces of literal text every
+ * match must contain are worked out, e.g. "shep" and "herd" for "shep\w*herd", so a
+ * document whose {@link DocumentFilter} lacks one of them is skipped without being
+ * scanned. A literal between two word boundaries, as in "\blord\b", must also be one of
+ * the document's words. Patterns with alternatives require nothing and scan every
+ * document.
+ *
+ * A user's expression can backtrack for ages on text it nearly matches, as "(a+)+\1$"
+ * does, so scans read the text through a view that gives up once the scanning thread
+ * is interrupted: cancelling the task running a scan stops it with a
+ * {@link CancellationException}.
+ */
+public final class PatternScan {
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS;
+    private static final Pattern COMMENTS_FLAG = Pattern.compile("\\(\\?[a-zA-Z-]*x");
+
+    private final Pattern pattern;
+    private final List<String> requiredText;
+    private final List<String> requiredWords;
+
+    private PatternScan(Pattern pattern) {
+        this.pattern = pattern;
+        this.requiredText = new ArrayList<>();
+        this.requiredWords = new ArrayList<>();
+        new LiteralExtractor(pattern.pattern()).extract();
+    }
+
+    /**
+     * @throws PatternSyntaxException if the expression is not valid
+     */
+    public static PatternScan compile(String regex) {
+        return new PatternScan(Pattern.compile(regex, FLAGS));
+    }
+
+    /**
+     * Search for plain text, ignoring case
+     */
+    public static PatternScan text(String text) {
+        return new PatternScan(Pattern.compile(Pattern.quote(text), FLAGS));
+    }
+
+    /**
+     * Read a pattern typed into a search field as /expression/; the closing slash may be
+     * left out while typing
+     * @return the pattern, or null if the text is not written as one
+     * @throws PatternSyntaxException if the expression is not valid
+     */
+    public static PatternScan parseDelimited(String text) {
+        if (text.length() < 2 || text.charAt(0) != '/') {
+            return null;
+        }
+        int end = text.endsWith("/") ? text.length() - 1 : text.length();
+        return end > 1 ? compile(text.substring(1, end)) : null;
+    }
+
+    /**
+     * Whether a document could match, judging from its filter only
+     */
+    public boolean mightMatch(DocumentFilter filter) {
+        for (String text : requiredText) {
+            if (!filter.mightContainText(text)) {
+                return false;
+            }
+        }
+        for (String word : requiredWords) {
+            if (!filter.mightContainWord(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @throws CancellationException if the thread is interrupted during the scan
+     */
+    public boolean matches(String text) {
+        return pattern.matcher(new InterruptibleText(text)).find();
+    }
+
+    /**
+     * Where the pattern matches a text
+     * @return start and end offset pairs in text order; empty if it does not match
+     * @throws CancellationException if the thread is interrupted during the scan
+     */
+    public int[] find(String text) {
+        int[] offsets = new int[8];
+        int count = 0;
+        Matcher matcher = pattern.matcher(new InterruptibleText(text));
+        while (matcher.find()) {
+            if (matcher.end() == matcher.start()) {
+                continue;
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = matcher.start();
+            offsets[count++] = matcher.end();
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    @Override
+    public String toString() {
+        return pattern.pattern();
+    }
+
+    /**
+     * Text that stops the matcher reading it once the thread is interrupted. The
+     * interrupt is checked every few thousand reads, which costs next to nothing.
+     */
+    private static final class InterruptibleText implements CharSequence {
+        private static final int CHECK_INTERVAL = 4096;
+
+        private final String text;
+        private int reads;
+
+        InterruptibleText(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads == CHECK_INTERVAL) {
+                reads = 0;
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Pattern scan interrupted");
+                }
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * Walks an expression collecting the runs of literal characters outside groups and
+     * character classes. Anything it does not understand ends the current run, so the
+     * runs are always text a match contains.
+     */
+    private final class LiteralExtractor {
+        private final String regex;
+        private final StringBuilder run = new StringBuilder();
+        private int i;
+        private boolean boundaryBefore;
+        private boolean runAfterBoundary;
+
+        LiteralExtractor(String regex) {
+            this.regex = regex;
+        }
+
+        void extract() {
+            // Alternatives require nothing in common, and comments mode changes what is literal
+            if (hasAlternation() || COMMENTS_FLAG.matcher(regex).find()) {
+                return;
+            }
+            while (i < regex.length()) {
+                char c = regex.charAt(i);
+                if (c == '\\' && i + 1 < regex.length()) {
+                    char next = regex.charAt(i + 1);
+                    if (next == 'b' && !regex.startsWith("{", i + 2)) {
+                        endRun(true);
+                        boundaryBefore = true;
+                        i += 2;
+                    } else if (next == 'Q') {
+                        int end = regex.indexOf("\\E", i + 2);
+                        int stop = end >= 0 ? end : regex.length();
+                        int after = end >= 0 ? end + 2 : stop;
+                        int j = i + 2;
+                        i = after;
+                        while (j < stop) {
+                            int codePoint = regex.codePointAt(j);
+                            j += Character.charCount(codePoint);
+                            if (j < stop) {
+                                append(codePoint);
+                            } else {
+                                // A quantifier after the quote applies to its last character
+                                literal(codePoint, after);
+                            }
+                        }
+                    } else if (Character.isLetterOrDigit(next)) {
+                        // Character classes, boundaries, back references and characters
+                        // given by code, none of which is taken as literal text
+                        endRun(false);
+                        i = skipEscape(i);
+                        skipQuantifier();
+                    } else {
+                        literal(regex.codePointAt(i + 1), i + 1 + Character.charCount(regex.codePointAt(i + 1)));
+                    }
+                } else if (c == '[') {
+                    endRun(false);
+                    i = skipClass(i);
+                    skipQuantifier();
+                } else if (c == '(') {
+                    endRun(false);
+                    i = skipGroup(i);
+                    skipQuantifier();
+                } else if (".^$*+?{)]|".indexOf(c) >= 0) {
+                    endRun(false);
+                    i++;
+                    skipQuantifier();
+                } else {
+                    int codePoint = regex.codePointAt(i);
+                    literal(codePoint, i + Character.charCount(codePoint));
+                }
+            }
+            endRun(false);
+        }
+
+        /**
+         * Take a literal character ending just before next, unless a quantifier makes it optional
+         */
+        private void literal(int c, int next) {
+            i = next;
+            if (i < regex.length() && "?*+{".indexOf(regex.charAt(i)) >= 0) {
+                // A repeated character ends the run; one that may be absent is not part of it
+                if (regex.charAt(i) == '+' || (regex.charAt(i) == '{' && !regex.startsWith("{0", i))) {
+                    append(c);
+                }
+                endRun(false);
+                skipQuantifier();
+            } else {
+                append(c);
+            }
+        }
+
+        private void append(int codePoint) {
+            if (run.length() == 0) {
+                runAfterBoundary = boundaryBefore;
+            }
+            boundaryBefore = false;
+            run.appendCodePoint(codePoint);
+        }
+
+        private void endRun(boolean boundaryAfter) {
+            if (run.length() > 0) {
+                String text = run.toString();
+                requiredText.add(text);
+                if (runAfterBoundary && boundaryAfter && isWord(text)) {
+                    requiredWords.add(text);
+                }
+                run.setLength(0);
+            }
+            boundaryBefore = false;
+        }
+
+        private boolean isWord(String text) {
+            for (int j = 0; j < text.length(); j++) {
+                if (!Character.isLetterOrDigit(text.charAt(j))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void skipQuantifier() {
+            if (i >= regex.length()) {
+                return;
+            }
+            char c = regex.charAt(i);
+            if (c == '?' || c == '*' || c == '+') {
+                i++;
+            } else if (c == '{') {
+                int end = regex.indexOf('}', i);
+                i = end >= 0 ? end + 1 : i + 1;
+            } else {
+                return;
+            }
+            // Lazy or possessive
+            if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+                i++;
+            }
+        }
+
+        /**
+         * @return the index after the escape starting at start, with all of its payload,
+         *         such as the digits of "\\x41", the name in "\\k<name>" or the text
+         *         quoted by "\\Q...\\E"; an escape it does not know ends after its letter
+         */
+        private int skipEscape(int start) {
+            int j = start + 1;
+            if (j >= regex.length()) {
+                return j;
+            }
+            char c = regex.charAt(j++);
+            switch (c) {
+                case 'Q': {
+                    int end = regex.indexOf("\\E", j);
+                    return end >= 0 ? end + 2 : regex.length();
+                }
+                case 'x':
+                    return regex.startsWith("{", j) ? after('}', j) : skipDigits(j, 2, 16);
+                case 'u':
+                    return skipDigits(j, 4, 16);
+                case '0':
+                    return skipDigits(j, 3, 8);
+                case 'c':
+                    return Math.min(j + 1, regex.length());
+                case 'k':
+                    return regex.startsWith("<", j) ? after('>', j) : j;
+                case 'p':
+                case 'P':
+                    // \\p{Alpha} or the one-letter \\pL
+                    return regex.startsWith("{", j) ? after('}', j) : Math.min(j + 1, regex.length());
+                case 'N':
+                case 'b':
+                    // \\N{NAME} and the grapheme boundary \\b{g}
+                    return regex.startsWith("{", j) ? after('}', j) : j;
+                default:
+                    // A back reference takes as many digits as it can
+                    return c >= '1' && c <= '9' ? skipDigits(j, Integer.MAX_VALUE, 10) : j;
+            }
+        }
+
+        /**
+         * @return the index after the next close character from start, or the end of the expression
+         */
+        private int after(char close, int start) {
+            int end = regex.indexOf(close, start);
+            return end >= 0 ? end + 1 : regex.length();
+        }
+
+        private int skipDigits(int start, int max, int radix) {
+            int j = start;
+            while (j < regex.length() && j - start < max && Character.digit(regex.charAt(j), radix) >= 0) {
+                j++;
+            }
+            return j;
+        }
+
+        /**
+         * @return the index after the class starting at start
+         */
+        private int skipClass(int start) {
+            int j = start + 1;
+            if (j < regex.length() && regex.charAt(j) == '^') {
+                j++;
+            }
+            if (j < regex.length() && regex.charAt(j) == ']') {
+                j++;
+            }
+            int depth = 1;
+            while (j < regex.length() && depth > 0) {
+                char c = regex.charAt(j);
+                if (c == '\\') {
+                    j = skipEscape(j);
+                    continue;
+                }
+                if (c == '[') {
+                    depth++;
+                } else if (c == ']') {
+                    depth--;
+                }
+                j++;
+            }
+            return j;
+        }
+
+        /**
+         * @return the index after the group starting at start
+         */
+        private int skipGroup(int start) {
+            int j = start + 1;
+            int depth = 1;
+            while (j < regex.length() && depth > 0) {
+                char c = regex.charAt(j);
+                if (c == '\\') {
+                    j = skipEscape(j);
+                    continue;
+                }
+                if (c == '[') {
+                    j = skipClass(j);
+                    continue;
+                }
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+                j++;
+            }
+            return j;
+        }
+
+        /**
+         * Whether the expression has a '|' outside character classes and quoted text
+         */
+        private boolean hasAlternation() {
+            int j = 0;
+            while (j < regex.length()) {
+                char c = regex.charAt(j);
+                if (c == '\\') {
+                    j = skipEscape(j);
+                } else if (c == '[') {
+                    j = skipClass(j);
+                } else if (c == '|') {
+                    return true;
+                } else {
+                    j++;
+                }
+            }
+            return false;
+        }
+    }
+}
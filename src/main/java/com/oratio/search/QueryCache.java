@@ -0,0 +1,135 @@
+package com.oratio.search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of search results with least-recently-used eviction.
+ *
+ * Entries are keyed by language, normalized query, search mode and the content version
+ * the results were computed from, so results of older content are never returned even
+ * before the owner clears the cache on reload. Cached values are shared between callers
+ * and must be immutable. Hits and misses are counted for diagnostics.
+ */
+public final class QueryCache<V> {
+
+    /**
+     * Identifies one query's results
+     */
+    public static final class Key {
+        private final String language;
+        private final String query;
+        private final String mode;
+        private final long version;
+
+        /**
+         * @param query The normalized query, e.g. {@link SearchQuery#toString()}
+         * @param mode What kind of search produced the results, including any limit
+         * @param version Version of the content the results come from
+         */
+        public Key(String language, String query, String mode, long version) {
+            this.language = language;
+            this.query = query;
+            this.mode = mode;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return version == other.version && language.equals(other.language)
+                    && query.equals(other.query) && mode.equals(other.mode);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(language, query, mode, version);
+        }
+
+        @Override
+        public String toString() {
+            return language + "/" + mode + "/" + query + "@" + version;
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, V> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public QueryCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+                return size() > QueryCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Return the cached results of a query, computing and caching them on a miss.
+     * The computation runs outside the cache lock, so a slow query does not block
+     * lookups of other queries.
+     */
+    public V get(Key key, Supplier<V> compute) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value != null) {
+            hits.incrementAndGet();
+            return value;
+        }
+
+        misses.incrementAndGet();
+        value = compute.get();
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Drop every entry, e.g. after the content was reloaded
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Fraction of lookups answered from the cache, between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryCache[size=%d/%d, hits=%d, misses=%d, hit rate=%.1f%%]",
+                size(), capacity, getHitCount(), getMissCount(), getHitRate() * 100);
+    }
+}
@@ -0,0 +1,353 @@
+package com.oratio.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A parsed keyword query.
+ *
+ * Terms are combined with AND by default; an uppercase "OR" between words makes the
+ * whole query match any of its terms, e.g. "shepherd OR refuge".
+ *
+ * Words in double quotes must appear next to each other in that order, e.g.
+ * "\"still waters\"", and "shepherd NEAR/3 waters" requires the two words with at most
+ * three other words between them, in either order (plain "NEAR" allows
+ * {@value #DEFAULT_NEAR_DISTANCE}). Phrases and NEAR groups are always required, so a
+ * query containing one is an AND query.
+ *
+ * Queries parsed with {@link #parseIncremental(String)} treat a trailing, unfinished
+ * word as a prefix, so search-as-you-type already matches "shep" to "shepherd".
+ * A {@link #fuzzy(boolean) fuzzy} query also matches words a few typos away,
+ * so "shepard" finds "shepherd".
+ */
+public final class SearchQuery {
+    public static final int DEFAULT_NEAR_DISTANCE = 5;
+
+    public enum Operator {
+        AND,
+        OR
+    }
+
+    /**
+     * Words that must occur close to each other in a matching document
+     */
+    public static final class Proximity {
+        private final List<String> terms;
+        private final int maxGap;
+        private final boolean ordered;
+
+        private Proximity(List<String> terms, int maxGap, boolean ordered) {
+            this.terms = terms;
+            this.maxGap = maxGap;
+            this.ordered = ordered;
+        }
+
+        /**
+         * Words that must be adjacent and in order
+         */
+        public static Proximity phrase(List<String> terms) {
+            return new Proximity(List.copyOf(terms), 0, true);
+        }
+
+        /**
+         * Two words with at most maxGap other words between them, in either order
+         */
+        public static Proximity near(String first, String second, int maxGap) {
+            return new Proximity(List.of(first, second), maxGap, false);
+        }
+
+        public List<String> getTerms() {
+            return terms;
+        }
+
+        /**
+         * Maximum number of other words allowed between neighbouring terms
+         */
+        public int getMaxGap() {
+            return maxGap;
+        }
+
+        public boolean isOrdered() {
+            return ordered;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Proximity)) return false;
+            Proximity other = (Proximity) o;
+            return maxGap == other.maxGap && ordered == other.ordered && terms.equals(other.terms);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(terms, maxGap, ordered);
+        }
+
+        @Override
+        public String toString() {
+            return ordered ? "\"" + String.join(" ", terms) + "\"" : terms.get(0) + " NEAR/" + maxGap + " " + terms.get(1);
+        }
+    }
+
+    private final List<String> terms;
+    private final String prefix;
+    private final Operator operator;
+    private final boolean fuzzy;
+    private final List<Proximity> proximities;
+
+    private SearchQuery(List<String> terms, String prefix, Operator operator, boolean fuzzy, List<Proximity> proximities) {
+        this.terms = terms;
+        this.prefix = prefix;
+        this.operator = operator;
+        this.fuzzy = fuzzy;
+        this.proximities = proximities;
+    }
+
+    /**
+     * Parse a query whose words all match whole terms
+     */
+    public static SearchQuery parse(String query) {
+        return parse(query, false);
+    }
+
+    /**
+     * Parse a query that is still being typed: unless it ends with a separator,
+     * the last word matches any term starting with it. The unfinished last word of an
+     * unclosed phrase is left out until it is finished.
+     */
+    public static SearchQuery parseIncremental(String query) {
+        return parse(query, true);
+    }
+
+    private static SearchQuery parse(String query, boolean incremental) {
+        Parser parser = new Parser(query, incremental);
+        int from = 0;
+        while (from <= query.length()) {
+            int open = query.indexOf('"', from);
+            if (open < 0) {
+                parser.words(from, query.length());
+                break;
+            }
+            parser.words(from, open);
+
+            int close = query.indexOf('"', open + 1);
+            parser.phrase(open + 1, close < 0 ? query.length() : close, close < 0);
+            from = close < 0 ? query.length() + 1 : close + 1;
+        }
+        return parser.build();
+    }
+
+    /**
+     * Collects terms and proximity groups from the quoted and unquoted parts of a query
+     */
+    private static class Parser {
+        final String query;
+        final boolean incremental;
+        final List<String> terms = new ArrayList<>();
+        final List<Proximity> proximities = new ArrayList<>();
+        Operator operator = Operator.AND;
+        String lastWord;
+        boolean lastWordIsFree;
+
+        Parser(String query, boolean incremental) {
+            this.query = query;
+            this.incremental = incremental;
+        }
+
+        /**
+         * Unquoted words, with OR and NEAR/n operators
+         */
+        void words(int from, int to) {
+            String text = query.substring(from, to);
+            String[] previous = {null};
+            int[] nearGap = {-1};
+            int[] skipNumberAt = {-1};
+
+            Tokenizer.tokenize(text, (term, position, start, end) -> {
+                if (start == skipNumberAt[0]) {
+                    return; // The n of NEAR/n
+                }
+                if (text.startsWith("OR", start) && end - start == 2) {
+                    operator = Operator.OR;
+                } else if (text.startsWith("NEAR", start) && end - start == 4 && previous[0] != null) {
+                    nearGap[0] = DEFAULT_NEAR_DISTANCE;
+                    int digits = end + 1;
+                    while (digits < text.length() && Character.isDigit(text.charAt(digits))) {
+                        digits++;
+                    }
+                    if (end < text.length() && text.charAt(end) == '/' && digits > end + 1) {
+                        nearGap[0] = Integer.parseInt(text.substring(end + 1, Math.min(digits, end + 4)));
+                        skipNumberAt[0] = end + 1;
+                    }
+                } else {
+                    // A word typed in full earlier stays a whole word when repeated at the end
+                    boolean repeated = terms.contains(term);
+                    addTerm(term);
+                    if (nearGap[0] >= 0) {
+                        addProximity(Proximity.near(previous[0], term, nearGap[0]));
+                        nearGap[0] = -1;
+                        lastWordIsFree = false;
+                    } else {
+                        lastWordIsFree = !repeated && from + end == query.length();
+                    }
+                    previous[0] = term;
+                    lastWord = term;
+                }
+            });
+        }
+
+        /**
+         * Quoted words
+         */
+        void phrase(int from, int to, boolean unclosed) {
+            List<String> words = new ArrayList<>();
+            int[] lastEnd = {-1};
+            Tokenizer.tokenize(query.substring(from, to), (term, position, start, end) -> {
+                words.add(term);
+                lastEnd[0] = from + end;
+            });
+            if (incremental && unclosed && lastEnd[0] == query.length() && !words.isEmpty()) {
+                words.remove(words.size() - 1);
+            }
+
+            for (String word : words) {
+                addTerm(word);
+            }
+            if (words.size() > 1) {
+                addProximity(Proximity.phrase(words));
+            }
+            lastWordIsFree = false;
+        }
+
+        void addTerm(String term) {
+            terms.remove(term);
+            terms.add(term);
+        }
+
+        void addProximity(Proximity proximity) {
+            if (!proximities.contains(proximity)) {
+                proximities.add(proximity);
+            }
+        }
+
+        SearchQuery build() {
+            String prefix = null;
+            if (incremental && lastWordIsFree && lastWord != null && lastWord.equals(terms.get(terms.size() - 1))) {
+                prefix = lastWord;
+                for (Proximity proximity : proximities) {
+                    if (proximity.terms.contains(prefix)) {
+                        prefix = null;
+                        break;
+                    }
+                }
+                if (prefix != null) {
+                    terms.remove(terms.size() - 1);
+                }
+            }
+            Operator effective = proximities.isEmpty() ? operator : Operator.AND;
+            return new SearchQuery(List.copyOf(terms), prefix, effective, false, List.copyOf(proximities));
+        }
+    }
+
+    /**
+     * The same query with typo-tolerant matching switched on or off
+     */
+    public SearchQuery fuzzy(boolean fuzzy) {
+        return fuzzy == this.fuzzy ? this : new SearchQuery(terms, prefix, operator, fuzzy, proximities);
+    }
+
+    /**
+     * Terms that must match exactly, including the words of phrases and NEAR groups
+     */
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    /**
+     * The unfinished last word of an incremental query, or null
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public boolean isFuzzy() {
+        return fuzzy;
+    }
+
+    /**
+     * Phrases and NEAR groups whose words must occur close together
+     */
+    public List<Proximity> getProximities() {
+        return proximities;
+    }
+
+    public boolean isEmpty() {
+        return terms.isEmpty() && prefix == null;
+    }
+
+    /**
+     * Whether every document matching this query also matches the previous one,
+     * so this query can be evaluated within the previous results only.
+     * Holds when both are AND queries and this query only adds or extends words,
+     * phrases or NEAR groups.
+     * A fuzzy word can match terms that a shorter prefix of it does not, so in fuzzy
+     * mode an unfinished word only narrows once it is finished unchanged.
+     */
+    public boolean narrows(SearchQuery previous) {
+        if (previous == null || previous.isEmpty() || fuzzy != previous.fuzzy
+                || operator != Operator.AND || previous.operator != Operator.AND) {
+            return false;
+        }
+
+        for (String term : previous.terms) {
+            if (!terms.contains(term)) {
+                return false;
+            }
+        }
+        if (!proximities.containsAll(previous.proximities)) {
+            return false;
+        }
+        if (previous.prefix == null) {
+            return true;
+        }
+        if (fuzzy) {
+            return previous.prefix.equals(prefix) || terms.contains(previous.prefix);
+        }
+        if (prefix != null && prefix.startsWith(previous.prefix)) {
+            return true;
+        }
+        for (String term : terms) {
+            if (term.startsWith(previous.prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        List<String> words = new ArrayList<>();
+        for (Proximity proximity : proximities) {
+            words.add(fuzzy ? proximity + "~" : proximity.toString());
+        }
+        for (String term : terms) {
+            boolean grouped = false;
+            for (Proximity proximity : proximities) {
+                grouped |= proximity.terms.contains(term);
+            }
+            if (!grouped) {
+                words.add(fuzzy ? term + "~" : term);
+            }
+        }
+        if (prefix != null) {
+            words.add(fuzzy ? prefix + "*~" : prefix + "*");
+        }
+        return String.join(" " + operator + " ", words);
+    }
+}
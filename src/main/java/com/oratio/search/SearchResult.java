@@ -0,0 +1,101 @@
+package com.oratio.search;
+
+/**
+ * One hit of a global search: what was found, where, and a snippet of the matching text
+ */
+public class SearchResult {
+
+    /**
+     * The kinds of content that can be searched
+     */
+    public enum Type {
+        PRAYER("Prayer"),
+        ROSARY("Rosary"),
+        PSALM("Psalm"),
+        NOVENA("Novena"),
+        NOTE("Note");
+
+        private final String displayName;
+
+        Type(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final Type type;
+    private final String id;
+    private final String title;
+    private final String snippet;
+    private final float score;
+    private final int[] matchOffsets;
+    private final String language;
+
+    public SearchResult(Type type, String id, String title, String snippet, float score, int[] matchOffsets) {
+        this(type, id, title, snippet, score, matchOffsets, null);
+    }
+
+    private SearchResult(Type type, String id, String title, String snippet, float score, int[] matchOffsets,
+                         String language) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.snippet = snippet;
+        this.score = score;
+        this.matchOffsets = matchOffsets;
+        this.language = language;
+    }
+
+    /**
+     * The same result, tagged with the language its text was found in
+     */
+    public SearchResult withLanguage(String language) {
+        return new SearchResult(type, id, title, snippet, score, matchOffsets, language);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Id of the item within its type: prayer or novena id, rosary key, psalm number or note id
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    /**
+     * Where the query matched in the item's text, as start and end pairs
+     */
+    public int[] getMatchOffsets() {
+        return matchOffsets;
+    }
+
+    /**
+     * Language the result was found in, for results of a multi-language search; otherwise null
+     */
+    public String getLanguage() {
+        return language;
+    }
+
+    @Override
+    public String toString() {
+        String label = type.getDisplayName() + ": " + title;
+        return language != null ? label + " (" + language + ")" : label;
+    }
+}
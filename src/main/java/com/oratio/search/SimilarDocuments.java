@@ -0,0 +1,128 @@
+package com.oratio.search;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The most similar other documents of every document in an index, computed once.
+ *
+ * Documents are compared as TF-IDF vectors, each term weighted by (1 + log tf) times
+ * log(N / df) and the vectors scaled to unit length, so the similarity of two documents
+ * is the cosine of their vectors. Each document's dot products are accumulated through
+ * the postings of its own terms, so only documents sharing a term are ever touched,
+ * and documents are processed in parallel. The best neighbours of all documents are
+ * kept in flat arrays, so looking them up costs O(k).
+ *
+ * Immutable and safe to share between threads.
+ */
+public final class SimilarDocuments {
+    /**
+     * Neighbours scoring below this share little more than common words
+     */
+    static final float MIN_SIMILARITY = 0.05f;
+
+    // The neighbours of document d are neighbourIds[starts[d] .. starts[d + 1] - 1], best first
+    private final int[] starts;
+    private final int[] neighbourIds;
+    private final float[] similarities;
+
+    /**
+     * @param docTerms Term ids of each document's vector, by document id
+     * @param docWeights Unit-length weights matching docTerms
+     * @param termDocs Documents of each term, by term id
+     * @param termWeights Weights matching termDocs
+     * @param k Neighbours to keep per document
+     */
+    SimilarDocuments(int[][] docTerms, float[][] docWeights, int[][] termDocs, float[][] termWeights, int k) {
+        int documents = docTerms.length;
+        int[][] ids = new int[documents][];
+        float[][] scores = new float[documents][];
+        ThreadLocal<float[]> accumulators = ThreadLocal.withInitial(() -> new float[documents]);
+
+        IntStream.range(0, documents).parallel().forEach(doc -> {
+            float[] dots = accumulators.get();
+            int[] touched = new int[16];
+            int touchedCount = 0;
+            for (int i = 0; i < docTerms[doc].length; i++) {
+                int term = docTerms[doc][i];
+                float weight = docWeights[doc][i];
+                int[] others = termDocs[term];
+                float[] otherWeights = termWeights[term];
+                for (int j = 0; j < others.length; j++) {
+                    int other = others[j];
+                    if (other == doc) {
+                        continue;
+                    }
+                    if (dots[other] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = other;
+                    }
+                    dots[other] += weight * otherWeights[j];
+                }
+            }
+
+            int[] bestIds = new int[k];
+            float[] bestScores = new float[k];
+            int found = 0;
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                float score = dots[other];
+                dots[other] = 0;
+                if (score < MIN_SIMILARITY || (found == k && !ranksBefore(score, other, bestScores[k - 1], bestIds[k - 1]))) {
+                    continue;
+                }
+                // Insert into the best list, dropping the last entry when it is full
+                int slot = found < k ? found++ : k - 1;
+                while (slot > 0 && ranksBefore(score, other, bestScores[slot - 1], bestIds[slot - 1])) {
+                    bestIds[slot] = bestIds[slot - 1];
+                    bestScores[slot] = bestScores[slot - 1];
+                    slot--;
+                }
+                bestIds[slot] = other;
+                bestScores[slot] = score;
+            }
+            ids[doc] = Arrays.copyOf(bestIds, found);
+            scores[doc] = Arrays.copyOf(bestScores, found);
+        });
+
+        starts = new int[documents + 1];
+        for (int doc = 0; doc < documents; doc++) {
+            starts[doc + 1] = starts[doc] + ids[doc].length;
+        }
+        neighbourIds = new int[starts[documents]];
+        similarities = new float[starts[documents]];
+        for (int doc = 0; doc < documents; doc++) {
+            System.arraycopy(ids[doc], 0, neighbourIds, starts[doc], ids[doc].length);
+            System.arraycopy(scores[doc], 0, similarities, starts[doc], scores[doc].length);
+        }
+    }
+
+    private static boolean ranksBefore(float score, int id, float otherScore, int otherId) {
+        return score != otherScore ? score > otherScore : id < otherId;
+    }
+
+    /**
+     * The documents most similar to a document
+     * @return ids of at most limit documents, most similar first; empty for an unknown document
+     */
+    public int[] similarTo(int docId, int limit) {
+        if (docId < 0 || docId + 1 >= starts.length) {
+            return new int[0];
+        }
+        int from = starts[docId];
+        return Arrays.copyOfRange(neighbourIds, from, from + Math.min(limit, starts[docId + 1] - from));
+    }
+
+    /**
+     * Cosine similarities matching {@link #similarTo}
+     */
+    public float[] similarities(int docId, int limit) {
+        if (docId < 0 || docId + 1 >= starts.length) {
+            return new float[0];
+        }
+        int from = starts[docId];
+        return Arrays.copyOfRange(similarities, from, from + Math.min(limit, starts[docId + 1] - from));
+    }
+}
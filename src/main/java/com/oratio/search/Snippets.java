@@ -0,0 +1,63 @@
+package com.oratio.search;
+
+/**
+ * Builds short excerpts of a document around its first match
+ */
+public final class Snippets {
+    private static final String ELLIPSIS = "...";
+
+    private Snippets() {
+    }
+
+    /**
+     * Cut a single-line excerpt of at most about maxLength characters around a known
+     * match, e.g. from the offsets of a search hit
+     * @param matchStart Start of the match in the text, or -1 to cut from the start
+     */
+    public static String snippet(String text, int matchStart, int matchEnd, int maxLength) {
+        int from = 0;
+        if (matchStart >= 0) {
+            // Keep about a third of the excerpt before the match
+            from = Math.max(0, matchStart - (maxLength - (matchEnd - matchStart)) / 3);
+            while (from > 0 && from < matchStart && !Character.isWhitespace(text.charAt(from - 1))) {
+                from++;
+            }
+        }
+        int to = Math.min(text.length(), from + maxLength);
+        while (to < text.length() && to > from && !Character.isWhitespace(text.charAt(to))) {
+            to--;
+        }
+        if (to <= from) {
+            to = Math.min(text.length(), from + maxLength);
+        }
+
+        StringBuilder excerpt = new StringBuilder(to - from + 2 * ELLIPSIS.length());
+        if (from > 0) {
+            excerpt.append(ELLIPSIS);
+        }
+        appendCollapsingWhitespace(excerpt, text, from, to);
+        if (to < text.length()) {
+            excerpt.append(ELLIPSIS);
+        }
+        return excerpt.toString();
+    }
+
+    /**
+     * Append a range of text on a single line, with runs of whitespace collapsed to one space
+     */
+    private static void appendCollapsingWhitespace(StringBuilder out, String text, int from, int to) {
+        boolean pendingSpace = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    out.append(' ');
+                    pendingSpace = false;
+                }
+                out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.oratio.search;
+
+import java.util.Arrays;
+
+/**
+ * Substring index over a set of documents.
+ *
+ * The documents are lowercased one character at a time, so offsets in the index are
+ * offsets in the original text, and concatenated with a separator that never occurs
+ * in text, so no match crosses from one document into the next. The sorted suffixes
+ * of that text are built by prefix doubling in O(n log n); every suffix starting with a
+ * pattern then lies in one contiguous range of the array, found with two binary
+ * searches in O(m log n) for a pattern of length m. A match anywhere inside a word
+ * counts, as with {@link String#contains}, and each occurrence is mapped back to its
+ * document with a binary search over the document start offsets.
+ *
+ * A document may be added as several fragments, e.g. a title and a body, which are
+ * searched separately but report the same document id.
+ *
+ * Build with {@link Builder}; once built the index is read-only and safe to share
+ * between threads.
+ */
+public final class SuffixArray {
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * Receives each occurrence of a pattern
+     */
+    @FunctionalInterface
+    public interface OccurrenceConsumer {
+        /**
+         * @param docId Document the occurrence is in
+         * @param fragment Index of the fragment among all fragments added, in order
+         * @param offset Start of the occurrence within the fragment
+         */
+        void accept(int docId, int fragment, int offset);
+    }
+
+    private final char[] text;
+    private final int[] suffixes;
+    private final int[] fragmentStarts;
+    private final int[] fragmentDocIds;
+
+    private SuffixArray(char[] text, int[] fragmentStarts, int[] fragmentDocIds) {
+        this.text = text;
+        this.fragmentStarts = fragmentStarts;
+        this.fragmentDocIds = fragmentDocIds;
+        this.suffixes = sortSuffixes(text);
+    }
+
+    /**
+     * Lowercase one character at a time, keeping offsets unchanged
+     */
+    static char fold(char c) {
+        return c == SEPARATOR ? ' ' : Character.toLowerCase(c);
+    }
+
+    public int getLength() {
+        return text.length;
+    }
+
+    /**
+     * Number of occurrences of a pattern, ignoring case
+     */
+    public int count(String pattern) {
+        int[] range = range(pattern);
+        return range[1] - range[0];
+    }
+
+    /**
+     * Ids of the documents containing a pattern, ignoring case
+     * @return ascending, distinct document ids; every document for an empty pattern
+     */
+    public int[] documents(String pattern) {
+        if (pattern.isEmpty()) {
+            return Arrays.stream(fragmentDocIds).distinct().sorted().toArray();
+        }
+
+        int[] range = range(pattern);
+        int[] docIds = new int[range[1] - range[0]];
+        for (int i = range[0]; i < range[1]; i++) {
+            docIds[i - range[0]] = fragmentDocIds[fragmentOf(suffixes[i])];
+        }
+        Arrays.sort(docIds);
+
+        int count = 0;
+        for (int i = 0; i < docIds.length; i++) {
+            if (count == 0 || docIds[count - 1] != docIds[i]) {
+                docIds[count++] = docIds[i];
+            }
+        }
+        return Arrays.copyOf(docIds, count);
+    }
+
+    /**
+     * Report every occurrence of a non-empty pattern, ignoring case, in text order
+     */
+    public void forEachOccurrence(String pattern, OccurrenceConsumer consumer) {
+        if (pattern.isEmpty()) {
+            return;
+        }
+        int[] range = range(pattern);
+        int[] starts = Arrays.copyOfRange(suffixes, range[0], range[1]);
+        Arrays.sort(starts);
+        for (int start : starts) {
+            int fragment = fragmentOf(start);
+            consumer.accept(fragmentDocIds[fragment], fragment, start - fragmentStarts[fragment]);
+        }
+    }
+
+    /**
+     * The range of the suffix array whose suffixes start with a pattern
+     */
+    private int[] range(String pattern) {
+        char[] folded = new char[pattern.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(pattern.charAt(i));
+        }
+
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(suffixes[mid], folded) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int from = low;
+
+        high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(suffixes[mid], folded) == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return new int[]{from, low};
+    }
+
+    /**
+     * Compare the suffix at start with a pattern, looking at no more than the pattern's length
+     * @return negative, zero if the suffix starts with the pattern, or positive
+     */
+    private int compare(int start, char[] pattern) {
+        int length = Math.min(pattern.length, text.length - start);
+        for (int i = 0; i < length; i++) {
+            int difference = text[start + i] - pattern[i];
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length == pattern.length ? 0 : -1;
+    }
+
+    private int fragmentOf(int offset) {
+        int index = Arrays.binarySearch(fragmentStarts, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Sort the suffixes by prefix doubling: rank by the first character, then repeatedly
+     * by pairs of ranks covering twice the length, with two counting sort passes per round
+     */
+    private static int[] sortSuffixes(char[] text) {
+        int n = text.length;
+        int[] order = new int[n];
+        if (n == 0) {
+            return order;
+        }
+
+        int[] rank = new int[n];
+        int[] next = new int[n];
+        int[] buffer = new int[n];
+        int[] counts = new int[Math.max(n, Character.MAX_VALUE + 1) + 1];
+
+        // Round 0: counting sort by character
+        for (char c : text) {
+            counts[c]++;
+        }
+        for (int c = 1; c <= Character.MAX_VALUE; c++) {
+            counts[c] += counts[c - 1];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            order[--counts[text[i]]] = i;
+        }
+        int classes = 1;
+        rank[order[0]] = 0;
+        for (int i = 1; i < n; i++) {
+            if (text[order[i]] != text[order[i - 1]]) {
+                classes++;
+            }
+            rank[order[i]] = classes - 1;
+        }
+
+        // A suffix shorter than the step ranks below every longer one with the same start
+        for (int step = 1; step < n && classes < n; step <<= 1) {
+            // Second key: rank of the suffix at i + step, or -1 past the end
+            int placed = 0;
+            for (int i = n - step; i < n; i++) {
+                buffer[placed++] = i;
+            }
+            for (int i = 0; i < n; i++) {
+                if (order[i] >= step) {
+                    buffer[placed++] = order[i] - step;
+                }
+            }
+
+            // First key: stable counting sort by rank
+            Arrays.fill(counts, 0, classes + 1, 0);
+            for (int i = 0; i < n; i++) {
+                counts[rank[i]]++;
+            }
+            for (int c = 1; c < classes; c++) {
+                counts[c] += counts[c - 1];
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                order[--counts[rank[buffer[i]]]] = buffer[i];
+            }
+
+            next[order[0]] = 0;
+            classes = 1;
+            for (int i = 1; i < n; i++) {
+                int current = order[i];
+                int previous = order[i - 1];
+                int currentSecond = current + step < n ? rank[current + step] : -1;
+                int previousSecond = previous + step < n ? rank[previous + step] : -1;
+                if (rank[current] != rank[previous] || currentSecond != previousSecond) {
+                    classes++;
+                }
+                next[current] = classes - 1;
+            }
+            int[] swap = rank;
+            rank = next;
+            next = swap;
+        }
+        return order;
+    }
+
+    /**
+     * Collects documents and sorts their suffixes into an index
+     */
+    public static final class Builder {
+        private final StringBuilder text = new StringBuilder();
+        private int[] fragmentStarts = new int[16];
+        private int[] fragmentDocIds = new int[16];
+        private int fragmentCount;
+
+        /**
+         * Add a document, or another fragment of one
+         */
+        public Builder add(int docId, String fragment) {
+            if (fragmentCount == fragmentStarts.length) {
+                fragmentStarts = Arrays.copyOf(fragmentStarts, fragmentCount * 2);
+                fragmentDocIds = Arrays.copyOf(fragmentDocIds, fragmentCount * 2);
+            }
+            fragmentStarts[fragmentCount] = text.length();
+            fragmentDocIds[fragmentCount] = docId;
+            fragmentCount++;
+
+            for (int i = 0; i < fragment.length(); i++) {
+                text.append(fold(fragment.charAt(i)));
+            }
+            text.append(SEPARATOR);
+            return this;
+        }
+
+        public SuffixArray build() {
+            char[] chars = new char[text.length()];
+            text.getChars(0, chars.length, chars, 0);
+            return new SuffixArray(chars, Arrays.copyOf(fragmentStarts, fragmentCount),
+                    Arrays.copyOf(fragmentDocIds, fragmentCount));
+        }
+    }
+}
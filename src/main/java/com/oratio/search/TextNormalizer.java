@@ -0,0 +1,145 @@
+package com.oratio.search;
+
+import com.oratio.utils.Constants;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Folds words to the form they are indexed and searched under.
+ *
+ * The base folding applies to every language: curly apostrophes become straight ones,
+ * ligatures are expanded ("æ" to "ae", "œ" to "oe"), case is folded and diacritics are
+ * stripped, so "Señor", "senor" and "SEÑOR" all match. Languages can add their own rules
+ * by overriding {@link #foldLanguage(String)} and registering with {@link #register}.
+ *
+ * Plain ASCII words take a fast path; other words are folded once and cached, so
+ * indexing repeated words costs a map lookup.
+ */
+public class TextNormalizer {
+    private static final int MAX_CACHED_WORDS = 50_000;
+
+    /**
+     * Base folding only, used for English, notes and as a fallback
+     */
+    public static final TextNormalizer DEFAULT = new TextNormalizer();
+
+    private static final Map<String, TextNormalizer> BY_LANGUAGE = new ConcurrentHashMap<>();
+
+    static {
+        register(Constants.ENGLISH, DEFAULT);
+        register(Constants.TAGALOG, DEFAULT);
+        register(Constants.LATIN, new LatinNormalizer());
+    }
+
+    private final Map<String, String> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Use a normalizer for a language's content and queries
+     */
+    public static void register(String language, TextNormalizer normalizer) {
+        BY_LANGUAGE.put(language, normalizer);
+    }
+
+    public static TextNormalizer forLanguage(String language) {
+        return BY_LANGUAGE.getOrDefault(language, DEFAULT);
+    }
+
+    /**
+     * Fold one word
+     */
+    public final String normalize(String word) {
+        return foldLanguage(foldBase(word));
+    }
+
+    /**
+     * Language specific folding, applied after the base folding
+     */
+    protected String foldLanguage(String word) {
+        return word;
+    }
+
+    private String foldBase(String word) {
+        boolean ascii = true;
+        boolean lowerCase = true;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 0x80) {
+                ascii = false;
+                break;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                lowerCase = false;
+            }
+        }
+        if (ascii) {
+            return lowerCase ? word : word.toLowerCase(Locale.ROOT);
+        }
+
+        String folded = cache.get(word);
+        if (folded == null) {
+            folded = foldUnicode(word);
+            if (cache.size() >= MAX_CACHED_WORDS) {
+                cache.clear();
+            }
+            cache.put(word, folded);
+        }
+        return folded;
+    }
+
+    private static String foldUnicode(String word) {
+        StringBuilder expanded = new StringBuilder(word.length() + 4);
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            switch (c) {
+                case '\u2019': // Right single quotation mark
+                case '\u2018': // Left single quotation mark
+                case '\u02bc': // Modifier letter apostrophe
+                    expanded.append('\'');
+                    break;
+                case '\u00e6': // ae ligature
+                case '\u00c6':
+                    expanded.append("ae");
+                    break;
+                case '\u0153': // oe ligature
+                case '\u0152':
+                    expanded.append("oe");
+                    break;
+                case '\u00df': // Sharp s
+                    expanded.append("ss");
+                    break;
+                case '\ufb01': // fi ligature
+                    expanded.append("fi");
+                    break;
+                case '\ufb02': // fl ligature
+                    expanded.append("fl");
+                    break;
+                default:
+                    expanded.append(c);
+            }
+        }
+
+        String decomposed = Normalizer.normalize(expanded.toString().toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Ecclesiastical Latin is written both with and without j and v,
+     * e.g. "Iesu"/"Jesu" and "uos"/"vos"; fold them to i and u
+     */
+    private static class LatinNormalizer extends TextNormalizer {
+        @Override
+        protected String foldLanguage(String word) {
+            return word.replace('j', 'i').replace('v', 'u');
+        }
+    }
+}
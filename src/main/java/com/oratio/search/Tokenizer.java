@@ -0,0 +1,66 @@
+package com.oratio.search;
+
+/**
+ * Splits text into word tokens for indexing and querying.
+ *
+ * A token is a run of letters, digits or combining marks; apostrophes inside a word
+ * ("Lord's", "Lord’s") are kept. Each token is folded by a {@link TextNormalizer} and
+ * reported with its position (token ordinal) and character offsets in the original
+ * text, so hits can be mapped back without rescanning.
+ */
+public final class Tokenizer {
+
+    /**
+     * Receives each token of a text
+     */
+    @FunctionalInterface
+    public interface TokenConsumer {
+        void accept(String term, int position, int start, int end);
+    }
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Tokenize text with the base folding of {@link TextNormalizer#DEFAULT}
+     * @return the number of tokens
+     */
+    public static int tokenize(String text, TokenConsumer consumer) {
+        return tokenize(text, TextNormalizer.DEFAULT, consumer);
+    }
+
+    /**
+     * Tokenize text, folding each term with a normalizer
+     * @return the number of tokens
+     */
+    public static int tokenize(String text, TextNormalizer normalizer, TokenConsumer consumer) {
+        int position = 0;
+        int length = text.length();
+        int i = 0;
+
+        while (i < length) {
+            while (i < length && !isWordChar(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && (isWordChar(text.charAt(i)) || isInnerApostrophe(text, i))) {
+                i++;
+            }
+            if (i > start) {
+                consumer.accept(normalizer.normalize(text.substring(start, i)), position++, start, i);
+            }
+        }
+        return position;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK;
+    }
+
+    private static boolean isInnerApostrophe(String text, int i) {
+        char c = text.charAt(i);
+        return (c == '\'' || c == '\u2019' || c == '\u2018' || c == '\u02bc')
+                && i > 0 && i + 1 < text.length()
+                && isWordChar(text.charAt(i - 1)) && isWordChar(text.charAt(i + 1));
+    }
+}
@@ -0,0 +1,293 @@
+package com.oratio.services;
+
+import com.oratio.utils.Constants;
+import com.oratio.utils.ContentPack;
+import com.oratio.utils.ContentPackCompiler;
+import com.oratio.utils.ContentParser;
+import com.oratio.utils.FileUtils;
+import com.oratio.utils.VerseMarkers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Single owner of all text content (prayers, rosary, psalms and novenas).
+ *
+ * Loads and parses each language once, on first use, and caches it. English is the
+ * fallback language and stays pinned; other languages are softly held and reloaded
+ * on demand. When the precompiled {@link ContentPack} is on the classpath nothing is
+ * parsed at all. LanguageService, PrayerService, PsalmService, RosaryService and
+ * NovenaService are views over this repository.
+ *
+ * Thread-safe: loaded content is published as immutable maps, so lookups take no locks;
+ * only loading a missing language is serialized.
+ */
+public class ContentRepository {
+    private static volatile ContentRepository instance;
+
+    /**
+     * The "===" separated source files, in the order their keys override each other
+     */
+    public enum ContentKind {
+        PRAYERS("prayers"),
+        ROSARY("rosary"),
+        PSALMS("psalms");
+
+        private final String filePrefix;
+
+        ContentKind(String filePrefix) {
+            this.filePrefix = filePrefix;
+        }
+
+        public String getFileName(String language) {
+            return ContentPackCompiler.tableName(filePrefix, language);
+        }
+    }
+
+    private final ContentPack contentPack;
+
+    private volatile Map<ContentKind, Map<String, String>> englishContent;
+    private final Map<String, SoftReference<Map<ContentKind, Map<String, String>>>> languageContent = new ConcurrentHashMap<>();
+    private final Map<String, SoftReference<String>> novenaTexts = new ConcurrentHashMap<>();
+
+    private final List<Runnable> invalidationListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+
+    // Metrics
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    private ContentRepository() {
+        contentPack = ContentPack.loadDefault();
+        System.out.println(contentPack != null
+                ? "Content served from precompiled " + ContentPack.RESOURCE_NAME
+                : "No content pack found, parsing text files on demand");
+    }
+
+    public static ContentRepository getInstance() {
+        ContentRepository result = instance;
+        if (result == null) {
+            synchronized (ContentRepository.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new ContentRepository();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get a value from one content file of a language, without fallback
+     * @return the value, or null if absent
+     */
+    public String get(String language, ContentKind kind, String key) {
+        lookups.incrementAndGet();
+        String value = find(language, kind, key);
+        if (value == null) {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Look a key up across all content files of a language, without fallback.
+     * Psalms override rosary texts, which override prayers.
+     * @return the value, or null if absent
+     */
+    public String lookup(String language, String key) {
+        // One lookup, and at most one miss, however many files are tried
+        lookups.incrementAndGet();
+        ContentKind[] kinds = ContentKind.values();
+        for (int i = kinds.length - 1; i >= 0; i--) {
+            String value = find(language, kinds[i], key);
+            if (value != null) {
+                return value;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private String find(String language, ContentKind kind, String key) {
+        if (contentPack != null && contentPack.hasTable(kind.getFileName(language))) {
+            return contentPack.get(kind.getFileName(language), key);
+        }
+        Map<ContentKind, Map<String, String>> content = getLanguageContent(language);
+        return content != null ? content.get(kind).get(key) : null;
+    }
+
+    /**
+     * Get all keys of one content file of a language
+     */
+    public Set<String> keys(String language, ContentKind kind) {
+        if (contentPack != null && contentPack.hasTable(kind.getFileName(language))) {
+            return new LinkedHashSet<>(contentPack.keys(kind.getFileName(language)));
+        }
+
+        Map<ContentKind, Map<String, String>> content = getLanguageContent(language);
+        return content != null ? Collections.unmodifiableSet(content.get(kind).keySet()) : Collections.emptySet();
+    }
+
+    /**
+     * Get the text of a novena, e.g. "novenas/sacred_heart_english.txt"
+     */
+    public String getNovenaText(String novenaId, String language) {
+        String path = novenaPath(novenaId, language);
+        lookups.incrementAndGet();
+
+        SoftReference<String> ref = novenaTexts.get(path);
+        String text = ref != null ? ref.get() : null;
+        if (text == null) {
+            misses.incrementAndGet();
+            text = loadNovenaFile(path);
+            novenaTexts.put(path, new SoftReference<>(text));
+        }
+        return text;
+    }
+
+    /**
+     * Whether a novena has a text file for a language
+     */
+    public boolean hasNovenaText(String novenaId, String language) {
+        return getClass().getClassLoader().getResource(novenaPath(novenaId, language)) != null;
+    }
+
+    private static String novenaPath(String novenaId, String language) {
+        return String.format("novenas/%s_%s.txt", novenaId.toLowerCase(), language.toLowerCase());
+    }
+
+    /**
+     * Drop all cached content. Languages are reloaded on their next lookup and
+     * listeners are told so they can rebuild anything derived from the content.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            englishContent = null;
+            languageContent.clear();
+            novenaTexts.clear();
+            version.incrementAndGet();
+        }
+
+        for (Runnable listener : invalidationListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Content version, bumped on every {@link #invalidate()}
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void addInvalidationListener(Runnable listener) {
+        invalidationListeners.add(listener);
+    }
+
+    public void removeInvalidationListener(Runnable listener) {
+        invalidationListeners.remove(listener);
+    }
+
+    public boolean isServedFromPack() {
+        return contentPack != null;
+    }
+
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
+    /**
+     * Lookups that found nothing; a {@link #lookup} counts once whichever file it finds the key in
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Summary of lookup and load metrics for logging
+     */
+    public String getStats() {
+        return String.format("lookups=%d misses=%d loads=%d loadTime=%dms version=%d",
+                lookups.get(), misses.get(), loads.get(), loadNanos.get() / 1_000_000, version.get());
+    }
+
+    private Map<ContentKind, Map<String, String>> getLanguageContent(String language) {
+        if (!LanguageService.getInstance().isLanguageSupported(language)) {
+            return null;
+        }
+
+        Map<ContentKind, Map<String, String>> content = cachedLanguageContent(language);
+        if (content != null) {
+            return content;
+        }
+
+        // Serialize loads so a language is only parsed once when several threads ask for it
+        synchronized (this) {
+            content = cachedLanguageContent(language);
+            if (content == null) {
+                content = loadLanguage(language);
+                if (Constants.ENGLISH.equals(language)) {
+                    englishContent = content;
+                } else {
+                    languageContent.put(language, new SoftReference<>(content));
+                }
+            }
+            return content;
+        }
+    }
+
+    private Map<ContentKind, Map<String, String>> cachedLanguageContent(String language) {
+        if (Constants.ENGLISH.equals(language)) {
+            return englishContent;
+        }
+        SoftReference<Map<ContentKind, Map<String, String>>> ref = languageContent.get(language);
+        return ref != null ? ref.get() : null;
+    }
+
+    private Map<ContentKind, Map<String, String>> loadLanguage(String language) {
+        long start = System.nanoTime();
+        Map<ContentKind, Map<String, String>> content = new EnumMap<>(ContentKind.class);
+        int entries = 0;
+
+        for (ContentKind kind : ContentKind.values()) {
+            Map<String, String> values = new HashMap<>();
+            String fileName = kind.getFileName(language);
+            try {
+                BiConsumer<String, String> consumer = kind == ContentKind.PSALMS ? VerseMarkers.stripping(values::put) : values::put;
+                ContentParser.parse(FileUtils.openResourceStream(fileName), consumer);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Error parsing content file: " + fileName);
+                e.printStackTrace();
+            }
+            content.put(kind, Collections.unmodifiableMap(values));
+            entries += values.size();
+        }
+
+        loads.incrementAndGet();
+        loadNanos.addAndGet(System.nanoTime() - start);
+        System.out.println("Loaded " + entries + " content entries for " + language);
+        return Collections.unmodifiableMap(content);
+    }
+
+    private String loadNovenaFile(String path) {
+        try (InputStream input = getClass().getClassLoader().getResourceAsStream(path)) {
+            if (input == null) {
+                return "Resource not found: " + path;
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "Error reading resource: " + path;
+        }
+    }
+}
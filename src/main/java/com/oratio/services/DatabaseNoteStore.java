@@ -0,0 +1,151 @@
+package com.oratio.services;
+
+import com.oratio.models.Note;
+import com.oratio.models.StyleRuns;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notes kept in an embedded H2 database file, for deployments that want to query notes
+ * rather than replay a log.
+ *
+ * The database runs inside the app with no server. Notes are indexed by category,
+ * created date and modified date for queries run against the file from other tools;
+ * the app itself reads the notes once, through the modified date index, and lists them
+ * from {@link NotesService}'s views. Each change is one prepared statement, committed
+ * when it returns.
+ *
+ * Chosen with -Doratio.notes.store=database; needs the H2 driver on the class path.
+ */
+public final class DatabaseNoteStore implements NoteStore {
+    private static final String CREATE_TABLE =
+            "CREATE TABLE notes (" +
+            " id VARCHAR(64) PRIMARY KEY," +
+            " title VARCHAR NOT NULL," +
+            " content CHARACTER LARGE OBJECT NOT NULL," +
+            " category VARCHAR(64) NOT NULL," +
+            " created_at TIMESTAMP NOT NULL," +
+            " modified_at TIMESTAMP NOT NULL)";
+    // Style runs of formatted notes, null for plain ones; added after the first release
+    private static final String ADD_STYLES = "ALTER TABLE notes ADD COLUMN IF NOT EXISTS styles VARBINARY";
+    private static final String[] CREATE_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS notes_by_category ON notes (category, modified_at DESC, id)",
+            "CREATE INDEX IF NOT EXISTS notes_by_created ON notes (created_at)",
+            "CREATE INDEX IF NOT EXISTS notes_by_modified ON notes (modified_at DESC, id)"
+    };
+
+    private final Connection connection;
+    private final boolean created;
+    private final PreparedStatement upsert;
+    private final PreparedStatement delete;
+    private final PreparedStatement selectAll;
+
+    private DatabaseNoteStore(Connection connection) throws SQLException {
+        this.connection = connection;
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, "NOTES", null)) {
+            this.created = !tables.next();
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (created) {
+                statement.execute(CREATE_TABLE);
+            }
+            statement.execute(ADD_STYLES);
+            for (String index : CREATE_INDEXES) {
+                statement.execute(index);
+            }
+        }
+
+        upsert = connection.prepareStatement(
+                "MERGE INTO notes (id, title, content, category, created_at, modified_at, styles) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?)");
+        delete = connection.prepareStatement("DELETE FROM notes WHERE id = ?");
+        selectAll = connection.prepareStatement(
+                "SELECT id, title, content, category, created_at, modified_at, styles FROM notes ORDER BY modified_at DESC, id");
+    }
+
+    /**
+     * Open the database at a path, without extension, creating it if needed
+     * @throws IOException if the database can not be opened, e.g. without the H2 driver
+     */
+    public static DatabaseNoteStore open(Path path) throws IOException {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Connection connection = DriverManager.getConnection("jdbc:h2:file:" + path.toAbsolutePath());
+            try {
+                return new DatabaseNoteStore(connection);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not open notes database " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+
+    @Override
+    public synchronized List<Note> loadAll() throws IOException {
+        List<Note> notes = new ArrayList<>();
+        try (ResultSet rows = selectAll.executeQuery()) {
+            while (rows.next()) {
+                Note note = new Note(rows.getString(1), rows.getString(2), rows.getString(3), rows.getString(4));
+                note.setCreatedDate(rows.getTimestamp(5).toLocalDateTime());
+                note.setModifiedDate(rows.getTimestamp(6).toLocalDateTime());
+                byte[] styles = rows.getBytes(7);
+                if (styles != null) {
+                    note.setStyles(StyleRuns.fromBytes(styles));
+                }
+                notes.add(note);
+            }
+        } catch (SQLException | IllegalArgumentException e) {
+            throw new IOException("Could not read notes: " + e.getMessage(), e);
+        }
+        return notes;
+    }
+
+    @Override
+    public synchronized void put(Note note) throws IOException {
+        try {
+            upsert.setString(1, note.getId());
+            upsert.setString(2, note.getTitle());
+            upsert.setString(3, note.getContent());
+            upsert.setString(4, note.getCategory());
+            upsert.setTimestamp(5, Timestamp.valueOf(note.getCreatedDate()));
+            upsert.setTimestamp(6, Timestamp.valueOf(note.getModifiedDate()));
+            upsert.setBytes(7, note.getStyles().isPlain() ? null : note.getStyles().toBytes());
+            upsert.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Could not save note " + note.getId() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void delete(String id) throws IOException {
+        try {
+            delete.setString(1, id);
+            delete.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Could not delete note " + id + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Could not close notes database: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,608 @@
+package com.oratio.services;
+
+import com.oratio.models.Note;
+import com.oratio.models.Novena;
+import com.oratio.models.Prayer;
+import com.oratio.models.Psalm;
+import com.oratio.search.InvertedIndex;
+import com.oratio.search.QueryCache;
+import com.oratio.search.SearchQuery;
+import com.oratio.search.SearchResult;
+import com.oratio.search.Snippets;
+import com.oratio.search.SuffixArray;
+import com.oratio.search.TextNormalizer;
+import com.oratio.services.ContentRepository.ContentKind;
+import com.oratio.utils.Constants;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Search across all content: prayers, rosary texts, psalms, novenas and the user's notes.
+ *
+ * Each language's content is indexed once into a BM25 {@link InvertedIndex} and rebuilt
+ * after the content is reloaded. Notes change often, so they live in a separate, smaller
+ * index that is updated note by note when notes are created, saved or deleted. BM25
+ * scores from different indexes are not comparable, so hits from the two indexes, and
+ * from the indexes of different languages, are merged by rank rather than by score
+ * (reciprocal rank fusion). Snippets are only cut for the hits that are returned, around the
+ * match offsets the index reports, and phrase ("\"still waters\"") and NEAR/n queries
+ * are supported through the index's word positions. Recent results are kept in an LRU
+ * {@link QueryCache} keyed by language, normalized query and content and notes versions,
+ * so repeating a query, e.g. after switching tabs or languages and back, is a lookup.
+ */
+public class GlobalSearchService {
+    private static volatile GlobalSearchService instance;
+
+    public static final int DEFAULT_LIMIT = 50;
+    private static final int SNIPPET_LENGTH = 120;
+
+    // Rank-merged hits score 1 / (RANK_OFFSET + rank), so the top few ranks of each
+    // index count for about the same
+    private static final float RANK_OFFSET = 60;
+
+    // Runs the per-language searches of a multi-language search side by side
+    private static final ForkJoinPool SEARCH_POOL = new ForkJoinPool(
+            Math.max(1, Math.min(Constants.SUPPORTED_LANGUAGES.length, Runtime.getRuntime().availableProcessors())));
+
+    private final ContentRepository contentRepository;
+    private final Map<String, Corpus> contentIndexes = new ConcurrentHashMap<>();
+    private volatile NotesCorpus notesIndex;
+
+    // Recent results, keyed by the content version; the notes version is part of the mode
+    private static final int QUERY_CACHE_SIZE = 256;
+    private final QueryCache<List<SearchResult>> queryCache = new QueryCache<>(QUERY_CACHE_SIZE);
+
+    /**
+     * An index together with the documents it was built from; document ids are positions,
+     * and the slots of documents removed since are null
+     */
+    private static class Corpus {
+        final long version;
+        final InvertedIndex index;
+        final SearchResult.Type[] types;
+        final String[] ids;
+        final String[] titles;
+        final String[] texts;
+        private volatile SuffixArray substrings;
+
+        Corpus(long version, InvertedIndex index, List<SearchResult.Type> types,
+               List<String> ids, List<String> titles, List<String> texts) {
+            this.version = version;
+            this.index = index;
+            this.types = types.toArray(new SearchResult.Type[0]);
+            this.ids = ids.toArray(new String[0]);
+            this.titles = titles.toArray(new String[0]);
+            this.texts = texts.toArray(new String[0]);
+        }
+
+        Corpus(long version, InvertedIndex index, SearchResult.Type[] types,
+               String[] ids, String[] titles, String[] texts) {
+            this.version = version;
+            this.index = index;
+            this.types = types;
+            this.ids = ids;
+            this.titles = titles;
+            this.texts = texts;
+        }
+
+        /**
+         * Substring index over the titles and texts, built on first use; fragment 2i is
+         * the title of document i and fragment 2i + 1 its text
+         */
+        SuffixArray getSubstrings() {
+            SuffixArray result = substrings;
+            if (result == null) {
+                synchronized (this) {
+                    result = substrings;
+                    if (result == null) {
+                        SuffixArray.Builder builder = new SuffixArray.Builder();
+                        for (int doc = 0; doc < ids.length; doc++) {
+                            if (ids[doc] == null) {
+                                continue;
+                            }
+                            builder.add(doc, titles[doc]);
+                            builder.add(doc, texts[doc]);
+                        }
+                        substrings = result = builder.build();
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The notes corpus, which also finds the document of each note, so it can be updated
+     * a note at a time
+     */
+    private static class NotesCorpus extends Corpus {
+        final Map<String, Integer> docsByNote;
+
+        NotesCorpus(long version, InvertedIndex index, SearchResult.Type[] types,
+                    String[] ids, String[] titles, String[] texts, Map<String, Integer> docsByNote) {
+            super(version, index, types, ids, titles, texts);
+            this.docsByNote = docsByNote;
+        }
+    }
+
+    /**
+     * Collects documents while a corpus is built
+     */
+    private static class CorpusBuilder {
+        final InvertedIndex.Builder index;
+        final List<SearchResult.Type> types = new ArrayList<>();
+        final List<String> ids = new ArrayList<>();
+        final List<String> titles = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+
+        CorpusBuilder(TextNormalizer normalizer) {
+            index = new InvertedIndex.Builder(normalizer);
+        }
+
+        void add(SearchResult.Type type, String id, String title, String text) {
+            index.add(ids.size(), title + "\n" + text);
+            types.add(type);
+            ids.add(id);
+            titles.add(title);
+            texts.add(text);
+        }
+
+        Corpus build(long version) {
+            return new Corpus(version, index.build(), types, ids, titles, texts);
+        }
+    }
+
+    private GlobalSearchService() {
+        contentRepository = ContentRepository.getInstance();
+        contentRepository.addInvalidationListener(() -> {
+            contentIndexes.clear();
+            queryCache.clear();
+        });
+    }
+
+    public static GlobalSearchService getInstance() {
+        GlobalSearchService result = instance;
+        if (result == null) {
+            synchronized (GlobalSearchService.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new GlobalSearchService();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Search all content of a language and the user's notes
+     * @param query Words to find; joined with AND unless separated by OR, with optional
+     *              quoted phrases and NEAR/n groups
+     * @param limit Maximum number of results
+     * @return results, best first
+     */
+    public List<SearchResult> search(String query, String language, int limit) {
+        SearchQuery parsed = SearchQuery.parse(query);
+        if (parsed.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Corpus content = getContentIndex(language);
+        Corpus notes = getNotesIndex();
+        QueryCache.Key key = new QueryCache.Key(language, parsed.toString(),
+                "ranked:" + limit + ":notes@" + notes.version, content.version);
+        return queryCache.get(key, () -> rankedSearch(parsed, content, notes, limit));
+    }
+
+    /**
+     * Search both indexes and merge their hits by rank; the results' scores are the
+     * rank-based ones, so results of different languages can be merged the same way
+     */
+    private static List<SearchResult> rankedSearch(SearchQuery parsed, Corpus content, Corpus notes, int limit) {
+        List<Match> matches = new ArrayList<>();
+        addRanked(content, content.index.search(parsed, limit), matches);
+        addRanked(notes, notes.index.search(parsed, limit), matches);
+        // Stable, so at equal ranks content comes before notes
+        matches.sort((a, b) -> Float.compare(b.score, a.score));
+
+        List<SearchResult> results = new ArrayList<>(Math.min(limit, matches.size()));
+        for (Match match : matches.subList(0, Math.min(limit, matches.size()))) {
+            int doc = match.hit.getDocId();
+            Corpus corpus = match.corpus;
+            int[] offsets = match.hit.getMatchOffsets(corpus.titles[doc].length() + 1);
+            String snippet = offsets.length > 0
+                    ? Snippets.snippet(corpus.texts[doc], offsets[0], offsets[1], SNIPPET_LENGTH)
+                    : Snippets.snippet(corpus.texts[doc], -1, -1, SNIPPET_LENGTH);
+            results.add(new SearchResult(corpus.types[doc], corpus.ids[doc], corpus.titles[doc],
+                    snippet, match.score, offsets));
+        }
+        return List.copyOf(results);
+    }
+
+    private static void addRanked(Corpus corpus, List<InvertedIndex.Hit> hits, List<Match> matches) {
+        for (int rank = 0; rank < hits.size(); rank++) {
+            matches.add(new Match(corpus, hits.get(rank), 1 / (RANK_OFFSET + rank + 1)));
+        }
+    }
+
+    public List<SearchResult> search(String query, String language) {
+        return search(query, language, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Find content and notes containing a piece of text anywhere, ignoring case, as
+     * String.contains would; "shep" finds "shepherd". Uses a suffix array per corpus,
+     * so the cost depends on the length of the text and the number of matches rather
+     * than the size of the corpus.
+     * @param limit Maximum number of results
+     * @return results, the most occurrences first
+     */
+    public List<SearchResult> searchText(String text, String language, int limit) {
+        if (text.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Corpus content = getContentIndex(language);
+        Corpus notes = getNotesIndex();
+        QueryCache.Key key = new QueryCache.Key(language, text,
+                "text:" + limit + ":notes@" + notes.version, content.version);
+        return queryCache.get(key, () -> textSearch(text, content, notes, limit));
+    }
+
+    private static List<SearchResult> textSearch(String text, Corpus content, Corpus notes, int limit) {
+        List<TextMatch> matches = new ArrayList<>();
+        collectTextMatches(content, text, matches);
+        collectTextMatches(notes, text, matches);
+        matches.sort((a, b) -> Integer.compare(b.count, a.count));
+
+        List<SearchResult> results = new ArrayList<>(Math.min(limit, matches.size()));
+        for (TextMatch match : matches.subList(0, Math.min(limit, matches.size()))) {
+            Corpus corpus = match.corpus;
+            int doc = match.doc;
+            int[] offsets = match.textOffsets();
+            String snippet = offsets.length > 0
+                    ? Snippets.snippet(corpus.texts[doc], offsets[0], offsets[1], SNIPPET_LENGTH)
+                    : Snippets.snippet(corpus.texts[doc], -1, -1, SNIPPET_LENGTH);
+            results.add(new SearchResult(corpus.types[doc], corpus.ids[doc], corpus.titles[doc],
+                    snippet, match.count, offsets));
+        }
+        return List.copyOf(results);
+    }
+
+    /**
+     * Search every supported language at once, one fork-join task per language, so the
+     * wait is about that of the slowest language rather than the sum. Results are merged
+     * by their rank-based scores, or by occurrence counts for exact searches, and tagged
+     * with their language; notes do not depend on the language and are listed once,
+     * untagged.
+     * @param exact Whether to match the text anywhere, as {@link #searchText}, instead of by words
+     * @return results, best first, as an immutable list
+     */
+    public List<SearchResult> searchAllLanguages(String query, int limit, boolean exact) {
+        List<ForkJoinTask<List<SearchResult>>> tasks = new ArrayList<>();
+        for (String language : Constants.SUPPORTED_LANGUAGES) {
+            tasks.add(SEARCH_POOL.submit(() -> exact
+                    ? searchText(query, language, limit)
+                    : search(query, language, limit)));
+        }
+
+        List<SearchResult> merged = new ArrayList<>();
+        Set<String> notesSeen = new HashSet<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            String language = Constants.SUPPORTED_LANGUAGES[i];
+            for (SearchResult result : tasks.get(i).join()) {
+                if (result.getType() != SearchResult.Type.NOTE) {
+                    merged.add(result.withLanguage(language));
+                } else if (notesSeen.add(result.getId())) {
+                    merged.add(result);
+                }
+            }
+        }
+
+        // Stable, so equal scores keep the order of the supported languages
+        merged.sort((a, b) -> Float.compare(b.getScore(), a.getScore()));
+        return List.copyOf(merged.size() > limit ? merged.subList(0, limit) : merged);
+    }
+
+    /**
+     * Complete a word being typed into the global search, from the content of a language
+     * first and then from the user's notes
+     * @return at most limit distinct words, the most frequent first
+     */
+    public List<String> suggest(String prefix, String language, int limit) {
+        List<String> words = new ArrayList<>(getContentIndex(language).index.suggest(prefix, limit));
+        if (words.size() < limit) {
+            for (String word : getNotesIndex().index.suggest(prefix, limit)) {
+                if (words.size() < limit && !words.contains(word)) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Hit and miss counts of the search result cache
+     */
+    public String getSearchCacheStats() {
+        return queryCache.toString();
+    }
+
+    private static void collectTextMatches(Corpus corpus, String text, List<TextMatch> matches) {
+        Map<Integer, TextMatch> byDoc = new LinkedHashMap<>();
+        corpus.getSubstrings().forEachOccurrence(text, (doc, fragment, offset) -> {
+            TextMatch match = byDoc.computeIfAbsent(doc, d -> new TextMatch(corpus, d));
+            match.count++;
+            if (fragment % 2 == 1) {
+                match.addTextOccurrence(offset, offset + text.length());
+            }
+        });
+        matches.addAll(byDoc.values());
+    }
+
+    /**
+     * Occurrences of a text in one document
+     */
+    private static class TextMatch {
+        final Corpus corpus;
+        final int doc;
+        int count;
+        private int[] offsets = new int[4];
+        private int size;
+
+        TextMatch(Corpus corpus, int doc) {
+            this.corpus = corpus;
+            this.doc = doc;
+        }
+
+        /**
+         * Occurrences arrive in text order; overlapping ones are joined
+         */
+        void addTextOccurrence(int start, int end) {
+            if (size > 0 && start <= offsets[size - 1]) {
+                offsets[size - 1] = Math.max(offsets[size - 1], end);
+                return;
+            }
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = start;
+            offsets[size++] = end;
+        }
+
+        int[] textOffsets() {
+            return Arrays.copyOf(offsets, size);
+        }
+    }
+
+    /**
+     * Search the user's notes only
+     * @param fuzzy Whether to tolerate typos
+     * @return matching notes, best first
+     */
+    public List<Note> searchNotes(String query, boolean fuzzy) {
+        SearchQuery parsed = SearchQuery.parse(query).fuzzy(fuzzy);
+        if (parsed.isEmpty()) {
+            return NotesService.getInstance().getAllNotes();
+        }
+
+        Corpus notes = getNotesIndex();
+        NotesService notesService = NotesService.getInstance();
+        List<Note> results = new ArrayList<>();
+        for (InvertedIndex.Hit hit : notes.index.search(parsed)) {
+            Note note = notesService.getNoteById(notes.ids[hit.getDocId()]);
+            if (note != null) {
+                results.add(note);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Build the content index of a language ahead of the first search
+     */
+    public void warmIndex(String language) {
+        getContentIndex(language);
+        getNotesIndex();
+    }
+
+    private static class Match {
+        final Corpus corpus;
+        final InvertedIndex.Hit hit;
+        final float score;
+
+        Match(Corpus corpus, InvertedIndex.Hit hit, float score) {
+            this.corpus = corpus;
+            this.hit = hit;
+            this.score = score;
+        }
+    }
+
+    private Corpus getContentIndex(String language) {
+        long version = contentRepository.getVersion();
+        Corpus current = contentIndexes.get(language);
+        if (current != null && current.version == version) {
+            return current;
+        }
+        return contentIndexes.compute(language, (lang, existing) ->
+                existing != null && existing.version == version ? existing : buildContentIndex(lang, version));
+    }
+
+    private Corpus getNotesIndex() {
+        NotesService notesService = NotesService.getInstance();
+        long version = notesService.getVersion();
+        NotesCorpus current = notesIndex;
+        if (current != null && current.version == version) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = notesIndex;
+            if (current == null || current.version != version) {
+                notesIndex = current = current == null ? buildNotesIndex(notesService, version)
+                        : updateNotesIndex(current, notesService, version);
+            }
+            return current;
+        }
+    }
+
+    private static NotesCorpus buildNotesIndex(NotesService notesService, long version) {
+        Collection<Note> notes = notesService.getNotesView();
+        InvertedIndex.Builder builder = new InvertedIndex.Builder(TextNormalizer.DEFAULT);
+        List<String> ids = new ArrayList<>(notes.size());
+        List<String> titles = new ArrayList<>(notes.size());
+        List<String> texts = new ArrayList<>(notes.size());
+        Map<String, Integer> docsByNote = new HashMap<>();
+        for (Note note : notes) {
+            // The view may change while it is read; a note listed twice is indexed once
+            if (docsByNote.putIfAbsent(note.getId(), ids.size()) != null) {
+                continue;
+            }
+            String title = note.getTitle();
+            String text = note.getContent();
+            builder.add(ids.size(), title + "\n" + text);
+            ids.add(note.getId());
+            titles.add(title);
+            texts.add(text);
+        }
+
+        SearchResult.Type[] types = new SearchResult.Type[ids.size()];
+        Arrays.fill(types, SearchResult.Type.NOTE);
+        return new NotesCorpus(version, builder.build(), types, ids.toArray(new String[0]),
+                titles.toArray(new String[0]), texts.toArray(new String[0]), docsByNote);
+    }
+
+    /**
+     * Reindex only the notes that changed since the corpus was built: an edited note is
+     * removed and added again under a new document id. Once removed notes leave more
+     * empty slots than there are notes, the corpus is rebuilt to compact it.
+     */
+    private static NotesCorpus updateNotesIndex(NotesCorpus current, NotesService notesService, long version) {
+        Map<String, Integer> docsByNote = new HashMap<>(current.docsByNote);
+        List<Integer> removed = new ArrayList<>();
+        // Id, title and text of each note to add
+        List<String[]> added = new ArrayList<>();
+        Set<String> listed = new HashSet<>();
+        for (Note note : notesService.getNotesView()) {
+            if (!listed.add(note.getId())) {
+                continue;
+            }
+            String title = note.getTitle();
+            String text = note.getContent();
+            Integer doc = docsByNote.get(note.getId());
+            if (doc != null && title.equals(current.titles[doc]) && text.equals(current.texts[doc])) {
+                continue;
+            }
+            if (doc != null) {
+                removed.add(doc);
+            }
+            added.add(new String[]{note.getId(), title, text});
+        }
+        for (Iterator<Map.Entry<String, Integer>> it = docsByNote.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Integer> entry = it.next();
+            if (!listed.contains(entry.getKey())) {
+                removed.add(entry.getValue());
+                it.remove();
+            }
+        }
+
+        int size = current.ids.length + added.size();
+        if (size > 2 * listed.size() + 64) {
+            return buildNotesIndex(notesService, version);
+        }
+
+        SearchResult.Type[] types = Arrays.copyOf(current.types, size);
+        String[] ids = Arrays.copyOf(current.ids, size);
+        String[] titles = Arrays.copyOf(current.titles, size);
+        String[] texts = Arrays.copyOf(current.texts, size);
+        for (int doc : removed) {
+            types[doc] = null;
+            ids[doc] = null;
+            titles[doc] = null;
+            texts[doc] = null;
+        }
+        int[] addedDocs = new int[added.size()];
+        String[] addedTexts = new String[added.size()];
+        for (int i = 0; i < added.size(); i++) {
+            String[] note = added.get(i);
+            int doc = current.ids.length + i;
+            addedDocs[i] = doc;
+            addedTexts[i] = note[1] + "\n" + note[2];
+            types[doc] = SearchResult.Type.NOTE;
+            ids[doc] = note[0];
+            titles[doc] = note[1];
+            texts[doc] = note[2];
+            docsByNote.put(note[0], doc);
+        }
+
+        int[] removedDocs = removed.stream().mapToInt(Integer::intValue).toArray();
+        InvertedIndex index = current.index.withChanges(removedDocs, addedDocs, addedTexts);
+        return new NotesCorpus(version, index, types, ids, titles, texts, docsByNote);
+    }
+
+    private Corpus buildContentIndex(String language, long version) {
+        long start = System.nanoTime();
+        CorpusBuilder builder = new CorpusBuilder(TextNormalizer.forLanguage(language));
+
+        // Prayers and psalms fall back to English, as they do when displayed
+        LanguageService languageService = LanguageService.getInstance();
+        PrayerService prayerService = PrayerService.getInstance();
+        for (Prayer prayer : prayerService.getAllPrayers()) {
+            String text = languageService.getTranslation(prayer.getId(), language);
+            if (!text.equals(prayer.getId())) {
+                builder.add(SearchResult.Type.PRAYER, prayer.getId(), prayer.getName(), text);
+            }
+        }
+
+        for (String key : contentRepository.keys(language, ContentKind.ROSARY)) {
+            String text = contentRepository.get(language, ContentKind.ROSARY, key);
+            if (text != null) {
+                builder.add(SearchResult.Type.ROSARY, key, toTitle(key), text);
+            }
+        }
+
+        PsalmService psalmService = PsalmService.getInstance();
+        for (Psalm psalm : psalmService.getAllPsalms()) {
+            String key = String.format("psalm_%d", psalm.getNumber());
+            String text = languageService.getTranslation(key, language);
+            if (!text.equals(key)) {
+                builder.add(SearchResult.Type.PSALM, String.valueOf(psalm.getNumber()),
+                        psalmService.getPsalmTitle(psalm, language), text);
+            }
+        }
+
+        NovenaService novenaService = NovenaService.getInstance();
+        for (Novena novena : novenaService.getAllNovenas()) {
+            String text = contentRepository.hasNovenaText(novena.getId(), language)
+                    ? novenaService.getNovenaText(novena, language)
+                    : novena.getDescription();
+            builder.add(SearchResult.Type.NOVENA, novena.getId(), novena.getName(), text);
+        }
+
+        Corpus corpus = builder.build(version);
+        System.out.printf("Indexed %d documents (%d terms) for global search in %s in %d ms%n",
+                corpus.index.getDocumentCount(), corpus.index.getTermCount(), language,
+                (System.nanoTime() - start) / 1_000_000);
+        return corpus;
+    }
+
+    /**
+     * Turn a content key such as "joyful_mystery_1" into "Joyful Mystery 1"
+     */
+    private static String toTitle(String key) {
+        StringBuilder title = new StringBuilder(key.length());
+        boolean startOfWord = true;
+        for (char c : key.toCharArray()) {
+            if (c == '_') {
+                title.append(' ');
+                startOfWord = true;
+            } else {
+                title.append(startOfWord ? Character.toUpperCase(c) : c);
+                startOfWord = false;
+            }
+        }
+        return title.toString();
+    }
+}
@@ -1,28 +1,29 @@
 package com.oratio.services;
 
 import com.oratio.utils.Constants;
-import com.oratio.utils.FileUtils;
-
-import java.util.HashMap;
-import java.util.Map;
 
 /**
- * Service for handling multi-language support
+ * Service for handling multi-language support.
+ * Translations are served by {@link ContentRepository}, which loads each language on first use.
  */
 public class LanguageService {
-    private static LanguageService instance;
-    private String currentLanguage = Constants.DEFAULT_LANGUAGE;
-    private Map<String, Map<String, String>> translations = new HashMap<>();
+    private static volatile LanguageService instance;
+    private volatile String currentLanguage = Constants.DEFAULT_LANGUAGE;
 
     private LanguageService() {
-        loadTranslations();
     }
 
     public static LanguageService getInstance() {
-        if (instance == null) {
-            instance = new LanguageService();
+        LanguageService result = instance;
+        if (result == null) {
+            synchronized (LanguageService.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new LanguageService();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
     public String getCurrentLanguage() {
@@ -45,15 +46,19 @@ public class LanguageService {
     }
 
     public String getTranslation(String key, String language) {
-        Map<String, String> langTranslations = translations.get(language);
-        if (langTranslations != null && langTranslations.containsKey(key)) {
-            return langTranslations.get(key);
+        ContentRepository repository = ContentRepository.getInstance();
+
+        String translation = repository.lookup(language, key);
+        if (translation != null) {
+            return translation;
         }
 
         // Fallback to English if translation not found
-        Map<String, String> englishTranslations = translations.get(Constants.ENGLISH);
-        if (englishTranslations != null && englishTranslations.containsKey(key)) {
-            return englishTranslations.get(key);
+        if (!Constants.ENGLISH.equals(language)) {
+            translation = repository.lookup(Constants.ENGLISH, key);
+            if (translation != null) {
+                return translation;
+            }
         }
 
         return key; // Return key if no translation found
@@ -62,44 +67,4 @@ public class LanguageService {
     public String getTranslation(String key) {
         return getTranslation(key, currentLanguage);
     }
-
-    private void loadTranslations() {
-        for (String language : Constants.SUPPORTED_LANGUAGES) {
-            Map<String, String> langTranslations = new HashMap<>();
-
-            // Load prayers
-            String prayersContent = FileUtils.loadResourceFile(String.format("prayers_%s.txt", language.toLowerCase()));
-            if (prayersContent != null) {
-                parseTranslations(prayersContent, langTranslations);
-            }
-
-            // Load rosary texts
-            String rosaryContent = FileUtils.loadResourceFile(String.format("rosary_%s.txt", language.toLowerCase()));
-            if (rosaryContent != null) {
-                parseTranslations(rosaryContent, langTranslations);
-            }
-
-            // Load psalms
-            String psalmsContent = FileUtils.loadResourceFile(String.format("psalms_%s.txt", language.toLowerCase()));
-            if (psalmsContent != null) {
-                parseTranslations(psalmsContent, langTranslations);
-            }
-
-            translations.put(language, langTranslations);
-        }
-    }
-
-    private void parseTranslations(String content, Map<String, String> translations) {
-        if (content == null || content.trim().isEmpty()) return;
-
-        String[] sections = content.split("===");
-        for (String section : sections) {
-            String[] lines = section.trim().split("\n", 2);
-            if (lines.length >= 2) {
-                String key = lines[0].trim();
-                String value = lines[1].trim();
-                translations.put(key, value);
-            }
-        }
-    }
-}
\ No newline at end of file
+}
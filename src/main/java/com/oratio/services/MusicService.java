@@ -4,8 +4,8 @@ import javax.sound.sampled.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Service for managing background music playback
@@ -13,7 +13,7 @@ import java.util.List;
  * FIX: Mute/unmute logic corrected to prevent music from stopping.
  */
 public class MusicService {
-    private static MusicService instance;
+    private static volatile MusicService instance;
 
     private Clip currentClip;
     private FloatControl volumeControl;
@@ -22,7 +22,7 @@ public class MusicService {
     private boolean isPlaying = false;
     private String currentTrack;
 
-    private List<MusicChangeListener> listeners = new ArrayList<>();
+    private final List<MusicChangeListener> listeners = new CopyOnWriteArrayList<>();
 
     // Paths assumed to be relative to the classpath root (e.g., inside the 'resources' folder).
     private final String[] MUSIC_TRACKS = {
@@ -38,10 +38,16 @@ public class MusicService {
     }
 
     public static MusicService getInstance() {
-        if (instance == null) {
-            instance = new MusicService();
+        MusicService result = instance;
+        if (result == null) {
+            synchronized (MusicService.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new MusicService();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
     /**
@@ -0,0 +1,34 @@
+package com.oratio.services;
+
+import com.oratio.models.Note;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where {@link NotesService} keeps the user's notes between runs.
+ *
+ * The service holds the one instance of every note in memory, keeps its own ordered
+ * views of them and tells the store about each change. Listings are always answered from
+ * those views, never from the store, whose writes may still be queued.
+ */
+public interface NoteStore extends Closeable {
+
+    /**
+     * Whether the store held no notes yet when it was opened, so the welcome notes are due
+     */
+    boolean isNew();
+
+    /**
+     * Every stored note, read when the store is opened
+     */
+    List<Note> loadAll() throws IOException;
+
+    /**
+     * Store a new or changed note
+     */
+    void put(Note note) throws IOException;
+
+    void delete(String id) throws IOException;
+}
@@ -0,0 +1,112 @@
+package com.oratio.services;
+
+import com.oratio.models.Note;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Notes kept in modification order, newest first, overall and per category.
+ *
+ * Each note is filed under a key of its modification date and id in a skip list, and
+ * again in the skip list of its category, so adding, moving or removing a note costs
+ * O(log n) and listing them needs no sorting. The key a note was filed under is
+ * remembered, because the editor changes a note's date and category before it is
+ * saved and refiled. The listings are read-only live views that can be iterated while
+ * notes are being saved.
+ */
+final class NoteViews {
+
+    /**
+     * Orders notes by modification date, newest first, then by id
+     */
+    static final class NoteKey implements Comparable<NoteKey> {
+        final LocalDateTime modified;
+        final String id;
+
+        NoteKey(LocalDateTime modified, String id) {
+            this.modified = modified;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(NoteKey other) {
+            int byDate = other.modified.compareTo(modified);
+            return byDate != 0 ? byDate : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NoteKey && compareTo((NoteKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return modified.hashCode() * 31 + id.hashCode();
+        }
+    }
+
+    /**
+     * Where a note is filed
+     */
+    private static final class Filing {
+        final NoteKey key;
+        final String category;
+
+        Filing(NoteKey key, String category) {
+            this.key = key;
+            this.category = category;
+        }
+    }
+
+    private final ConcurrentSkipListMap<NoteKey, Note> byModified = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<NoteKey, Note>> byCategory = new ConcurrentHashMap<>();
+    private final Map<String, Filing> filings = new HashMap<>();
+    private final Collection<Note> allView = Collections.unmodifiableCollection(byModified.values());
+
+    /**
+     * File a new note, or refile one whose date or category changed
+     */
+    synchronized void put(Note note) {
+        remove(note.getId());
+        NoteKey key = new NoteKey(note.getModifiedDate(), note.getId());
+        byModified.put(key, note);
+        categoryMap(note.getCategory()).put(key, note);
+        filings.put(note.getId(), new Filing(key, note.getCategory()));
+    }
+
+    synchronized void remove(String id) {
+        Filing filing = filings.remove(id);
+        if (filing != null) {
+            byModified.remove(filing.key);
+            categoryMap(filing.category).remove(filing.key);
+        }
+    }
+
+    private ConcurrentSkipListMap<NoteKey, Note> categoryMap(String category) {
+        return byCategory.computeIfAbsent(category, c -> new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * Every note, newest first, as a read-only live view
+     */
+    Collection<Note> all() {
+        return allView;
+    }
+
+    /**
+     * The notes of a category, newest first, as a read-only live view
+     */
+    Collection<Note> byCategory(String category) {
+        return Collections.unmodifiableCollection(categoryMap(category).values());
+    }
+
+    int size() {
+        return byModified.size();
+    }
+}
@@ -0,0 +1,392 @@
+package com.oratio.services;
+
+import com.oratio.models.Note;
+import com.oratio.models.StyleRuns;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the notes the user writes, kept on disk so notes outlive the app.
+ *
+ * Every create or update appends one record holding the whole note, and every delete
+ * appends one holding its id, so saving a note writes only that note. Each record is
+ * framed by its length and a CRC32 checksum and forced to disk before the call returns.
+ * On opening, the log is replayed to rebuild the notes and an in-memory index of where
+ * each note's latest record lies; a record cut short or damaged by a crash ends the
+ * replay and is cut off into a ".damaged" file beside the journal, so the journal always
+ * holds the notes as of the last complete save.
+ *
+ * A formatted note's style runs follow its dates in the record; records without them,
+ * including those of older journals, hold plain notes.
+ *
+ * Superseded records are garbage. Once they make up more than half of a journal that
+ * has grown past a minimum size, a background thread compacts it: the live records are
+ * copied into a temporary file, which is forced to disk and then atomically moved over
+ * the journal, so a crash during compaction leaves the old journal intact.
+ */
+public final class NotesJournal implements NoteStore {
+    private static final int MAGIC = 0x4F524E4A; // "ORNJ"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notes-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Where a note's latest record lies in the file
+     */
+    private static final class Location {
+        final long offset;
+        final int length;
+
+        Location(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final Path path;
+    private final Path compactionPath;
+    private final boolean created;
+    private FileChannel channel;
+    private long size;
+    private long liveBytes;
+    private final Map<String, Location> index = new HashMap<>();
+    private final List<Note> recoveredNotes;
+    private boolean compactionPending;
+
+    private NotesJournal(Path path) throws IOException {
+        this.path = path;
+        this.compactionPath = path.resolveSibling(path.getFileName() + ".compacting");
+        Files.deleteIfExists(compactionPath);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.created = !Files.exists(path) || Files.size(path) == 0;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.recoveredNotes = created ? List.of() : replay();
+        if (created) {
+            writeHeader(channel);
+            channel.force(true);
+            size = HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Open a journal, creating it if needed and recovering from a damaged tail
+     * @throws IOException if the journal can not be read or created
+     */
+    public static NotesJournal open(Path path) throws IOException {
+        return new NotesJournal(path);
+    }
+
+    /**
+     * Whether the journal did not exist, or was empty, when it was opened
+     */
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+
+    /**
+     * The notes the journal held when it was opened, in the order they were last saved
+     */
+    @Override
+    public List<Note> loadAll() {
+        return recoveredNotes;
+    }
+
+    /**
+     * Record a new or changed note
+     */
+    @Override
+    public synchronized void put(Note note) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + note.getContent().length() * 2
+                + note.getStyles().getRunCount() * 4);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(PUT);
+        writeString(out, note.getId());
+        writeString(out, note.getTitle());
+        writeString(out, note.getContent());
+        writeString(out, note.getCategory());
+        writeString(out, String.valueOf(note.getCreatedDate()));
+        writeString(out, String.valueOf(note.getModifiedDate()));
+        if (!note.getStyles().isPlain()) {
+            writeBytes(out, note.getStyles().toBytes());
+        }
+
+        long offset = append(bytes.toByteArray());
+        Location previous = index.put(note.getId(), new Location(offset, (int) (size - offset)));
+        liveBytes += size - offset - (previous != null ? previous.length : 0);
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * Record that a note was deleted
+     */
+    @Override
+    public synchronized void delete(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(DELETE);
+        writeString(out, id);
+
+        append(bytes.toByteArray());
+        Location previous = index.remove(id);
+        if (previous != null) {
+            liveBytes -= previous.length;
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * Frame a record, write it at the end of the file and force it to disk
+     * @return the offset the record was written at
+     */
+    private long append(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+        long offset = size;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, size + buffer.position());
+        }
+        channel.force(false);
+        size += RECORD_HEADER_SIZE + payload.length;
+        return offset;
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        if (!compactionPending && size >= MIN_COMPACTION_SIZE && liveBytes * 2 < size - HEADER_SIZE) {
+            compactionPending = true;
+            COMPACTOR.submit(() -> {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    System.err.println("Error compacting notes journal: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    /**
+     * Rewrite the journal with only the latest record of each note
+     */
+    public synchronized void compact() throws IOException {
+        compactionPending = false;
+        if (channel == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        long before = size;
+
+        Map<String, Location> moved = new HashMap<>();
+        long offset = HEADER_SIZE;
+        try (FileChannel out = FileChannel.open(compactionPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out);
+            out.position(HEADER_SIZE);
+            // Copy records in file order, so notes keep the order they were saved in
+            List<Map.Entry<String, Location>> live = new ArrayList<>(index.entrySet());
+            live.sort(Comparator.comparingLong(entry -> entry.getValue().offset));
+            for (Map.Entry<String, Location> entry : live) {
+                Location location = entry.getValue();
+                long copied = 0;
+                while (copied < location.length) {
+                    copied += channel.transferTo(location.offset + copied, location.length - copied, out);
+                }
+                moved.put(entry.getKey(), new Location(offset, location.length));
+                offset += location.length;
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        channel = null;
+        try {
+            Files.move(compactionPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(compactionPath, path, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            // The old journal is reopened if the move failed, and the index left as it was
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        index.clear();
+        index.putAll(moved);
+        size = offset;
+        liveBytes = offset - HEADER_SIZE;
+        System.out.printf("Compacted notes journal from %d to %d bytes in %d ms%n",
+                before, size, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Rebuild the notes and the index from the file, truncating a damaged tail
+     */
+    private List<Note> replay() throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        if (fileSize < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a notes journal: " + path);
+        }
+
+        Map<String, Note> notes = new LinkedHashMap<>();
+        long offset = HEADER_SIZE;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (offset + RECORD_HEADER_SIZE <= fileSize) {
+            recordHeader.clear();
+            readFully(recordHeader, offset);
+            recordHeader.flip();
+            int length = recordHeader.getInt();
+            int checksum = recordHeader.getInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE || offset + RECORD_HEADER_SIZE + length > fileSize) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, offset + RECORD_HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum || !apply(payload.array(), offset, notes)) {
+                break;
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+
+        if (offset < fileSize) {
+            // Keep the dropped bytes beside the journal rather than destroying them
+            Path damaged = path.resolveSibling(path.getFileName() + ".damaged");
+            try (FileChannel out = FileChannel.open(damaged, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long copied = 0;
+                while (copied < fileSize - offset) {
+                    copied += channel.transferTo(offset + copied, fileSize - offset - copied, out);
+                }
+            }
+            System.err.printf("Notes journal damaged at byte %d; moved the last %d bytes to %s%n",
+                    offset, fileSize - offset, damaged);
+            channel.truncate(offset);
+            channel.force(true);
+        }
+        size = offset;
+        return new ArrayList<>(notes.values());
+    }
+
+    /**
+     * Apply one record to the replayed notes and the index
+     * @return false if the record can not be decoded
+     */
+    private boolean apply(byte[] payload, long offset, Map<String, Note> notes) {
+        int recordLength = RECORD_HEADER_SIZE + payload.length;
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte type = in.readByte();
+            String id = readString(in);
+            Location previous;
+            if (type == PUT) {
+                Note note = new Note(id, readString(in), readString(in), readString(in));
+                note.setCreatedDate(LocalDateTime.parse(readString(in)));
+                note.setModifiedDate(LocalDateTime.parse(readString(in)));
+                if (in.available() > 0) {
+                    note.setStyles(StyleRuns.fromBytes(readBytes(in)));
+                }
+                // Re-inserted, so the notes end up in the order they were last saved
+                notes.remove(id);
+                notes.put(id, note);
+                previous = index.put(id, new Location(offset, recordLength));
+                liveBytes += recordLength;
+            } else if (type == DELETE) {
+                notes.remove(id);
+                previous = index.remove(id);
+            } else {
+                return false;
+            }
+            if (previous != null) {
+                liveBytes -= previous.length;
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of notes journal");
+            }
+        }
+    }
+
+    private static void writeHeader(FileChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            out.write(header, header.position());
+        }
+    }
+
+    // Length-prefixed UTF-8, as writeUTF is limited to 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, (value != null ? value : "").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Bad field length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Size of the journal file in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -2,58 +2,299 @@
 package com.oratio.services;
 
 import com.oratio.models.Note;
+import com.oratio.search.DocumentFilter;
+import com.oratio.search.PatternScan;
+import com.oratio.search.TextNormalizer;
+import com.oratio.utils.Constants;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for managing prayer journal notes
  */
 public class NotesService {
-    private static NotesService instance;
-    private List<Note> allNotes = new ArrayList<>();
-    private int nextNoteId = 1;
+    private static volatile NotesService instance;
+    private final Map<String, Note> allNotes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextNoteId = new AtomicInteger(1);
+    private final AtomicLong version = new AtomicLong();
+
+    // The notes in modification order, overall and per category, refiled on every change
+    private final NoteViews views = new NoteViews();
+
+    // Notes are kept in an append-only journal, or a database when configured; null if
+    // neither could be opened
+    private static final String NOTES_JOURNAL_FILE = "user_data/notes.journal";
+    private static final String NOTES_DATABASE_FILE = "user_data/notes";
+    private final NoteStore store;
+
+    // Store writes run in order on one background thread. A note waiting to be written
+    // holds its latest snapshot here, so newer saves replace older ones not yet written.
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notes-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Note> pendingWrites = new ConcurrentHashMap<>();
+    private static final long FLUSH_TIMEOUT_SECONDS = 5;
+
+    // Bloom filter of each note's words and trigrams for pattern scans, rebuilt when its text changes
+    private final Map<String, NoteFilter> noteFilters = new ConcurrentHashMap<>();
+
+    private static class NoteFilter {
+        final String title;
+        final String content;
+        final DocumentFilter filter;
+
+        NoteFilter(String title, String content) {
+            this.title = title;
+            this.content = content;
+            this.filter = DocumentFilter.of(TextNormalizer.DEFAULT, title, content);
+        }
+
+        boolean isCurrent(Note note) {
+            return title == note.getTitle() && content == note.getContent();
+        }
+    }
 
     private NotesService() {
-        initializeDefaultNotes();
+        store = openStore();
+        List<Note> saved = loadSavedNotes();
+        if (saved == null) {
+            initializeDefaultNotes();
+        } else {
+            int maxId = 0;
+            for (Note note : saved) {
+                allNotes.put(note.getId(), note);
+                views.put(note);
+                try {
+                    maxId = Math.max(maxId, Integer.parseInt(note.getId()));
+                } catch (NumberFormatException ignored) {
+                    // Only numeric ids take part in numbering
+                }
+            }
+            nextNoteId.set(maxId + 1);
+            System.out.println("Notes loaded successfully: " + allNotes.size() + " notes");
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "notes-flush"));
+    }
 
+    private static NoteStore openStore() {
+        String kind = System.getProperty(Constants.NOTES_STORE_PROPERTY, Constants.NOTES_STORE_JOURNAL);
+        if (kind.equals(Constants.NOTES_STORE_DATABASE)) {
+            try {
+                return DatabaseNoteStore.open(Paths.get(NOTES_DATABASE_FILE));
+            } catch (IOException e) {
+                System.err.println("Error opening notes database, using the journal instead: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } else if (!kind.equals(Constants.NOTES_STORE_JOURNAL)) {
+            System.err.println("Unknown notes store '" + kind + "', using the journal");
+        }
+
+        try {
+            return NotesJournal.open(Paths.get(NOTES_JOURNAL_FILE));
+        } catch (IOException e) {
+            System.err.println("Error opening notes journal, notes will not be saved: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @return the stored notes, or null when there are none yet and the welcome notes are due
+     */
+    private List<Note> loadSavedNotes() {
+        if (store == null || store.isNew()) {
+            return null;
+        }
+        try {
+            return store.loadAll();
+        } catch (IOException e) {
+            System.err.println("Error loading notes: " + e.getMessage());
+            e.printStackTrace();
+            return List.of();
+        }
     }
 
     public static NotesService getInstance() {
-        if (instance == null) {
-            instance = new NotesService();
+        NotesService result = instance;
+        if (result == null) {
+            synchronized (NotesService.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new NotesService();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
+    /**
+     * All notes, most recently modified first
+     */
     public List<Note> getAllNotes() {
-        // Sort by modification date, newest first
-        List<Note> sortedNotes = new ArrayList<>(allNotes);
-        sortedNotes.sort((n1, n2) -> n2.getModifiedDate().compareTo(n1.getModifiedDate()));
-        return sortedNotes;
+        return new ArrayList<>(views.all());
+    }
+
+    /**
+     * All notes, most recently modified first, as a read-only view that follows later
+     * changes; iterate it rather than copy it where a list is not needed
+     */
+    public Collection<Note> getNotesView() {
+        return views.all();
+    }
+
+    /**
+     * The notes of a category, most recently modified first, as a read-only view that
+     * follows later changes
+     */
+    public Collection<Note> getNotesView(String category) {
+        return views.byCategory(category);
     }
 
     public Note createNote(String title, String content, String category) {
-        Note note = new Note(String.valueOf(nextNoteId++), title, content, category);
-        allNotes.add(note);
+        Note note = new Note(String.valueOf(nextNoteId.getAndIncrement()), title, content, category);
+        allNotes.put(note.getId(), note);
+        views.put(note);
+        version.incrementAndGet();
+        persist(note);
         return note;
     }
 
+    /**
+     * Save a note's changes; only this note is written to the store. The note is copied
+     * on the calling thread and written in the background, so editing can go on at once.
+     */
     public void saveNote(Note note) {
-        // In a real application, this would persist to file/database
-        // For now, the note is already in the list and modifications are tracked
         note.setModifiedDate(LocalDateTime.now());
+        if (allNotes.get(note.getId()) != note) {
+            // Deleted meanwhile
+            return;
+        }
+        views.put(note);
+        version.incrementAndGet();
+        persist(note);
     }
 
     public void deleteNote(Note note) {
-        allNotes.remove(note);
+        if (allNotes.remove(note.getId(), note)) {
+            views.remove(note.getId());
+            noteFilters.remove(note.getId());
+            version.incrementAndGet();
+            if (store != null) {
+                // Queued behind any write of the note, so the write can not bring it back
+                pendingWrites.remove(note.getId());
+                writer.execute(() -> {
+                    try {
+                        store.delete(note.getId());
+                    } catch (IOException e) {
+                        System.err.println("Error saving note deletion: " + e.getMessage());
+                        e.printStackTrace();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Queue a snapshot of the note for the writer, replacing one still waiting
+     */
+    private void persist(Note note) {
+        if (store == null) {
+            return;
+        }
+        if (pendingWrites.put(note.getId(), snapshot(note)) == null) {
+            writer.execute(() -> write(note.getId()));
+        }
+    }
+
+    private void write(String id) {
+        Note snapshot = pendingWrites.remove(id);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            store.put(snapshot);
+        } catch (IOException e) {
+            System.err.println("Error saving note: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static Note snapshot(Note note) {
+        Note copy = new Note(note.getId(), note.getTitle(), note.getContent(), note.getCategory());
+        copy.setStyles(note.getStyles());
+        copy.setCreatedDate(note.getCreatedDate());
+        copy.setModifiedDate(note.getModifiedDate());
+        return copy;
+    }
+
+    /**
+     * Wait until the changes saved so far are written to the store
+     */
+    public void flush() {
+        try {
+            writer.submit(() -> { }).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Error waiting for notes to be saved: " + e);
+        }
+    }
+
+    public Note getNoteById(String id) {
+        return allNotes.get(id);
+    }
+
+    /**
+     * Notes version, bumped whenever a note is created, saved or deleted
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Scan the notes for a regular expression or other pattern. Notes whose filters show
+     * they lack text every match needs are skipped unread.
+     * @return matching notes, newest first
+     * @throws java.util.concurrent.CancellationException if the thread is interrupted during the scan
+     */
+    public List<Note> searchNotesByPattern(PatternScan pattern) {
+        List<Note> matches = new ArrayList<>();
+        for (Note note : views.all()) {
+            if (pattern.mightMatch(getFilter(note))
+                    && (pattern.matches(note.getTitle()) || pattern.matches(note.getContent()))) {
+                matches.add(note);
+            }
+        }
+        return matches;
+    }
+
+    private DocumentFilter getFilter(Note note) {
+        NoteFilter current = noteFilters.get(note.getId());
+        if (current == null || !current.isCurrent(note)) {
+            current = new NoteFilter(note.getTitle(), note.getContent());
+            noteFilters.put(note.getId(), current);
+        }
+        return current.filter;
     }
 
+    /**
+     * Notes of a category, most recently modified first
+     */
     public List<Note> getNotesByCategory(String category) {
-        return allNotes.stream()
-                .filter(note -> note.getCategory().equals(category))
-                .sorted((n1, n2) -> n2.getModifiedDate().compareTo(n1.getModifiedDate()))
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        return new ArrayList<>(views.byCategory(category));
     }
 
     private void initializeDefaultNotes() {
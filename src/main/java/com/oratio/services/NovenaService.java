@@ -1,58 +1,60 @@
 package com.oratio.services;
 
 import com.oratio.models.Novena;
-import java.io.InputStream;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import com.oratio.utils.IdRegistry;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Service for managing novenas
+ * Service for managing novenas.
+ * Each novena exists once, in the registry; every list handed out holds those instances.
  */
 public class NovenaService {
-    private static NovenaService instance;
-    private List<Novena> allNovenas;
-    private Set<String> favoriteNovenaIds = new HashSet<>();
-    private Set<String> activeNovenaIds = new HashSet<>();
+    private static volatile NovenaService instance;
+    private final IdRegistry<Novena> novenas;
+    private final Set<String> favoriteNovenaIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> activeNovenaIds = ConcurrentHashMap.newKeySet();
     private LanguageService languageService;
+    private ContentRepository contentRepository;
 
     private NovenaService() {
         languageService = LanguageService.getInstance();
-        initializeNovenas();
-    }
-
-    private String loadResourceFile(String path) {
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream(path)) {
-            if (input == null) {
-                return "Resource not found: " + path;
-            }
-            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return "Error reading resource: " + path;
-        }
+        contentRepository = ContentRepository.getInstance();
+        novenas = new IdRegistry<>(initializeNovenas(), Novena::getId);
     }
 
 
     public static NovenaService getInstance() {
-        if (instance == null) {
-            instance = new NovenaService();
+        NovenaService result = instance;
+        if (result == null) {
+            synchronized (NovenaService.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new NovenaService();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
+    /**
+     * All novenas, as an immutable list
+     */
     public List<Novena> getAllNovenas() {
-        return new ArrayList<>(allNovenas);
+        return novenas.getAll();
+    }
+
+    /**
+     * @return the novena with an id, or null
+     */
+    public Novena getNovenaById(String id) {
+        return novenas.get(id);
     }
 
     public String getNovenaText(Novena novena, String language) {
         // Example filename: sacred_heart_english.txt
-        String filename = String.format("novenas/%s_%s.txt",
-                novena.getId().toLowerCase(),
-                language.toLowerCase());
-
-        return loadResourceFile(filename);
+        return contentRepository.getNovenaText(novena.getId(), language);
     }
 
 
@@ -69,10 +71,7 @@ public class NovenaService {
     }
 
     public List<Novena> getFavoriteNovenas() {
-        return allNovenas.stream()
-                .filter(n -> favoriteNovenaIds.contains(n.getId()))
-                .peek(n -> n.setFavorite(true))
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        return novenas.select(favoriteNovenaIds);
     }
 
     public void startNovena(Novena novena) {
@@ -90,8 +89,8 @@ public class NovenaService {
         return activeNovenaIds.contains(novena.getId());
     }
 
-    private void initializeNovenas() {
-        allNovenas = new ArrayList<>();
+    private List<Novena> initializeNovenas() {
+        List<Novena> allNovenas = new ArrayList<>();
 
         allNovenas.add(new Novena("sacred_heart", "Sacred Heart of Jesus",
                 "A powerful novena to the Sacred Heart of Jesus for spiritual and temporal needs", 9));
@@ -120,6 +119,7 @@ public class NovenaService {
         allNovenas.add(new Novena("st_therese", "St. Thérèse of Lisieux",
                 "Novena to St. Thérèse, the Little Flower, for intercession and roses", 9));
 
-
+        // Immutable snapshot, safe to read from any thread
+        return List.copyOf(allNovenas);
     }
 }
\ No newline at end of file
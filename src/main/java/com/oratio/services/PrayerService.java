@@ -3,63 +3,72 @@
 package com.oratio.services;
 
 import com.oratio.models.Prayer;
-import com.oratio.utils.FileUtils;
+import com.oratio.services.ContentRepository.ContentKind;
+import com.oratio.utils.IdRegistry;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Service for managing prayers and devotions
+ * Service for managing prayers and devotions.
+ * Each prayer exists once, in the registry; every list handed out holds those instances.
  */
 public class PrayerService {
-    private static PrayerService instance;
-    private List<Prayer> allPrayers = new ArrayList<>();
-    private Set<String> favoritePrayerIds = new HashSet<>();
-    private Set<String> completedPrayerIds = new HashSet<>();
+    private static volatile PrayerService instance;
+    private final IdRegistry<Prayer> prayers;
+    private final List<Prayer> dailyPrayers;
+    private final Set<String> favoritePrayerIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> completedPrayerIds = ConcurrentHashMap.newKeySet();
     private LanguageService languageService;
-
-    // Cache for loaded prayer texts by language
-    private Map<String, Map<String, String>> prayerTextCache = new HashMap<>();
+    private ContentRepository contentRepository;
 
     private PrayerService() {
         languageService = LanguageService.getInstance();
-        initializePrayers();
-        loadAllPrayerTexts();
+        contentRepository = ContentRepository.getInstance();
+        dailyPrayers = initializeDailyPrayers();
+        prayers = initializePrayers(dailyPrayers);
     }
 
     public static PrayerService getInstance() {
-        if (instance == null) {
-            instance = new PrayerService();
+        PrayerService result = instance;
+        if (result == null) {
+            synchronized (PrayerService.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new PrayerService();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
     public List<Prayer> getDailyPrayers() {
-        List<Prayer> dailyPrayers = new ArrayList<>();
-
-        // Add morning prayers
-        dailyPrayers.add(new Prayer("morning_offering", "Morning Offering", "Morning"));
-        dailyPrayers.add(new Prayer("our_father", "Our Father", "Basic"));
-        dailyPrayers.add(new Prayer("hail_mary", "Hail Mary", "Basic"));
-        dailyPrayers.add(new Prayer("glory_be", "Glory Be", "Basic"));
+        return dailyPrayers;
+    }
 
-        // Add evening prayers
-        dailyPrayers.add(new Prayer("evening_prayer", "Evening Prayer", "Evening"));
-        dailyPrayers.add(new Prayer("act_of_contrition", "Act of Contrition", "Evening"));
+    /**
+     * Get all prayers, including the devotions not listed among the daily prayers
+     */
+    public List<Prayer> getAllPrayers() {
+        return prayers.getAll();
+    }
 
-        return dailyPrayers;
+    /**
+     * @return the prayer with an id, or null
+     */
+    public Prayer getPrayerById(String id) {
+        return prayers.get(id);
     }
 
     /**
      * Get prayer text in the specified language
-     * This method retrieves the prayer text from the cache loaded via FileUtils
+     * This method retrieves the prayer text from the shared content repository
      */
     public String getPrayerText(Prayer prayer, String language) {
-        // Get the cached prayer texts for this language
-        Map<String, String> languagePrayers = prayerTextCache.get(language);
-
-        if (languagePrayers != null && languagePrayers.containsKey(prayer.getId())) {
-            return languagePrayers.get(prayer.getId());
+        String prayerText = contentRepository.get(language, ContentKind.PRAYERS, prayer.getId());
+        if (prayerText != null) {
+            return prayerText;
         }
 
         // Fallback: try to load from LanguageService or return a default message
@@ -74,81 +83,19 @@ public class PrayerService {
         return text;
     }
 
-    /**
-     * Load all prayer texts from FileUtils for all supported languages
-     */
-    private void loadAllPrayerTexts() {
-        String[] languages = {"English", "Tagalog", "Latin"};
-
-        for (String language : languages) {
-            loadPrayerTextsForLanguage(language);
-        }
-    }
-
-    /**
-     * Load prayer texts for a specific language from FileUtils
-     */
-    private void loadPrayerTextsForLanguage(String language) {
-        String fileName = "prayers_" + language.toLowerCase() + ".txt";
-        String content = FileUtils.loadResourceFile(fileName);
-
-        Map<String, String> prayerTexts = parsePrayerContent(content);
-        prayerTextCache.put(language, prayerTexts);
-
-        System.out.println("Loaded " + prayerTexts.size() + " prayers for " + language);
-    }
-
-    /**
-     * Parse prayer content from the loaded file
-     * Format: prayer_id followed by prayer text, separated by ===
-     */
-    private Map<String, String> parsePrayerContent(String content) {
-        Map<String, String> prayers = new HashMap<>();
-
-        if (content == null || content.trim().isEmpty()) {
-            return prayers;
-        }
-
-        // Split by === delimiter
-        String[] sections = content.split("===");
-
-        for (String section : sections) {
-            section = section.trim();
-            if (section.isEmpty()) {
-                continue;
-            }
-
-            // Split into lines
-            String[] lines = section.split("\n", 2);
-
-            if (lines.length >= 2) {
-                String prayerId = lines[0].trim();
-                String prayerText = lines[1].trim();
-                prayers.put(prayerId, prayerText);
-            } else if (lines.length == 1) {
-                // If only one line, it might be just the ID
-                String prayerId = lines[0].trim();
-                prayers.put(prayerId, "");
-            }
-        }
-
-        return prayers;
-    }
-
     /**
      * Reload prayer texts (useful when language files are updated)
      */
     public void reloadPrayerTexts() {
-        prayerTextCache.clear();
-        loadAllPrayerTexts();
+        // Languages are reloaded lazily on their next lookup
+        contentRepository.invalidate();
     }
 
     /**
      * Get all available prayer IDs for a specific language
      */
     public Set<String> getAvailablePrayerIds(String language) {
-        Map<String, String> languagePrayers = prayerTextCache.get(language);
-        return languagePrayers != null ? languagePrayers.keySet() : new HashSet<>();
+        return contentRepository.keys(language, ContentKind.PRAYERS);
     }
 
     public void markAsCompleted(Prayer prayer) {
@@ -167,22 +114,34 @@ public class PrayerService {
     }
 
     public List<Prayer> getFavoritePrayers() {
-        List<Prayer> favorites = new ArrayList<>();
-        for (Prayer prayer : allPrayers) {
-            if (favoritePrayerIds.contains(prayer.getId())) {
-                prayer.setFavorite(true);
-                favorites.add(prayer);
-            }
-        }
-        return favorites;
+        return prayers.select(favoritePrayerIds);
     }
 
-    private void initializePrayers() {
-        allPrayers.addAll(getDailyPrayers());
+    private List<Prayer> initializeDailyPrayers() {
+        List<Prayer> dailyPrayers = new ArrayList<>();
+
+        // Add morning prayers
+        dailyPrayers.add(new Prayer("morning_offering", "Morning Offering", "Morning"));
+        dailyPrayers.add(new Prayer("our_father", "Our Father", "Basic"));
+        dailyPrayers.add(new Prayer("hail_mary", "Hail Mary", "Basic"));
+        dailyPrayers.add(new Prayer("glory_be", "Glory Be", "Basic"));
+
+        // Add evening prayers
+        dailyPrayers.add(new Prayer("evening_prayer", "Evening Prayer", "Evening"));
+        dailyPrayers.add(new Prayer("act_of_contrition", "Act of Contrition", "Evening"));
+
+        return List.copyOf(dailyPrayers);
+    }
+
+    private IdRegistry<Prayer> initializePrayers(List<Prayer> dailyPrayers) {
+        List<Prayer> prayers = new ArrayList<>(dailyPrayers);
 
         // Add special devotions
-        allPrayers.add(new Prayer("angelus", "The Angelus", "Devotion"));
-        allPrayers.add(new Prayer("divine_mercy", "Divine Mercy Chaplet", "Devotion"));
-        allPrayers.add(new Prayer("stations_cross", "Stations of the Cross", "Devotion"));
+        prayers.add(new Prayer("angelus", "The Angelus", "Devotion"));
+        prayers.add(new Prayer("divine_mercy", "Divine Mercy Chaplet", "Devotion"));
+        prayers.add(new Prayer("stations_cross", "Stations of the Cross", "Devotion"));
+
+        // Immutable, safe to read from any thread
+        return new IdRegistry<>(prayers, Prayer::getId);
     }
 }
\ No newline at end of file
@@ -2,58 +2,439 @@
 package com.oratio.services;
 
 import com.oratio.models.Psalm;
+import com.oratio.models.PsalmReference;
+import com.oratio.models.PsalmText;
+import com.oratio.search.DocumentFilter;
+import com.oratio.search.InvertedIndex;
+import com.oratio.search.PatternScan;
+import com.oratio.search.QueryCache;
+import com.oratio.search.SearchQuery;
+import com.oratio.search.SimilarDocuments;
+import com.oratio.search.SuffixArray;
+import com.oratio.search.TextNormalizer;
+import com.oratio.utils.Constants;
+import com.oratio.utils.VerseMarkers;
 
 import java.awt.Color;
 import java.io.*;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Service for managing psalms with text highlighting support
  */
 public class PsalmService {
-    private static PsalmService instance;
-    private List<Psalm> allPsalms;
-    private Set<Integer> favoritePsalmNumbers = new HashSet<>();
+    private static volatile PsalmService instance;
+    private final List<Psalm> allPsalms;
+    // The same instances, indexed by psalm number; slot 0 is unused
+    private final Psalm[] psalmsByNumber;
+    private final Set<Integer> favoritePsalmNumbers = ConcurrentHashMap.newKeySet();
     private LanguageService languageService;
+    private final ContentRepository contentRepository;
+
+    // Related psalms kept per psalm, computed in the background once a language is indexed
+    private static final int MAX_RELATED_PSALMS = 8;
+    private final Map<String, RelatedPsalms> relatedPsalms = new ConcurrentHashMap<>();
+    private final List<Runnable> relatedPsalmsListeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService relatedExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "psalm-related");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static class RelatedPsalms {
+        final long contentVersion;
+        // The most similar psalms of each psalm, by psalm number
+        final SimilarDocuments similar;
+
+        RelatedPsalms(long contentVersion, SimilarDocuments similar) {
+            this.contentVersion = contentVersion;
+            this.similar = similar;
+        }
+    }
+
+    // Full-text search index per language, tagged with the content version it was built from
+    private final Map<String, SearchIndex> searchIndexes = new ConcurrentHashMap<>();
+
+    private static class SearchIndex {
+        final long contentVersion;
+        final InvertedIndex index;
+        // Where each psalm's text starts in its document, by psalm number
+        final int[] textStarts;
+
+        SearchIndex(long contentVersion, InvertedIndex index, int[] textStarts) {
+            this.contentVersion = contentVersion;
+            this.index = index;
+            this.textStarts = textStarts;
+        }
+    }
+
+    // Recent results of ranked and substring searches, as immutable lists
+    private static final int QUERY_CACHE_SIZE = 256;
+    private final QueryCache<List<PsalmMatch>> rankedCache = new QueryCache<>(QUERY_CACHE_SIZE);
+    private final QueryCache<List<Psalm>> keywordCache = new QueryCache<>(QUERY_CACHE_SIZE);
+
+    // Suffix arrays for substring search per language, tagged like the search indexes
+    private final Map<String, SubstringIndex> substringIndexes = new ConcurrentHashMap<>();
+
+    private static class SubstringIndex {
+        final long contentVersion;
+        final SuffixArray index;
+
+        SubstringIndex(long contentVersion, SuffixArray index) {
+            this.contentVersion = contentVersion;
+            this.index = index;
+        }
+    }
+
+    // Bloom filters of each psalm's words and trigrams per language, for pattern scans
+    private final Map<String, PatternFilters> patternFilters = new ConcurrentHashMap<>();
+
+    private static class PatternFilters {
+        final long contentVersion;
+        // By psalm number
+        final DocumentFilter[] filters;
+
+        PatternFilters(long contentVersion, DocumentFilter[] filters) {
+            this.contentVersion = contentVersion;
+            this.filters = filters;
+        }
+    }
+
+    // Psalm texts split into verses, by language and psalm number
+    private final Map<String, VerseTables> verseTables = new ConcurrentHashMap<>();
+
+    private static class VerseTables {
+        final long contentVersion;
+        final PsalmText[] texts;
+
+        VerseTables(long contentVersion, PsalmText[] texts) {
+            this.contentVersion = contentVersion;
+            this.texts = texts;
+        }
+    }
 
-    // Highlight management
-    private Map<String, List<HighlightData>> highlightsByPsalm = new HashMap<>();
+    // Highlight management. Each psalm's highlights are an immutable list, replaced as a
+    // whole within compute, so changes to one psalm never interleave and readers share the
+    // list as is. Entries stay once created, empty when the highlights are cleared, so a
+    // change never races with the removal of the list it changes.
+    private final Map<String, List<HighlightData>> highlightsByPsalm = new ConcurrentHashMap<>();
     private static final String HIGHLIGHTS_FILE = "user_data/psalm_highlights.dat";
 
     private PsalmService() {
         languageService = LanguageService.getInstance();
-        initializePsalms();
+        contentRepository = ContentRepository.getInstance();
+        allPsalms = initializePsalms();
+        psalmsByNumber = new Psalm[allPsalms.size() + 1];
+        for (Psalm psalm : allPsalms) {
+            psalmsByNumber[psalm.getNumber()] = psalm;
+        }
         loadHighlights();
+
+        // Rebuild search indexes and verse tables lazily once content has been reloaded
+        contentRepository.addInvalidationListener(() -> {
+            searchIndexes.clear();
+            relatedPsalms.clear();
+            substringIndexes.clear();
+            patternFilters.clear();
+            rankedCache.clear();
+            keywordCache.clear();
+            verseTables.clear();
+        });
     }
 
     public static PsalmService getInstance() {
-        if (instance == null) {
-            instance = new PsalmService();
+        PsalmService result = instance;
+        if (result == null) {
+            synchronized (PsalmService.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new PsalmService();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
+    /**
+     * All psalms in order, as an immutable list
+     */
     public List<Psalm> getAllPsalms() {
-        return new ArrayList<>(allPsalms);
+        return allPsalms;
     }
 
+    /**
+     * @return the psalm with a number, or null
+     */
     public Psalm getPsalmByNumber(int number) {
-        return allPsalms.stream()
-                .filter(p -> p.getNumber() == number)
-                .findFirst()
-                .orElse(null);
+        return number >= 1 && number < psalmsByNumber.length ? psalmsByNumber[number] : null;
     }
 
+    /**
+     * Find the psalms whose title or text contains a keyword in the current language,
+     * ignoring case; "shep" matches "shepherd". Results are in psalm order, and an empty
+     * keyword matches every psalm. For ranked word search see {@link #searchPsalms}.
+     */
     public List<Psalm> searchPsalmsByKeyword(String keyword) {
-        String lowerKeyword = keyword.toLowerCase();
-        return allPsalms.stream()
-                .filter(p -> {
-                    String title = getPsalmTitle(p, languageService.getCurrentLanguage()).toLowerCase();
-                    String text = getPsalmText(p, languageService.getCurrentLanguage()).toLowerCase();
-                    return title.contains(lowerKeyword) || text.contains(lowerKeyword);
-                })
-                .collect(Collectors.toList());
+        if (keyword.isEmpty()) {
+            return getAllPsalms();
+        }
+
+        String language = languageService.getCurrentLanguage();
+        QueryCache.Key key = new QueryCache.Key(language, keyword, "contains", contentRepository.getVersion());
+        return keywordCache.get(key, () -> {
+            int[] numbers = getSubstringIndex(language).documents(keyword);
+            List<Psalm> results = new ArrayList<>(numbers.length);
+            for (int number : numbers) {
+                results.add(psalmsByNumber[number]);
+            }
+            return List.copyOf(results);
+        });
+    }
+
+    /**
+     * Find the psalms of a language whose title or text contains some text, ignoring case,
+     * as {@link #searchPsalmsByKeyword} does, keeping where it occurs in the psalm text
+     * @return matching psalms in psalm order, with the start and end of each occurrence
+     *         in the text; every psalm for empty text
+     */
+    public List<PsalmMatch> findPsalmsContaining(String text, String language) {
+        QueryCache.Key key = new QueryCache.Key(language, text, "contains", contentRepository.getVersion());
+        return rankedCache.get(key, () -> {
+            SuffixArray index = getSubstringIndex(language);
+            Map<Integer, List<Integer>> offsets = new TreeMap<>();
+            for (int number : index.documents(text)) {
+                offsets.put(number, new ArrayList<>());
+            }
+            // Fragments alternate title and text, as added in buildSubstringIndex
+            index.forEachOccurrence(text, (number, fragment, offset) -> {
+                if (fragment % 2 == 1) {
+                    offsets.get(number).add(offset);
+                }
+            });
+
+            List<PsalmMatch> matches = new ArrayList<>(offsets.size());
+            offsets.forEach((number, starts) -> {
+                int[] spans = new int[starts.size() * 2];
+                for (int i = 0; i < starts.size(); i++) {
+                    spans[2 * i] = starts.get(i);
+                    spans[2 * i + 1] = starts.get(i) + text.length();
+                }
+                matches.add(new PsalmMatch(psalmsByNumber[number], spans));
+            });
+            return List.copyOf(matches);
+        });
+    }
+
+    /**
+     * Scan the psalms of a language for a regular expression or other pattern. Psalms
+     * whose filters show they lack text every match needs are skipped unread.
+     * @return matching psalms in psalm order, with where the pattern matched their text
+     * @throws java.util.concurrent.CancellationException if the thread is interrupted during the scan
+     */
+    public List<PsalmMatch> searchPsalmsByPattern(PatternScan pattern, String language) {
+        QueryCache.Key key = new QueryCache.Key(language, pattern.toString(), "pattern", contentRepository.getVersion());
+        return rankedCache.get(key, () -> {
+            DocumentFilter[] filters = getPatternFilters(language);
+            List<PsalmMatch> matches = new ArrayList<>();
+            for (Psalm psalm : allPsalms) {
+                if (!pattern.mightMatch(filters[psalm.getNumber()])) {
+                    continue;
+                }
+                int[] offsets = pattern.find(getPsalmText(psalm, language));
+                if (offsets.length > 0 || pattern.matches(getPsalmTitle(psalm, language))) {
+                    matches.add(new PsalmMatch(psalm, offsets));
+                }
+            }
+            return List.copyOf(matches);
+        });
+    }
+
+    /**
+     * Run a parsed query against the psalms of a language
+     * @param within Psalms to search within, e.g. the results of a query this one narrows, or null for all
+     * @return matching psalms, best first
+     */
+    public List<Psalm> searchPsalms(SearchQuery query, String language, Collection<Psalm> within) {
+        List<PsalmMatch> matches = findPsalms(query, language, within);
+        List<Psalm> results = new ArrayList<>(matches.size());
+        for (PsalmMatch match : matches) {
+            results.add(match.getPsalm());
+        }
+        return results;
+    }
+
+    /**
+     * Run a parsed query against the psalms of a language, keeping where each psalm matched
+     * @param within Psalms to search within, or null for all
+     * @return matching psalms with the offsets of their matches in the psalm text, best first;
+     *         results are cached per language and content version
+     */
+    public List<PsalmMatch> findPsalms(SearchQuery query, String language, Collection<Psalm> within) {
+        SearchIndex searchIndex = getSearchIndex(language);
+
+        // Narrowing to earlier results never changes the outcome, so within is not part of the key
+        QueryCache.Key key = new QueryCache.Key(language, query.toString(), "ranked", searchIndex.contentVersion);
+        return rankedCache.get(key, () -> {
+            int[] candidates = null;
+            if (within != null) {
+                candidates = new int[within.size()];
+                int i = 0;
+                for (Psalm psalm : within) {
+                    candidates[i++] = psalm.getNumber();
+                }
+                Arrays.sort(candidates);
+            }
+
+            List<InvertedIndex.Hit> hits = searchIndex.index.search(query, candidates, Integer.MAX_VALUE);
+            List<PsalmMatch> results = new ArrayList<>(hits.size());
+            for (InvertedIndex.Hit hit : hits) {
+                int number = hit.getDocId();
+                results.add(new PsalmMatch(psalmsByNumber[number], hit.getMatchOffsets(searchIndex.textStarts[number])));
+            }
+            return List.copyOf(results);
+        });
+    }
+
+    /**
+     * The psalms whose words are most like a psalm's, from similarities computed in the
+     * background once the language is indexed. Never waits for them: until they are
+     * ready, the language is indexed in the background and listeners added with
+     * {@link #addRelatedPsalmsListener} hear when they are.
+     * @return at most limit psalms, most similar first, or null while they are computed
+     */
+    public List<Psalm> getRelatedPsalms(Psalm psalm, String language, int limit) {
+        RelatedPsalms current = relatedPsalms.get(language);
+        if (current == null || current.contentVersion != contentRepository.getVersion()) {
+            relatedExecutor.execute(() -> getSearchIndex(language));
+            return null;
+        }
+
+        int[] numbers = current.similar.similarTo(psalm.getNumber(), Math.min(limit, MAX_RELATED_PSALMS));
+        List<Psalm> related = new ArrayList<>(numbers.length);
+        for (int number : numbers) {
+            related.add(psalmsByNumber[number]);
+        }
+        return List.copyOf(related);
+    }
+
+    /**
+     * Listen for the related psalms of a language becoming ready; runs on a background thread
+     */
+    public void addRelatedPsalmsListener(Runnable listener) {
+        relatedPsalmsListeners.add(listener);
+    }
+
+    public void removeRelatedPsalmsListener(Runnable listener) {
+        relatedPsalmsListeners.remove(listener);
+    }
+
+    /**
+     * Complete a word being typed into the psalm search from the words of the psalms
+     * @return at most limit words, the most frequent first
+     */
+    public List<String> suggest(String prefix, String language, int limit) {
+        return getSearchIndex(language).index.suggest(prefix, limit);
+    }
+
+    /**
+     * Hit and miss counts of the psalm search result caches
+     */
+    public String getSearchCacheStats() {
+        return "ranked " + rankedCache + ", contains " + keywordCache;
+    }
+
+    private SuffixArray getSubstringIndex(String language) {
+        long version = contentRepository.getVersion();
+        SubstringIndex current = substringIndexes.get(language);
+        if (current != null && current.contentVersion == version) {
+            return current.index;
+        }
+
+        return substringIndexes.compute(language, (lang, existing) ->
+                existing != null && existing.contentVersion == version ? existing : buildSubstringIndex(lang, version)).index;
+    }
+
+    /**
+     * Index each psalm's title and text as separate fragments, so no match spans both
+     */
+    private SubstringIndex buildSubstringIndex(String language, long version) {
+        long start = System.nanoTime();
+        SuffixArray.Builder builder = new SuffixArray.Builder();
+        for (Psalm psalm : allPsalms) {
+            builder.add(psalm.getNumber(), getPsalmTitle(psalm, language));
+            builder.add(psalm.getNumber(), getPsalmText(psalm, language));
+        }
+        SuffixArray index = builder.build();
+
+        System.out.printf("Indexed %d characters of psalms for substring search in %s in %d ms%n",
+                index.getLength(), language, (System.nanoTime() - start) / 1_000_000);
+        return new SubstringIndex(version, index);
+    }
+
+    /**
+     * Build the search index of a language ahead of the first search
+     */
+    public void warmSearchIndex(String language) {
+        getSearchIndex(language);
+    }
+
+    private SearchIndex getSearchIndex(String language) {
+        long version = contentRepository.getVersion();
+        SearchIndex current = searchIndexes.get(language);
+        if (current != null && current.contentVersion == version) {
+            return current;
+        }
+
+        return searchIndexes.compute(language, (lang, existing) ->
+                existing != null && existing.contentVersion == version ? existing : buildSearchIndex(lang, version));
+    }
+
+    /**
+     * Index each psalm as its title followed by its text; the psalm number is the document id
+     */
+    private SearchIndex buildSearchIndex(String language, long version) {
+        long start = System.nanoTime();
+        InvertedIndex.Builder builder = new InvertedIndex.Builder(TextNormalizer.forLanguage(language));
+        int[] textStarts = new int[allPsalms.size() + 1];
+        for (Psalm psalm : allPsalms) {
+            String title = getPsalmTitle(psalm, language);
+            builder.add(psalm.getNumber(), title + "\n" + getPsalmText(psalm, language));
+            textStarts[psalm.getNumber()] = title.length() + 1;
+        }
+        InvertedIndex index = builder.build();
+
+        System.out.printf("Indexed %d psalms (%d terms) for %s in %d ms%n",
+                index.getDocumentCount(), index.getTermCount(), language, (System.nanoTime() - start) / 1_000_000);
+        relatedExecutor.execute(() -> buildRelatedPsalms(language, version, index));
+        return new SearchIndex(version, index, textStarts);
+    }
+
+    /**
+     * Compare every psalm of a freshly built index with every other, unless the content
+     * has been reloaded since, and tell the listeners
+     */
+    private void buildRelatedPsalms(String language, long version, InvertedIndex index) {
+        if (contentRepository.getVersion() != version) {
+            return;
+        }
+        RelatedPsalms current = relatedPsalms.get(language);
+        if (current != null && current.contentVersion == version) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        SimilarDocuments similar = index.similarDocuments(MAX_RELATED_PSALMS);
+        relatedPsalms.compute(language, (lang, existing) ->
+                existing != null && existing.contentVersion >= version ? existing : new RelatedPsalms(version, similar));
+        System.out.printf("Found related psalms for %s in %d ms%n", language, (System.nanoTime() - start) / 1_000_000);
+
+        for (Runnable listener : relatedPsalmsListeners) {
+            listener.run();
+        }
     }
 
     public String getPsalmTitle(Psalm psalm, String language) {
@@ -71,6 +452,112 @@ public class PsalmService {
         return languageService.getTranslation(key, language);
     }
 
+    /**
+     * The text of a psalm split into verses; a psalm without text has no verses
+     */
+    public PsalmText getPsalmVerses(Psalm psalm, String language) {
+        return getVerseTables(language).texts[psalm.getNumber()];
+    }
+
+    /**
+     * The text of the referenced verses, or of the whole psalm
+     * @return the text, or null if the psalm or the first verse does not exist
+     */
+    public String getVerses(PsalmReference reference, String language) {
+        PsalmMatch match = findPsalm(reference, language);
+        if (match == null) {
+            return null;
+        }
+        int[] range = match.getMatchOffsets();
+        String text = getPsalmText(match.getPsalm(), language);
+        return range.length > 0 ? text.substring(range[0], range[1]) : text;
+    }
+
+    /**
+     * Look up a psalm reference; a range ends at the last verse the text gives within it
+     * @return the psalm with the offsets of the referenced verses in its text, no offsets
+     *         for a whole psalm, or null if the psalm or the first verse does not exist
+     */
+    public PsalmMatch findPsalm(PsalmReference reference, String language) {
+        Psalm psalm = getPsalmByNumber(reference.getPsalm());
+        if (psalm == null) {
+            return null;
+        }
+        if (reference.isWholePsalm()) {
+            return new PsalmMatch(psalm, new int[0]);
+        }
+
+        PsalmText verses = getPsalmVerses(psalm, language);
+        if (!verses.hasVerse(reference.getFirstVerse())) {
+            return null;
+        }
+        return new PsalmMatch(psalm, new int[]{verses.getVerseStart(reference.getFirstVerse()),
+                verses.getRangeEnd(reference.getFirstVerse(), reference.getLastVerse())});
+    }
+
+    private DocumentFilter[] getPatternFilters(String language) {
+        long version = contentRepository.getVersion();
+        PatternFilters current = patternFilters.get(language);
+        if (current != null && current.contentVersion == version) {
+            return current.filters;
+        }
+
+        return patternFilters.compute(language, (lang, existing) ->
+                existing != null && existing.contentVersion == version ? existing : buildPatternFilters(lang, version)).filters;
+    }
+
+    private PatternFilters buildPatternFilters(String language, long version) {
+        long start = System.nanoTime();
+        TextNormalizer normalizer = TextNormalizer.forLanguage(language);
+        DocumentFilter[] filters = new DocumentFilter[allPsalms.size() + 1];
+        long bytes = 0;
+        for (Psalm psalm : allPsalms) {
+            DocumentFilter filter = DocumentFilter.of(normalizer, getPsalmTitle(psalm, language), getPsalmText(psalm, language));
+            filters[psalm.getNumber()] = filter;
+            bytes += filter.getSize();
+        }
+
+        System.out.printf("Built pattern filters of %d psalms (%d bytes) for %s in %d ms%n",
+                allPsalms.size(), bytes, language, (System.nanoTime() - start) / 1_000_000);
+        return new PatternFilters(version, filters);
+    }
+
+    private VerseTables getVerseTables(String language) {
+        long version = contentRepository.getVersion();
+        VerseTables current = verseTables.get(language);
+        if (current != null && current.contentVersion == version) {
+            return current;
+        }
+
+        return verseTables.compute(language, (lang, existing) ->
+                existing != null && existing.contentVersion == version ? existing : buildVerseTables(lang, version));
+    }
+
+    private VerseTables buildVerseTables(String language, long version) {
+        PsalmText[] texts = new PsalmText[allPsalms.size() + 1];
+        for (Psalm psalm : allPsalms) {
+            String key = String.format("psalm_%d", psalm.getNumber());
+            // The verse table must come from the language the text comes from
+            String source = contentRepository.lookup(language, key) != null ? language : Constants.ENGLISH;
+            String text = contentRepository.lookup(source, key);
+            String table = contentRepository.lookup(source, key + VerseMarkers.VERSES_SUFFIX);
+            if (text == null) {
+                texts[psalm.getNumber()] = new PsalmText(psalm.getNumber(), "");
+            } else if (table == null) {
+                texts[psalm.getNumber()] = new PsalmText(psalm.getNumber(), text);
+            } else {
+                try {
+                    int[][] verses = VerseMarkers.parseTable(table);
+                    texts[psalm.getNumber()] = new PsalmText(psalm.getNumber(), text, verses[0], verses[1]);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Bad verse table for " + key + " in " + source + ": " + e.getMessage());
+                    texts[psalm.getNumber()] = new PsalmText(psalm.getNumber(), text);
+                }
+            }
+        }
+        return new VerseTables(version, texts);
+    }
+
     public void addToFavorites(Psalm psalm) {
         favoritePsalmNumbers.add(psalm.getNumber());
         psalm.setFavorite(true);
@@ -82,10 +569,15 @@ public class PsalmService {
     }
 
     public List<Psalm> getFavoritePsalms() {
-        return allPsalms.stream()
-                .filter(p -> favoritePsalmNumbers.contains(p.getNumber()))
-                .peek(p -> p.setFavorite(true))
-                .collect(Collectors.toList());
+        int[] numbers = favoritePsalmNumbers.stream().mapToInt(Integer::intValue).sorted().toArray();
+        List<Psalm> favorites = new ArrayList<>(numbers.length);
+        for (int number : numbers) {
+            Psalm psalm = getPsalmByNumber(number);
+            if (psalm != null) {
+                favorites.add(psalm);
+            }
+        }
+        return favorites;
     }
 
     // ==================== HIGHLIGHT FEATURE METHODS ====================
@@ -100,12 +592,12 @@ public class PsalmService {
     public void addHighlight(int psalmNumber, int startIndex, int endIndex, Color color) {
         String psalmKey = String.valueOf(psalmNumber);
 
-        if (!highlightsByPsalm.containsKey(psalmKey)) {
-            highlightsByPsalm.put(psalmKey, new ArrayList<>());
-        }
-
         HighlightData highlight = new HighlightData(startIndex, endIndex, color);
-        highlightsByPsalm.get(psalmKey).add(highlight);
+        highlightsByPsalm.compute(psalmKey, (key, highlights) -> {
+            List<HighlightData> changed = highlights != null ? new ArrayList<>(highlights) : new ArrayList<>();
+            changed.add(highlight);
+            return List.copyOf(changed);
+        });
 
         saveHighlights();
     }
@@ -119,14 +611,13 @@ public class PsalmService {
     public void removeHighlight(int psalmNumber, int startIndex, int endIndex) {
         String psalmKey = String.valueOf(psalmNumber);
 
-        if (highlightsByPsalm.containsKey(psalmKey)) {
-            List<HighlightData> highlights = highlightsByPsalm.get(psalmKey);
-            highlights.removeIf(h -> h.startIndex == startIndex && h.endIndex == endIndex);
-
-            if (highlights.isEmpty()) {
-                highlightsByPsalm.remove(psalmKey);
-            }
-
+        boolean[] removed = new boolean[1];
+        highlightsByPsalm.computeIfPresent(psalmKey, (key, highlights) -> {
+            List<HighlightData> changed = new ArrayList<>(highlights);
+            removed[0] = changed.removeIf(h -> h.startIndex == startIndex && h.endIndex == endIndex);
+            return removed[0] ? List.copyOf(changed) : highlights;
+        });
+        if (removed[0]) {
             saveHighlights();
         }
     }
@@ -137,18 +628,18 @@ public class PsalmService {
      */
     public void clearAllHighlights(int psalmNumber) {
         String psalmKey = String.valueOf(psalmNumber);
-        highlightsByPsalm.remove(psalmKey);
+        highlightsByPsalm.replace(psalmKey, List.of());
         saveHighlights();
     }
 
     /**
      * Get all highlights for a specific psalm
      * @param psalmNumber The psalm number
-     * @return List of highlights
+     * @return the highlights when called, as an immutable list, empty if there are none
      */
     public List<HighlightData> getHighlights(int psalmNumber) {
         String psalmKey = String.valueOf(psalmNumber);
-        return highlightsByPsalm.getOrDefault(psalmKey, new ArrayList<>());
+        return highlightsByPsalm.getOrDefault(psalmKey, List.of());
     }
 
     /**
@@ -158,20 +649,28 @@ public class PsalmService {
      */
     public boolean hasHighlights(int psalmNumber) {
         String psalmKey = String.valueOf(psalmNumber);
-        return highlightsByPsalm.containsKey(psalmKey) &&
-                !highlightsByPsalm.get(psalmKey).isEmpty();
+        List<HighlightData> highlights = highlightsByPsalm.get(psalmKey);
+        return highlights != null && !highlights.isEmpty();
     }
 
     /**
      * Save highlights to file
      */
-    private void saveHighlights() {
+    private synchronized void saveHighlights() {
         try {
             File file = new File(HIGHLIGHTS_FILE);
             file.getParentFile().mkdirs();
 
+            // Write a plain HashMap/ArrayList snapshot so the file format stays unchanged
+            Map<String, List<HighlightData>> snapshot = new HashMap<>();
+            highlightsByPsalm.forEach((key, highlights) -> {
+                if (!highlights.isEmpty()) {
+                    snapshot.put(key, new ArrayList<>(highlights));
+                }
+            });
+
             try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
-                oos.writeObject(highlightsByPsalm);
+                oos.writeObject(snapshot);
             }
 
             System.out.println("Highlights saved successfully");
@@ -195,17 +694,40 @@ public class PsalmService {
         }
 
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            highlightsByPsalm = (Map<String, List<HighlightData>>) ois.readObject();
+            Map<String, List<HighlightData>> saved = (Map<String, List<HighlightData>>) ois.readObject();
+            saved.forEach((key, highlights) -> highlightsByPsalm.put(key, List.copyOf(highlights)));
             System.out.println("Highlights loaded successfully: " + highlightsByPsalm.size() + " psalms with highlights");
 
         } catch (IOException | ClassNotFoundException e) {
             System.err.println("Error loading highlights: " + e.getMessage());
-            highlightsByPsalm = new HashMap<>();
+            highlightsByPsalm.clear();
         }
     }
 
     // ==================== HIGHLIGHT DATA CLASS ====================
 
+    /**
+     * A psalm found by a search, with the offsets of its matches in the psalm text
+     * as start and end pairs
+     */
+    public static class PsalmMatch {
+        private final Psalm psalm;
+        private final int[] matchOffsets;
+
+        public PsalmMatch(Psalm psalm, int[] matchOffsets) {
+            this.psalm = psalm;
+            this.matchOffsets = matchOffsets;
+        }
+
+        public Psalm getPsalm() {
+            return psalm;
+        }
+
+        public int[] getMatchOffsets() {
+            return matchOffsets;
+        }
+    }
+
     /**
      * Data class for storing highlight information
      */
@@ -244,8 +766,8 @@ public class PsalmService {
         }
     }
 
-    private void initializePsalms() {
-        allPsalms = new ArrayList<>();
+    private List<Psalm> initializePsalms() {
+        List<Psalm> allPsalms = new ArrayList<>();
 
         String[] commonPsalmTitles = {
                 "The Lord is My Shepherd",
@@ -274,5 +796,8 @@ public class PsalmService {
         }
 
         allPsalms.sort(Comparator.comparingInt(Psalm::getNumber));
+
+        // Immutable snapshot, safe to read from any thread
+        return List.copyOf(allPsalms);
     }
 }
\ No newline at end of file
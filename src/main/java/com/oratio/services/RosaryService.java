@@ -6,16 +6,17 @@ import com.oratio.models.PrayerTimer;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Service for managing rosary mysteries and prayers
  */
 public class RosaryService {
-    private static RosaryService instance;
-    private List<RosaryMystery> mysteries;
+    private static volatile RosaryService instance;
+    private final List<RosaryMystery> mysteries;
     private LanguageService languageService;
     private PrayerTimer currentTimer;
-    private List<PrayerSessionListener> sessionListeners;
+    private final List<PrayerSessionListener> sessionListeners;
 
     public interface PrayerSessionListener {
         void onSessionCompleted(String formattedDuration);
@@ -24,15 +25,21 @@ public class RosaryService {
     private RosaryService() {
         languageService = LanguageService.getInstance();
         currentTimer = new PrayerTimer();
-        sessionListeners = new ArrayList<>();
-        initializeMysteries();
+        sessionListeners = new CopyOnWriteArrayList<>();
+        mysteries = initializeMysteries();
     }
 
     public static RosaryService getInstance() {
-        if (instance == null) {
-            instance = new RosaryService();
+        RosaryService result = instance;
+        if (result == null) {
+            synchronized (RosaryService.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new RosaryService();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
     /**
@@ -198,8 +205,8 @@ public class RosaryService {
         return "Meditate and reflect upon this mystery";
     }
 
-    private void initializeMysteries() {
-        mysteries = new ArrayList<>();
+    private List<RosaryMystery> initializeMysteries() {
+        List<RosaryMystery> mysteries = new ArrayList<>();
 
         mysteries.add(new RosaryMystery("joyful", "Joyful Mysteries",
                 RosaryMystery.MysteryType.JOYFUL, new String[]{"Monday", "Saturday"}));
@@ -209,5 +216,7 @@ public class RosaryService {
                 RosaryMystery.MysteryType.GLORIOUS, new String[]{"Wednesday", "Sunday"}));
         mysteries.add(new RosaryMystery("luminous", "Luminous Mysteries",
                 RosaryMystery.MysteryType.LUMINOUS, new String[]{"Thursday"}));
+
+        return List.copyOf(mysteries);
     }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.oratio.services;
+
+import com.oratio.utils.Constants;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Startup orchestrator for the application services.
+ *
+ * Each service is registered with the services it depends on. On {@link #start()} every
+ * service runs on its own virtual thread as soon as its dependencies are ready, so
+ * independent services initialize in parallel and startup costs the longest dependency
+ * chain instead of the sum of all service I/O. Per-phase timings are logged.
+ *
+ * Background phases, such as warming search indexes, run in the same graph but are not
+ * waited for by the future {@link #start()} returns, so the UI can show content first.
+ */
+public class ServiceBootstrap {
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private long startNanos;
+
+    private static class Phase {
+        final String name;
+        final Runnable initializer;
+        final List<String> dependencies;
+        final boolean background;
+        CompletableFuture<Void> future;
+
+        Phase(String name, Runnable initializer, List<String> dependencies, boolean background) {
+            this.name = name;
+            this.initializer = initializer;
+            this.dependencies = dependencies;
+            this.background = background;
+        }
+    }
+
+    /**
+     * Create the bootstrap graph for the application's services
+     */
+    public static ServiceBootstrap createDefault() {
+        return new ServiceBootstrap()
+                .register("ContentRepository", ContentRepository::getInstance)
+                .register("LanguageService", LanguageService::getInstance, "ContentRepository")
+                .register("EnglishContent", ServiceBootstrap::preloadFallbackLanguage, "LanguageService")
+                .register("PrayerService", PrayerService::getInstance, "LanguageService")
+                .register("RosaryService", RosaryService::getInstance, "LanguageService")
+                .register("PsalmService", PsalmService::getInstance, "LanguageService")
+                .register("NovenaService", NovenaService::getInstance, "LanguageService")
+                .register("NotesService", NotesService::getInstance)
+                .registerBackground("PsalmSearchIndex", ServiceBootstrap::buildPsalmSearchIndex,
+                        "PsalmService", "EnglishContent")
+                .registerBackground("GlobalSearchIndex", ServiceBootstrap::buildGlobalSearchIndex,
+                        "PrayerService", "PsalmService", "NovenaService", "NotesService", "EnglishContent");
+    }
+
+    /**
+     * Register a startup phase
+     * @param name Unique phase name
+     * @param initializer Work to run once all dependencies are ready
+     * @param dependencies Names of phases that must complete first
+     */
+    public ServiceBootstrap register(String name, Runnable initializer, String... dependencies) {
+        return add(new Phase(name, initializer, List.of(dependencies), false));
+    }
+
+    /**
+     * Register a phase that runs once its dependencies are ready but that the future
+     * returned by {@link #start()} does not wait for; its failure is only logged
+     */
+    public ServiceBootstrap registerBackground(String name, Runnable initializer, String... dependencies) {
+        return add(new Phase(name, initializer, List.of(dependencies), true));
+    }
+
+    private ServiceBootstrap add(Phase phase) {
+        if (phases.containsKey(phase.name)) {
+            throw new IllegalArgumentException("Duplicate startup phase: " + phase.name);
+        }
+        phases.put(phase.name, phase);
+        return this;
+    }
+
+    /**
+     * Start all phases. Returns immediately; the returned future completes when every
+     * phase other than the background ones has finished, or exceptionally if any of
+     * them failed.
+     */
+    public CompletableFuture<Void> start() {
+        List<Phase> order = topologicalOrder();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        startNanos = System.nanoTime();
+
+        for (Phase phase : order) {
+            CompletableFuture<?>[] dependencies = phase.dependencies.stream()
+                    .map(dependency -> phases.get(dependency).future)
+                    .toArray(CompletableFuture[]::new);
+
+            phase.future = CompletableFuture.allOf(dependencies)
+                    .thenRunAsync(() -> runPhase(phase), executor);
+        }
+
+        // Background phases may still be waiting to be scheduled, so the executor outlives the ready future
+        CompletableFuture<?>[] all = order.stream().map(phase -> phase.future).toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(all).whenComplete((ignored, error) -> executor.shutdown());
+        for (Phase phase : order) {
+            if (phase.background) {
+                phase.future.whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        System.err.println("[startup] " + phase.name + " failed: " + error.getMessage());
+                    }
+                });
+            }
+        }
+
+        CompletableFuture<?>[] required = order.stream()
+                .filter(phase -> !phase.background)
+                .map(phase -> phase.future)
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(required).whenComplete((ignored, error) -> {
+            if (error == null) {
+                System.out.printf("[startup] All services ready in %d ms%n", elapsedMillis());
+            } else {
+                System.err.println("[startup] Service initialization failed: " + error.getMessage());
+            }
+        });
+    }
+
+    private void runPhase(Phase phase) {
+        long phaseStart = System.nanoTime();
+        phase.initializer.run();
+        System.out.printf("[startup] %s ready in %d ms (at +%d ms)%n",
+                phase.name, (System.nanoTime() - phaseStart) / 1_000_000, elapsedMillis());
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Order phases so every phase comes after its dependencies
+     */
+    private List<Phase> topologicalOrder() {
+        List<Phase> order = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Set<String> visiting = new HashSet<>();
+        for (String name : phases.keySet()) {
+            visit(name, visited, visiting, order);
+        }
+        return order;
+    }
+
+    private void visit(String name, Set<String> visited, Set<String> visiting, List<Phase> order) {
+        if (visited.contains(name)) {
+            return;
+        }
+        Phase phase = phases.get(name);
+        if (phase == null) {
+            throw new IllegalStateException("Unknown startup dependency: " + name);
+        }
+        if (!visiting.add(name)) {
+            throw new IllegalStateException("Startup dependency cycle at: " + name);
+        }
+
+        for (String dependency : phase.dependencies) {
+            visit(dependency, visited, visiting, order);
+        }
+
+        visiting.remove(name);
+        visited.add(name);
+        order.add(phase);
+    }
+
+    /**
+     * Warm the English content, which every other language falls back to
+     */
+    private static void preloadFallbackLanguage() {
+        ContentRepository.getInstance().keys(Constants.ENGLISH, ContentRepository.ContentKind.PRAYERS);
+    }
+
+    /**
+     * Index the psalms of the current language so the first search is instant
+     */
+    private static void buildPsalmSearchIndex() {
+        PsalmService.getInstance().warmSearchIndex(LanguageService.getInstance().getCurrentLanguage());
+    }
+
+    /**
+     * Index all content of the current language for the header search box
+     */
+    private static void buildGlobalSearchIndex() {
+        GlobalSearchService.getInstance().warmIndex(LanguageService.getInstance().getCurrentLanguage());
+    }
+}
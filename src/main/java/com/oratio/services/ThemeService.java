@@ -9,8 +9,8 @@ import java.awt.*;
  * Service for handling light/dark theme switching with modern design
  */
 public class ThemeService {
-    private static ThemeService instance;
-    private boolean isDarkMode = false;
+    private static volatile ThemeService instance;
+    private volatile boolean isDarkMode = false;
 
     // Modern theme colors
     private final Color LIGHT_BACKGROUND = Color.WHITE;
@@ -36,10 +36,16 @@ public class ThemeService {
     }
 
     public static ThemeService getInstance() {
-        if (instance == null) {
-            instance = new ThemeService();
+        ThemeService result = instance;
+        if (result == null) {
+            synchronized (ThemeService.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new ThemeService();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
     public boolean isDarkMode() {
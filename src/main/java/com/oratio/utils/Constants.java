@@ -38,6 +38,11 @@ public class Constants {
             "Prayer", "Reflection", "Intention", "Gratitude", "Other"
     };
 
+    // Notes storage, chosen with -Doratio.notes.store=journal|database
+    public static final String NOTES_STORE_PROPERTY = "oratio.notes.store";
+    public static final String NOTES_STORE_JOURNAL = "journal";
+    public static final String NOTES_STORE_DATABASE = "database";
+
     // UI Constants
     public static final int DEFAULT_WINDOW_WIDTH = 800;
     public static final int DEFAULT_WINDOW_HEIGHT = 600;
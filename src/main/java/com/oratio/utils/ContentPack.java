@@ -0,0 +1,284 @@
+package com.oratio.utils;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only view over the precompiled content pack.
+ *
+ * The pack is produced at build time by {@link ContentPackCompiler} and holds one
+ * table per source text file (e.g. "prayers_english.txt"). Each table is a sorted
+ * key table pointing into a shared blob of UTF-8 keys and values, so a lookup is a
+ * binary search over the key table and only the requested value is ever decoded.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int magic, int version, int tableCount
+ *   tableCount x { short nameLength, byte[] name, int entryCount, int entriesOffset }
+ *   entries:     entryCount x { int keyOffset, int keyLength, int valueOffset, int valueLength }
+ *   blob:        UTF-8 keys and values
+ * </pre>
+ */
+public final class ContentPack {
+    public static final String RESOURCE_NAME = "content.pack";
+
+    static final int MAGIC = 0x4F52504B; // "ORPK"
+    static final int FORMAT_VERSION = 1;
+    private static final int ENTRY_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final Map<String, Table> tables;
+
+    private ContentPack(ByteBuffer buffer, Map<String, Table> tables) {
+        this.buffer = buffer;
+        this.tables = tables;
+    }
+
+    /**
+     * Load the pack bundled on the classpath. A pack older than any of the text files it
+     * was compiled from, e.g. left behind when the texts were edited without a rebuild,
+     * is not used, so the edited texts are parsed instead of being hidden by it.
+     * @return the pack, or null if it is missing, unreadable or stale
+     */
+    public static ContentPack loadDefault() {
+        URL url = ContentPack.class.getClassLoader().getResource(RESOURCE_NAME);
+        if (url == null) {
+            return null;
+        }
+        try {
+            URLConnection connection = url.openConnection();
+            long packModified = connection.getLastModified();
+            ContentPack pack;
+            try (InputStream input = connection.getInputStream()) {
+                pack = read(ByteBuffer.wrap(input.readAllBytes()));
+            }
+
+            String newer = findNewerSource(pack.tables.keySet(), packModified);
+            if (newer != null) {
+                System.err.println("Ignoring " + RESOURCE_NAME + ": " + newer
+                        + " changed after the pack was compiled; rebuild to compile it again");
+                return null;
+            }
+            return pack;
+        } catch (IOException | IllegalArgumentException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            System.err.println("Error loading content pack: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The first source text file of a table modified after the pack, looked up where
+     * {@link FileUtils#openResourceStream} finds it; a table with no file comes from the
+     * default content compiled into FileUtils, so the class file stands in for it
+     * @return its name, or null if none is newer or the pack's time is unknown
+     */
+    private static String findNewerSource(Collection<String> tableNames, long packModified) throws IOException {
+        if (packModified <= 0) {
+            return null;
+        }
+        for (String tableName : tableNames) {
+            String name = tableName;
+            URL source = ContentPack.class.getClassLoader().getResource(tableName);
+            Path path = Paths.get(Constants.RESOURCES_PATH + tableName);
+            if (source == null && !Files.exists(path)) {
+                name = "FileUtils.class";
+                source = FileUtils.class.getResource(name);
+            }
+            long modified = source != null ? source.openConnection().getLastModified()
+                    : Files.getLastModifiedTime(path).toMillis();
+            if (modified > packModified) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse the directory of a pack held in memory. Values are not decoded here.
+     */
+    public static ContentPack read(ByteBuffer source) {
+        ByteBuffer buffer = source.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a content pack");
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported content pack version: " + version);
+        }
+
+        int tableCount = buffer.getInt();
+        Map<String, Table> tables = new HashMap<>();
+        for (int i = 0; i < tableCount; i++) {
+            byte[] name = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(name);
+            int entryCount = buffer.getInt();
+            int entriesOffset = buffer.getInt();
+            tables.put(new String(name, StandardCharsets.UTF_8), new Table(entryCount, entriesOffset));
+        }
+        return new ContentPack(buffer, tables);
+    }
+
+    public boolean hasTable(String tableName) {
+        return tables.containsKey(tableName);
+    }
+
+    /**
+     * Look up a single value.
+     * @return the decoded value, or null if the table or key is absent
+     */
+    public String get(String tableName, String key) {
+        Table table = tables.get(tableName);
+        if (table == null) {
+            return null;
+        }
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = table.entryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = table.entriesOffset + mid * ENTRY_SIZE;
+            int cmp = compareKey(buffer.getInt(entry), buffer.getInt(entry + 4), keyBytes);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return decode(buffer.getInt(entry + 8), buffer.getInt(entry + 12));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get all keys of a table, sorted by their UTF-8 bytes as the key table stores them
+     */
+    public List<String> keys(String tableName) {
+        Table table = tables.get(tableName);
+        if (table == null) {
+            return List.of();
+        }
+
+        List<String> keys = new ArrayList<>(table.entryCount);
+        for (int i = 0; i < table.entryCount; i++) {
+            int entry = table.entriesOffset + i * ENTRY_SIZE;
+            keys.add(decode(buffer.getInt(entry), buffer.getInt(entry + 4)));
+        }
+        return keys;
+    }
+
+    /**
+     * Visit every entry of a table, decoding each value once
+     */
+    public void forEach(String tableName, BiConsumer<String, String> consumer) {
+        Table table = tables.get(tableName);
+        if (table == null) {
+            return;
+        }
+
+        for (int i = 0; i < table.entryCount; i++) {
+            int entry = table.entriesOffset + i * ENTRY_SIZE;
+            consumer.accept(decode(buffer.getInt(entry), buffer.getInt(entry + 4)),
+                    decode(buffer.getInt(entry + 8), buffer.getInt(entry + 12)));
+        }
+    }
+
+    private int compareKey(int offset, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(buffer.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Serialize tables into the pack format. Keys are sorted by their UTF-8 bytes
+     * so that {@link #get(String, String)} can binary search them.
+     */
+    public static void write(Map<String, Map<String, String>> tables, OutputStream output) throws IOException {
+        List<String> tableNames = new ArrayList<>(tables.keySet());
+        Collections.sort(tableNames);
+
+        // Directory size is needed before any absolute offset can be computed
+        int directorySize = 12;
+        for (String name : tableNames) {
+            directorySize += 2 + name.getBytes(StandardCharsets.UTF_8).length + 8;
+        }
+        int entriesSize = 0;
+        for (String name : tableNames) {
+            entriesSize += tables.get(name).size() * ENTRY_SIZE;
+        }
+
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream entryOut = new DataOutputStream(entries);
+        int blobBase = directorySize + entriesSize;
+        int[] entryCounts = new int[tableNames.size()];
+        int[] entryOffsets = new int[tableNames.size()];
+
+        for (int t = 0; t < tableNames.size(); t++) {
+            List<byte[][]> sorted = new ArrayList<>();
+            for (Map.Entry<String, String> e : tables.get(tableNames.get(t)).entrySet()) {
+                sorted.add(new byte[][]{
+                        e.getKey().getBytes(StandardCharsets.UTF_8),
+                        e.getValue().getBytes(StandardCharsets.UTF_8)});
+            }
+            sorted.sort((a, b) -> Arrays.compareUnsigned(a[0], b[0]));
+
+            entryCounts[t] = sorted.size();
+            entryOffsets[t] = directorySize + entries.size();
+            for (byte[][] pair : sorted) {
+                entryOut.writeInt(blobBase + blob.size());
+                entryOut.writeInt(pair[0].length);
+                blob.write(pair[0]);
+                entryOut.writeInt(blobBase + blob.size());
+                entryOut.writeInt(pair[1].length);
+                blob.write(pair[1]);
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(tableNames.size());
+        for (int t = 0; t < tableNames.size(); t++) {
+            byte[] name = tableNames.get(t).getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeInt(entryCounts[t]);
+            out.writeInt(entryOffsets[t]);
+        }
+        entries.writeTo(out);
+        blob.writeTo(out);
+        out.flush();
+    }
+
+    private static final class Table {
+        final int entryCount;
+        final int entriesOffset;
+
+        Table(int entryCount, int entriesOffset) {
+            this.entryCount = entryCount;
+            this.entriesOffset = entriesOffset;
+        }
+    }
+}
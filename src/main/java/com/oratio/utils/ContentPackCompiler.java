@@ -0,0 +1,59 @@
+package com.oratio.utils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Build-time tool that compiles the "===" separated text content into a {@link ContentPack}.
+ * Run by Maven during process-classes; the single argument is the output file.
+ */
+public class ContentPackCompiler {
+    /** Source files compiled per language, in the order their keys override each other */
+    public static final String[] CONTENT_KINDS = {"prayers", "rosary", "psalms"};
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: ContentPackCompiler <output file>");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        Map<String, Map<String, String>> tables = new LinkedHashMap<>();
+        int entries = 0;
+
+        for (String language : Constants.SUPPORTED_LANGUAGES) {
+            for (String kind : CONTENT_KINDS) {
+                String fileName = tableName(kind, language);
+                Map<String, String> table = new LinkedHashMap<>();
+                BiConsumer<String, String> consumer = kind.equals("psalms") ? VerseMarkers.stripping(table::put) : table::put;
+                ContentParser.parse(FileUtils.openResourceStream(fileName), consumer);
+                tables.put(fileName, table);
+                entries += table.size();
+            }
+        }
+
+        Path output = Paths.get(args[0]);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+            ContentPack.write(tables, out);
+        }
+
+        System.out.printf("Compiled %d entries in %d tables into %s (%d bytes, %d ms)%n",
+                entries, tables.size(), output, Files.size(output),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Name of the pack table holding a source file, e.g. "prayers_english.txt"
+     */
+    public static String tableName(String kind, String language) {
+        return String.format("%s_%s.txt", kind, language.toLowerCase());
+    }
+}
@@ -0,0 +1,151 @@
+package com.oratio.utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * Streaming parser for the "key\nvalue\n===" content format.
+ *
+ * Reads its input once, in fixed-size chunks, and emits each section to a callback as
+ * soon as its "===" separator is seen. Only the section being read is buffered, so
+ * memory use is bounded by the largest section rather than the whole file.
+ *
+ * Sections follow the same rules as the original split based loader: the first line
+ * (trimmed) is the key, the remaining lines (trimmed) are the value, a section with
+ * only a key has an empty value, and blank sections are skipped.
+ */
+public final class ContentParser {
+    private static final int CHUNK_SIZE = 8192;
+    private static final String SEPARATOR = "===";
+
+    private final BiConsumer<String, String> consumer;
+    private final StringBuilder section = new StringBuilder(1024);
+    private int pendingSeparatorChars;
+    private boolean lastWasCarriageReturn;
+    private int sectionCount;
+
+    private ContentParser(BiConsumer<String, String> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Parse a UTF-8 stream. The stream is closed when parsing completes.
+     * @return the number of entries emitted
+     */
+    public static int parse(InputStream input, BiConsumer<String, String> consumer) throws IOException {
+        ContentParser parser = new ContentParser(consumer);
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            char[] chunk = new char[CHUNK_SIZE];
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                parser.feed(chunk, read);
+            }
+        }
+        return parser.finish();
+    }
+
+    /**
+     * Parse UTF-8 content held in a buffer, e.g. a memory-mapped file.
+     * The buffer's position is not modified.
+     * @return the number of entries emitted
+     */
+    public static int parse(ByteBuffer input, BiConsumer<String, String> consumer) {
+        ContentParser parser = new ContentParser(consumer);
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = input.duplicate();
+        CharBuffer chunk = CharBuffer.allocate(CHUNK_SIZE);
+
+        boolean endOfInput = false;
+        while (true) {
+            CoderResult result = endOfInput ? decoder.flush(chunk) : decoder.decode(bytes, chunk, true);
+            chunk.flip();
+            parser.feed(chunk.array(), chunk.limit());
+            chunk.clear();
+
+            if (result.isUnderflow()) {
+                if (endOfInput) {
+                    break;
+                }
+                endOfInput = true;
+            }
+        }
+        return parser.finish();
+    }
+
+    private void feed(char[] chunk, int length) {
+        for (int i = 0; i < length; i++) {
+            char c = chunk[i];
+
+            // Normalize CRLF and lone CR line endings to LF
+            if (c == '\r') {
+                lastWasCarriageReturn = true;
+                c = '\n';
+            } else if (c == '\n' && lastWasCarriageReturn) {
+                lastWasCarriageReturn = false;
+                continue;
+            } else {
+                lastWasCarriageReturn = false;
+            }
+
+            if (c == '=') {
+                if (++pendingSeparatorChars == SEPARATOR.length()) {
+                    pendingSeparatorChars = 0;
+                    emitSection();
+                }
+                continue;
+            }
+
+            flushPendingSeparatorChars();
+            section.append(c);
+        }
+    }
+
+    private int finish() {
+        flushPendingSeparatorChars();
+        emitSection();
+        return sectionCount;
+    }
+
+    private void flushPendingSeparatorChars() {
+        for (; pendingSeparatorChars > 0; pendingSeparatorChars--) {
+            section.append('=');
+        }
+    }
+
+    private void emitSection() {
+        int start = 0;
+        int end = section.length();
+        while (start < end && section.charAt(start) <= ' ') start++;
+        while (end > start && section.charAt(end - 1) <= ' ') end--;
+
+        int lineBreak = -1;
+        for (int i = start; i < end; i++) {
+            if (section.charAt(i) == '\n') {
+                lineBreak = i;
+                break;
+            }
+        }
+
+        if (lineBreak >= 0) {
+            int keyEnd = lineBreak;
+            while (keyEnd > start && section.charAt(keyEnd - 1) <= ' ') keyEnd--;
+            int valueStart = lineBreak + 1;
+            while (valueStart < end && section.charAt(valueStart) <= ' ') valueStart++;
+
+            consumer.accept(section.substring(start, keyEnd), section.substring(valueStart, end));
+            sectionCount++;
+        } else if (start < end) {
+            consumer.accept(section.substring(start, end), "");
+            sectionCount++;
+        }
+        section.setLength(0);
+    }
+}
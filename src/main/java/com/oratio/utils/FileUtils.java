@@ -41,6 +41,29 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Open a resource file for streaming, looking in the same places as
+     * {@link #loadResourceFile(String)}. Falls back to the built-in default content.
+     */
+    public static InputStream openResourceStream(String fileName) {
+        InputStream inputStream = FileUtils.class.getClassLoader().getResourceAsStream(fileName);
+        if (inputStream != null) {
+            return inputStream;
+        }
+
+        try {
+            Path filePath = Paths.get(Constants.RESOURCES_PATH + fileName);
+            if (Files.exists(filePath)) {
+                return new BufferedInputStream(Files.newInputStream(filePath));
+            }
+        } catch (IOException e) {
+            System.err.println("Error opening resource file: " + fileName);
+            e.printStackTrace();
+        }
+
+        return new ByteArrayInputStream(getDefaultContent(fileName).getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Read content from InputStream
      */
@@ -482,20 +505,20 @@ public class FileUtils {
     private static String getDefaultEnglishPsalms() {
         return """
             psalm_1
-            Blessed is the man that walketh not in the counsel of the ungodly,
+            1 Blessed is the man that walketh not in the counsel of the ungodly,
             nor standeth in the way of sinners,
             nor sitteth in the seat of the scornful.
-            But his delight is in the law of the Lord;
+            2 But his delight is in the law of the Lord;
             and in his law doth he meditate day and night.
-            And he shall be like a tree planted by the rivers of water,
+            3 And he shall be like a tree planted by the rivers of water,
             that bringeth forth his fruit in his season;
             his leaf also shall not wither;
             and whatsoever he doeth shall prosper.
-            The ungodly are not so:
+            4 The ungodly are not so:
             but are like the chaff which the wind driveth away.
-            Therefore the ungodly shall not stand in the judgment,
+            5 Therefore the ungodly shall not stand in the judgment,
             nor sinners in the congregation of the righteous.
-            For the Lord knoweth the way of the righteous:
+            6 For the Lord knoweth the way of the righteous:
             but the way of the ungodly shall perish.
 
             ===
@@ -506,24 +529,24 @@ public class FileUtils {
             ===
 
             psalm_2
-            Why do the heathen rage, and the people imagine a vain thing?
-            The kings of the earth set themselves, and the rulers take counsel together,
+            1 Why do the heathen rage, and the people imagine a vain thing?
+            2 The kings of the earth set themselves, and the rulers take counsel together,
             against the Lord, and against his anointed, saying,
-            Let us break their bands asunder, and cast away their cords from us.
-            He that sitteth in the heavens shall laugh: the Lord shall have them in derision.
-            Then shall he speak unto them in his wrath,
+            3 Let us break their bands asunder, and cast away their cords from us.
+            4 He that sitteth in the heavens shall laugh: the Lord shall have them in derision.
+            5 Then shall he speak unto them in his wrath,
             and vex them in his sore displeasure.
-            Yet have I set my king upon my holy hill of Zion.
-            I will declare the decree: the Lord hath said unto me,
+            6 Yet have I set my king upon my holy hill of Zion.
+            7 I will declare the decree: the Lord hath said unto me,
             Thou art my Son; this day have I begotten thee.
-            Ask of me, and I shall give thee the heathen for thine inheritance,
+            8 Ask of me, and I shall give thee the heathen for thine inheritance,
             and the uttermost parts of the earth for thy possession.
-            Thou shalt break them with a rod of iron;
+            9 Thou shalt break them with a rod of iron;
             thou shalt dash them in pieces like a potter’s vessel.
-            Be wise now therefore, O ye kings:
+            10 Be wise now therefore, O ye kings:
             be instructed, ye judges of the earth.
-            Serve the Lord with fear, and rejoice with trembling.
-            Kiss the Son, lest he be angry, and ye perish from the way,
+            11 Serve the Lord with fear, and rejoice with trembling.
+            12 Kiss the Son, lest he be angry, and ye perish from the way,
             when his wrath is kindled but a little.
             Blessed are all they that put their trust in him.
 
@@ -535,21 +558,21 @@ public class FileUtils {
             ===
 
             psalm_3
-            Lord, how are they increased that trouble me!
+            1 Lord, how are they increased that trouble me!
             many are they that rise up against me.
-            Many there be which say of my soul,
+            2 Many there be which say of my soul,
             There is no help for him in God. Selah.
-            But thou, O Lord, art a shield for me;
+            3 But thou, O Lord, art a shield for me;
             my glory, and the lifter up of mine head.
-            I cried unto the Lord with my voice,
+            4 I cried unto the Lord with my voice,
             and he heard me out of his holy hill. Selah.
-            I laid me down and slept; I awaked; for the Lord sustained me.
-            I will not be afraid of ten thousands of people,
+            5 I laid me down and slept; I awaked; for the Lord sustained me.
+            6 I will not be afraid of ten thousands of people,
             that have set themselves against me round about.
-            Arise, O Lord; save me, O my God:
+            7 Arise, O Lord; save me, O my God:
             for thou hast smitten all mine enemies upon the cheek bone;
             thou hast broken the teeth of the ungodly.
-            Salvation belongeth unto the Lord:
+            8 Salvation belongeth unto the Lord:
             thy blessing is upon thy people. Selah.
 
             ===
@@ -560,21 +583,21 @@ public class FileUtils {
             ===
 
             psalm_4
-            Hear me when I call, O God of my righteousness:
+            1 Hear me when I call, O God of my righteousness:
             thou hast enlarged me when I was in distress;
             have mercy upon me, and hear my prayer.
-            O ye sons of men, how long will ye turn my glory into shame?
+            2 O ye sons of men, how long will ye turn my glory into shame?
             how long will ye love vanity, and seek after leasing? Selah.
-            But know that the Lord hath set apart him that is godly for himself:
+            3 But know that the Lord hath set apart him that is godly for himself:
             the Lord will hear when I call unto him.
-            Stand in awe, and sin not:
+            4 Stand in awe, and sin not:
             commune with your own heart upon your bed, and be still. Selah.
-            Offer the sacrifices of righteousness, and put your trust in the Lord.
-            There be many that say, Who will shew us any good?
+            5 Offer the sacrifices of righteousness, and put your trust in the Lord.
+            6 There be many that say, Who will shew us any good?
             Lord, lift thou up the light of thy countenance upon us.
-            Thou hast put gladness in my heart,
+            7 Thou hast put gladness in my heart,
             more than in the time that their corn and their wine increased.
-            I will both lay me down in peace, and sleep:
+            8 I will both lay me down in peace, and sleep:
             for thou, Lord, only makest me dwell in safety.
 
             ===
@@ -585,34 +608,34 @@ public class FileUtils {
             ===
 
             psalm_5
-            Give ear to my words, O Lord,
+            1 Give ear to my words, O Lord,
             consider my meditation.
-            Hearken unto the voice of my cry, my King, and my God:
+            2 Hearken unto the voice of my cry, my King, and my God:
             for unto thee will I pray.
-            My voice shalt thou hear in the morning, O Lord;
+            3 My voice shalt thou hear in the morning, O Lord;
             in the morning will I direct my prayer unto thee, and will look up.
-            For thou art not a God that hath pleasure in wickedness:
+            4 For thou art not a God that hath pleasure in wickedness:
             neither shall evil dwell with thee.
-            The foolish shall not stand in thy sight:
+            5 The foolish shall not stand in thy sight:
             thou hatest all workers of iniquity.
-            Thou shalt destroy them that speak leasing:
+            6 Thou shalt destroy them that speak leasing:
             the Lord will abhor the bloody and deceitful man.
-            But as for me, I will come into thy house
+            7 But as for me, I will come into thy house
             in the multitude of thy mercy:
             and in thy fear will I worship toward thy holy temple.
-            Lead me, O Lord, in thy righteousness because of mine enemies;
+            8 Lead me, O Lord, in thy righteousness because of mine enemies;
             make thy way straight before my face.
-            For there is no faithfulness in their mouth;
+            9 For there is no faithfulness in their mouth;
             their inward part is very wickedness;
             their throat is an open sepulchre;
             they flatter with their tongue.
-            Destroy thou them, O God; let them fall by their own counsels;
+            10 Destroy thou them, O God; let them fall by their own counsels;
             cast them out in the multitude of their transgressions;
             for they have rebelled against thee.
-            But let all those that put their trust in thee rejoice:
+            11 But let all those that put their trust in thee rejoice:
             let them ever shout for joy, because thou defendest them:
             let them also that love thy name be joyful in thee.
-            For thou, Lord, wilt bless the righteous;
+            12 For thou, Lord, wilt bless the righteous;
             with favour wilt thou compass him as with a shield.
 
             ===
@@ -623,26 +646,26 @@ public class FileUtils {
             ===
 
             psalm_6
-            O Lord, rebuke me not in thine anger,
+            1 O Lord, rebuke me not in thine anger,
             neither chasten me in thy hot displeasure.
-            Have mercy upon me, O Lord; for I am weak:
+            2 Have mercy upon me, O Lord; for I am weak:
             O Lord, heal me; for my bones are vexed.
-            My soul is also sore vexed:
+            3 My soul is also sore vexed:
             but thou, O Lord, how long?
-            Return, O Lord, deliver my soul:
+            4 Return, O Lord, deliver my soul:
             oh save me for thy mercies' sake.
-            For in death there is no remembrance of thee:
+            5 For in death there is no remembrance of thee:
             in the grave who shall give thee thanks?
-            I am weary with my groaning;
+            6 I am weary with my groaning;
             all the night make I my bed to swim;
             I water my couch with my tears.
-            Mine eye is consumed because of grief;
+            7 Mine eye is consumed because of grief;
             it waxeth old because of all mine enemies.
-            Depart from me, all ye workers of iniquity;
+            8 Depart from me, all ye workers of iniquity;
             for the Lord hath heard the voice of my weeping.
-            The Lord hath heard my supplication;
+            9 The Lord hath heard my supplication;
             the Lord will receive my prayer.
-            Let all mine enemies be ashamed and sore vexed:
+            10 Let all mine enemies be ashamed and sore vexed:
             let them return and be ashamed suddenly.
 
             ===
@@ -653,43 +676,43 @@ public class FileUtils {
             ===
 
             psalm_7
-            O Lord my God, in thee do I put my trust:
+            1 O Lord my God, in thee do I put my trust:
             save me from all them that persecute me, and deliver me:
-            Lest he tear my soul like a lion,
+            2 Lest he tear my soul like a lion,
             rending it in pieces, while there is none to deliver.
-            O Lord my God, if I have done this;
+            3 O Lord my God, if I have done this;
             if there be iniquity in my hands;
-            If I have rewarded evil unto him that was at peace with me;
+            4 If I have rewarded evil unto him that was at peace with me;
             (yea, I have delivered him that without cause is mine enemy:)
-            Let the enemy persecute my soul, and take it;
+            5 Let the enemy persecute my soul, and take it;
             yea, let him tread down my life upon the earth,
             and lay mine honour in the dust. Selah.
-            Arise, O Lord, in thine anger,
+            6 Arise, O Lord, in thine anger,
             lift up thyself because of the rage of mine enemies:
             and awake for me to the judgment that thou hast commanded.
-            So shall the congregation of the people compass thee about:
+            7 So shall the congregation of the people compass thee about:
             for their sakes therefore return thou on high.
-            The Lord shall judge the people:
+            8 The Lord shall judge the people:
             judge me, O Lord, according to my righteousness,
             and according to mine integrity that is in me.
-            Oh let the wickedness of the wicked come to an end;
+            9 Oh let the wickedness of the wicked come to an end;
             but establish the just:
             for the righteous God trieth the hearts and reins.
-            My defence is of God,
+            10 My defence is of God,
             which saveth the upright in heart.
-            God judgeth the righteous,
+            11 God judgeth the righteous,
             and God is angry with the wicked every day.
-            If he turn not, he will whet his sword;
+            12 If he turn not, he will whet his sword;
             he hath bent his bow, and made it ready.
-            He hath also prepared for him the instruments of death;
+            13 He hath also prepared for him the instruments of death;
             he ordaineth his arrows against the persecutors.
-            Behold, he travaileth with iniquity,
+            14 Behold, he travaileth with iniquity,
             and hath conceived mischief, and brought forth falsehood.
-            He made a pit, and digged it,
+            15 He made a pit, and digged it,
             and is fallen into the ditch which he made.
-            His mischief shall return upon his own head,
+            16 His mischief shall return upon his own head,
             and his violent dealing shall come down upon his own pate.
-            I will praise the Lord according to his righteousness:
+            17 I will praise the Lord according to his righteousness:
             and will sing praise to the name of the Lord most high.
 
             ===
@@ -700,23 +723,23 @@ public class FileUtils {
             ===
 
             psalm_8
-            O Lord, our Lord, how excellent is thy name in all the earth!
+            1 O Lord, our Lord, how excellent is thy name in all the earth!
             who hast set thy glory above the heavens.
-            Out of the mouth of babes and sucklings hast thou ordained strength
+            2 Out of the mouth of babes and sucklings hast thou ordained strength
             because of thine enemies,
             that thou mightest still the enemy and the avenger.
-            When I consider thy heavens, the work of thy fingers,
+            3 When I consider thy heavens, the work of thy fingers,
             the moon and the stars, which thou hast ordained;
-            What is man, that thou art mindful of him?
+            4 What is man, that thou art mindful of him?
             and the son of man, that thou visitest him?
-            For thou hast made him a little lower than the angels,
+            5 For thou hast made him a little lower than the angels,
             and hast crowned him with glory and honour.
-            Thou madest him to have dominion over the works of thy hands;
+            6 Thou madest him to have dominion over the works of thy hands;
             thou hast put all things under his feet:
-            All sheep and oxen, yea, and the beasts of the field;
-            The fowl of the air, and the fish of the sea,
+            7 All sheep and oxen, yea, and the beasts of the field;
+            8 The fowl of the air, and the fish of the sea,
             and whatsoever passeth through the paths of the seas.
-            O Lord our Lord, how excellent is thy name in all the earth!
+            9 O Lord our Lord, how excellent is thy name in all the earth!
 
             ===
 
@@ -726,46 +749,46 @@ public class FileUtils {
             ===
 
             psalm_9
-            I will praise thee, O Lord, with my whole heart;
+            1 I will praise thee, O Lord, with my whole heart;
             I will shew forth all thy marvellous works.
-            I will be glad and rejoice in thee:
+            2 I will be glad and rejoice in thee:
             I will sing praise to thy name, O thou most High.
-            When mine enemies are turned back,
+            3 When mine enemies are turned back,
             they shall fall and perish at thy presence.
-            For thou hast maintained my right and my cause;
+            4 For thou hast maintained my right and my cause;
             thou satest in the throne judging right.
-            Thou hast rebuked the heathen, thou hast destroyed the wicked,
+            5 Thou hast rebuked the heathen, thou hast destroyed the wicked,
             thou hast put out their name for ever and ever.
-            O thou enemy, destructions are come to a perpetual end:
+            6 O thou enemy, destructions are come to a perpetual end:
             and thou hast destroyed cities; their memorial is perished with them.
-            But the Lord shall endure for ever:
+            7 But the Lord shall endure for ever:
             he hath prepared his throne for judgment.
-            And he shall judge the world in righteousness,
+            8 And he shall judge the world in righteousness,
             he shall minister judgment to the people in uprightness.
-            The Lord also will be a refuge for the oppressed,
+            9 The Lord also will be a refuge for the oppressed,
             a refuge in times of trouble.
-            And they that know thy name will put their trust in thee:
+            10 And they that know thy name will put their trust in thee:
             for thou, Lord, hast not forsaken them that seek thee.
-            Sing praises to the Lord, which dwelleth in Zion:
+            11 Sing praises to the Lord, which dwelleth in Zion:
             declare among the people his doings.
-            When he maketh inquisition for blood, he remembereth them:
+            12 When he maketh inquisition for blood, he remembereth them:
             he forgetteth not the cry of the humble.
-            Have mercy upon me, O Lord;
+            13 Have mercy upon me, O Lord;
             consider my trouble which I suffer of them that hate me,
             thou that liftest me up from the gates of death:
-            That I may shew forth all thy praise in the gates of the daughter of Zion:
+            14 That I may shew forth all thy praise in the gates of the daughter of Zion:
             I will rejoice in thy salvation.
-            The heathen are sunk down in the pit that they made:
+            15 The heathen are sunk down in the pit that they made:
             in the net which they hid is their own foot taken.
-            The Lord is known by the judgment which he executeth:
+            16 The Lord is known by the judgment which he executeth:
             the wicked is snared in the work of his own hands. Higgaion. Selah.
-            The wicked shall be turned into hell,
+            17 The wicked shall be turned into hell,
             and all the nations that forget God.
-            For the needy shall not always be forgotten:
+            18 For the needy shall not always be forgotten:
             the expectation of the poor shall not perish for ever.
-            Arise, O Lord; let not man prevail:
+            19 Arise, O Lord; let not man prevail:
             let the heathen be judged in thy sight.
-            Put them in fear, O Lord:
+            20 Put them in fear, O Lord:
             that the nations may know themselves to be but men. Selah.
 
             ===
@@ -776,46 +799,46 @@ public class FileUtils {
             ===
 
             psalm_10
-            Why standest thou afar off, O Lord?
+            1 Why standest thou afar off, O Lord?
             why hidest thou thyself in times of trouble?
-            The wicked in his pride doth persecute the poor:
+            2 The wicked in his pride doth persecute the poor:
             let them be taken in the devices that they have imagined.
-            For the wicked boasteth of his heart’s desire,
+            3 For the wicked boasteth of his heart’s desire,
             and blesseth the covetous, whom the Lord abhorreth.
-            The wicked, through the pride of his countenance, will not seek after God:
+            4 The wicked, through the pride of his countenance, will not seek after God:
             God is not in all his thoughts.
-            His ways are always grievous;
+            5 His ways are always grievous;
             thy judgments are far above out of his sight:
             as for all his enemies, he puffeth at them.
-            He hath said in his heart, I shall not be moved:
+            6 He hath said in his heart, I shall not be moved:
             for I shall never be in adversity.
-            His mouth is full of cursing and deceit and fraud:
+            7 His mouth is full of cursing and deceit and fraud:
             under his tongue is mischief and vanity.
-            He sitteth in the lurking places of the villages:
+            8 He sitteth in the lurking places of the villages:
             in the secret places doth he murder the innocent:
             his eyes are privily set against the poor.
-            He lieth in wait secretly as a lion in his den:
+            9 He lieth in wait secretly as a lion in his den:
             he lieth in wait to catch the poor:
             he doth catch the poor, when he draweth him into his net.
-            He croucheth, and humbleth himself,
+            10 He croucheth, and humbleth himself,
             that the poor may fall by his strong ones.
-            He hath said in his heart, God hath forgotten:
+            11 He hath said in his heart, God hath forgotten:
             he hideth his face; he will never see it.
-            Arise, O Lord; O God, lift up thine hand:
+            12 Arise, O Lord; O God, lift up thine hand:
             forget not the humble.
-            Wherefore doth the wicked contemn God?
+            13 Wherefore doth the wicked contemn God?
             he hath said in his heart, Thou wilt not require it.
-            Thou hast seen it; for thou beholdest mischief and spite,
+            14 Thou hast seen it; for thou beholdest mischief and spite,
             to requite it with thy hand:
             the poor committeth himself unto thee;
             thou art the helper of the fatherless.
-            Break thou the arm of the wicked and the evil man:
+            15 Break thou the arm of the wicked and the evil man:
             seek out his wickedness till thou find none.
-            The Lord is King for ever and ever:
+            16 The Lord is King for ever and ever:
             the heathen are perished out of his land.
-            Lord, thou hast heard the desire of the humble:
+            17 Lord, thou hast heard the desire of the humble:
             thou wilt prepare their heart, thou wilt cause thine ear to hear:
-            To judge the fatherless and the oppressed,
+            18 To judge the fatherless and the oppressed,
             that the man of the earth may no more oppress.
 
             ===
@@ -826,17 +849,17 @@ public class FileUtils {
             ===
 
             psalm_23
-            The Lord is my shepherd; I shall not want.
-            He maketh me to lie down in green pastures:
+            1 The Lord is my shepherd; I shall not want.
+            2 He maketh me to lie down in green pastures:
             he leadeth me beside the still waters.
-            He restoreth my soul:
+            3 He restoreth my soul:
             he leadeth me in the paths of righteousness for his name's sake.
-            Yea, though I walk through the valley of the shadow of death,
+            4 Yea, though I walk through the valley of the shadow of death,
             I will fear no evil: for thou art with me;
             thy rod and thy staff they comfort me.
-            Thou preparest a table before me in the presence of mine enemies:
+            5 Thou preparest a table before me in the presence of mine enemies:
             thou anointest my head with oil; my cup runneth over.
-            Surely goodness and mercy shall follow me all the days of my life:
+            6 Surely goodness and mercy shall follow me all the days of my life:
             and I will dwell in the house of the Lord for ever.
 
             ===
@@ -847,18 +870,50 @@ public class FileUtils {
             ===
 
             psalm_51
-            Have mercy upon me, O God, according to thy lovingkindness:
+            1 Have mercy upon me, O God, according to thy lovingkindness:
             according unto the multitude of thy tender mercies blot out my transgressions.
-            Wash me throughly from mine iniquity, and cleanse me from my sin.
-            For I acknowledge my transgressions: and my sin is ever before me.
-            Create in me a clean heart, O God; and renew a right spirit within me.
-            Cast me not away from thy presence; and take not thy holy spirit from me.
-            Restore unto me the joy of thy salvation; and uphold me with thy free spirit.
+            2 Wash me throughly from mine iniquity, and cleanse me from my sin.
+            3 For I acknowledge my transgressions: and my sin is ever before me.
+            10 Create in me a clean heart, O God; and renew a right spirit within me.
+            11 Cast me not away from thy presence; and take not thy holy spirit from me.
+            12 Restore unto me the joy of thy salvation; and uphold me with thy free spirit.
 
             ===
 
             psalm_51_title
             Create in Me a Clean Heart
+
+            ===
+
+            psalm_119
+            1 Blessed are the undefiled in the way,
+            who walk in the law of the Lord.
+            2 Blessed are they that keep his testimonies,
+            and that seek him with the whole heart.
+            3 They also do no iniquity: they walk in his ways.
+            4 Thou hast commanded us to keep thy precepts diligently.
+            5 O that my ways were directed to keep thy statutes!
+            6 Then shall I not be ashamed,
+            when I have respect unto all thy commandments.
+            7 I will praise thee with uprightness of heart,
+            when I shall have learned thy righteous judgments.
+            8 I will keep thy statutes: O forsake me not utterly.
+            9 Wherewithal shall a young man cleanse his way?
+            by taking heed thereto according to thy word.
+            10 With my whole heart have I sought thee:
+            O let me not wander from thy commandments.
+            11 Thy word have I hid in mine heart,
+            that I might not sin against thee.
+            12 Blessed art thou, O Lord: teach me thy statutes.
+            13 With my lips have I declared all the judgments of thy mouth.
+            14 I have rejoiced in the way of thy testimonies, as much as in all riches.
+            15 I will meditate in thy precepts, and have respect unto thy ways.
+            16 I will delight myself in thy statutes: I will not forget thy word.
+
+            ===
+
+            psalm_119_title
+            Delight in the Law of the Lord
             """;
     }
 
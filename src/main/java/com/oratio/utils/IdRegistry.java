@@ -0,0 +1,174 @@
+package com.oratio.utils;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A fixed set of items looked up by string id, holding the one canonical instance of each.
+ *
+ * The ids are placed with a perfect hash: a seed is searched for at construction so that
+ * no two ids share a slot of the table, making a lookup a single hash, probe and string
+ * comparison. The seed is mixed into the hash at every character, rather than into
+ * String.hashCode, so ids with equal hash codes such as "Aa" and "BB" still part. Should
+ * no seed fit after the table has doubled a few times, as with very many ids, the ids are
+ * placed by linear probing instead and a lookup walks on from its slot to the next empty one.
+ *
+ * Items also keep an ordinal, their position in the list they were registered from, so
+ * subsets can be returned in the registry's order.
+ *
+ * Immutable and safe to share between threads.
+ */
+public final class IdRegistry<T> {
+    private static final int MAX_SEED_ATTEMPTS = 10_000;
+    // Times the table may double when no seed fits, before falling back to probing
+    private static final int MAX_GROWTH = 4;
+
+    private final List<T> items;
+    private final String[] slotIds;
+    private final int[] slotOrdinals;
+    private final int mask;
+    private final int seed;
+    private final boolean probing;
+
+    /**
+     * @param items Items in display order; ids must be unique
+     * @param idOf Extracts an item's id
+     * @throws IllegalArgumentException on duplicate ids
+     */
+    public IdRegistry(List<T> items, Function<T, String> idOf) {
+        this.items = List.copyOf(items);
+
+        String[] ids = new String[this.items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idOf.apply(this.items.get(i));
+        }
+        if (new HashSet<>(Arrays.asList(ids)).size() != ids.length) {
+            throw new IllegalArgumentException("Duplicate ids: " + Arrays.toString(ids));
+        }
+
+        // Twice as many slots as ids, so a collision-free seed is found within a few tries
+        int capacity = Integer.highestOneBit(Math.max(1, ids.length * 2 - 1)) << 1;
+        int initialCapacity = capacity;
+        String[] table = null;
+        int[] ordinals = null;
+        int found = -1;
+        for (int growth = 0; growth <= MAX_GROWTH && found < 0; growth++) {
+            if (growth > 0) {
+                capacity <<= 1;
+            }
+            // A seed fits with odds of about e^-(n^2 / 2m); skip tables where the tries cannot beat them
+            if ((double) ids.length * (ids.length - 1) / (2.0 * capacity) > Math.log(MAX_SEED_ATTEMPTS)) {
+                continue;
+            }
+            table = new String[capacity];
+            ordinals = new int[capacity];
+            for (int candidate = 1; candidate <= MAX_SEED_ATTEMPTS && found < 0; candidate++) {
+                Arrays.fill(table, null);
+                if (place(ids, candidate, capacity - 1, table, ordinals)) {
+                    found = candidate;
+                }
+            }
+        }
+
+        this.probing = found < 0;
+        if (probing) {
+            // At least half the slots stay empty, so every probe ends
+            capacity = initialCapacity;
+            found = 1;
+            table = new String[capacity];
+            ordinals = new int[capacity];
+            for (int ordinal = 0; ordinal < ids.length; ordinal++) {
+                int slot = slot(ids[ordinal], found, capacity - 1);
+                while (table[slot] != null) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                table[slot] = ids[ordinal];
+                ordinals[slot] = ordinal;
+            }
+        }
+
+        this.slotIds = table;
+        this.slotOrdinals = ordinals;
+        this.mask = capacity - 1;
+        this.seed = found;
+    }
+
+    private static boolean place(String[] ids, int seed, int mask, String[] table, int[] ordinals) {
+        for (int ordinal = 0; ordinal < ids.length; ordinal++) {
+            int slot = slot(ids[ordinal], seed, mask);
+            if (table[slot] != null) {
+                return false;
+            }
+            table[slot] = ids[ordinal];
+            ordinals[slot] = ordinal;
+        }
+        return true;
+    }
+
+    private static int slot(String id, int seed, int mask) {
+        int h = seed * 0x9E3779B9;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x01000193;
+        }
+        h *= 0x85EBCA6B;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * @return the item with an id, or null
+     */
+    public T get(String id) {
+        int ordinal = ordinalOf(id);
+        return ordinal >= 0 ? items.get(ordinal) : null;
+    }
+
+    /**
+     * @return the position of an id in the registration order, or -1
+     */
+    public int ordinalOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int slot = slot(id, seed, mask);
+        while (probing && slotIds[slot] != null && !id.equals(slotIds[slot])) {
+            slot = (slot + 1) & mask;
+        }
+        return id.equals(slotIds[slot]) ? slotOrdinals[slot] : -1;
+    }
+
+    public boolean contains(String id) {
+        return ordinalOf(id) >= 0;
+    }
+
+    /**
+     * All items in registration order, as an immutable list
+     */
+    public List<T> getAll() {
+        return items;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * The registered items with the given ids, in registration order; unknown ids are skipped
+     */
+    public List<T> select(Collection<String> ids) {
+        int[] ordinals = new int[ids.size()];
+        int count = 0;
+        for (String id : ids) {
+            int ordinal = ordinalOf(id);
+            if (ordinal >= 0 && count < ordinals.length) {
+                ordinals[count++] = ordinal;
+            }
+        }
+        Arrays.sort(ordinals, 0, count);
+
+        List<T> selected = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            selected.add(items.get(ordinals[i]));
+        }
+        return selected;
+    }
+}
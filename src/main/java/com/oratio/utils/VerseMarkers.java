@@ -0,0 +1,110 @@
+package com.oratio.utils;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Verse numbers in the psalm source texts.
+ *
+ * Psalm texts break each verse over several lines, so a line is not a verse. In the
+ * source files the first line of every verse starts with its number, e.g.
+ * "4 Yea, though I walk through the valley of the shadow of death,". The numbers are
+ * taken out of the text that is shown and searched, and kept in a separate entry,
+ * "psalm_23_verses", listing each verse with the line it starts on. Numbers need not
+ * be consecutive, so a psalm given in part keeps the verse numbers of the full psalm.
+ */
+public final class VerseMarkers {
+    public static final String VERSES_SUFFIX = "_verses";
+
+    private VerseMarkers() {
+    }
+
+    /**
+     * Wrap the consumer of a psalms file, so psalm texts reach it without their verse
+     * numbers and followed by their verse table. Texts without numbers pass unchanged.
+     * @throws IllegalArgumentException from the consumer if a psalm's verse numbers do
+     *         not increase
+     */
+    public static BiConsumer<String, String> stripping(BiConsumer<String, String> consumer) {
+        return (key, value) -> {
+            if (!isPsalmKey(key)) {
+                consumer.accept(key, value);
+                return;
+            }
+
+            String[] lines = value.split("\n", -1);
+            StringBuilder table = new StringBuilder();
+            int lastVerse = 0;
+            for (int i = 0; i < lines.length; i++) {
+                String line = lines[i];
+                int start = 0;
+                while (start < line.length() && line.charAt(start) == ' ') {
+                    start++;
+                }
+                int end = start;
+                while (end < line.length() && end - start < 4 && Character.isDigit(line.charAt(end))) {
+                    end++;
+                }
+                if (end == start || end == line.length() || line.charAt(end) != ' ') {
+                    continue;
+                }
+
+                int verse = Integer.parseInt(line.substring(start, end));
+                if (verse <= lastVerse) {
+                    throw new IllegalArgumentException("Verse " + verse + " of " + key + " follows verse " + lastVerse);
+                }
+                lastVerse = verse;
+                lines[i] = line.substring(0, start) + line.substring(end + 1);
+                if (table.length() > 0) {
+                    table.append(',');
+                }
+                table.append(verse).append(':').append(i);
+            }
+
+            if (table.length() == 0) {
+                consumer.accept(key, value);
+            } else {
+                consumer.accept(key, String.join("\n", lines));
+                consumer.accept(key + VERSES_SUFFIX, table.toString());
+            }
+        };
+    }
+
+    /**
+     * Whether a key names a psalm's text, such as "psalm_23", rather than its title
+     */
+    private static boolean isPsalmKey(String key) {
+        if (!key.startsWith("psalm_") || key.length() == "psalm_".length()) {
+            return false;
+        }
+        for (int i = "psalm_".length(); i < key.length(); i++) {
+            if (!Character.isDigit(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read a verse table written by {@link #stripping}
+     * @return the verse numbers and the lines they start on, as two arrays
+     * @throws IllegalArgumentException if the table is malformed
+     */
+    public static int[][] parseTable(String table) {
+        String[] entries = table.split(",");
+        int[] verses = new int[entries.length];
+        int[] lines = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            int colon = entries[i].indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Bad verse table entry: " + entries[i]);
+            }
+            verses[i] = Integer.parseInt(entries[i].substring(0, colon).trim());
+            lines[i] = Integer.parseInt(entries[i].substring(colon + 1).trim());
+            if (i > 0 && (verses[i] <= verses[i - 1] || lines[i] <= lines[i - 1])) {
+                throw new IllegalArgumentException("Verse table out of order: " + Arrays.toString(entries));
+            }
+        }
+        return new int[][]{verses, lines};
+    }
+}
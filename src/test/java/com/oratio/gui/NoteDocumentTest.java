@@ -0,0 +1,55 @@
+package com.oratio.gui;
+
+import com.oratio.models.StyleRuns;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.text.BadLocationException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteDocumentTest {
+    private static final int[] STYLES = {
+            StyleRuns.PLAIN_STYLE,
+            StyleRuns.style(true, false, 0),
+            StyleRuns.style(false, true, 14),
+            StyleRuns.style(true, true, 20),
+    };
+
+    @Test
+    void runsRoundTripThroughTheDocument() throws BadLocationException {
+        Random random = new Random(5);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder();
+            int lines = random.nextInt(6);
+            for (int line = 0; line < lines; line++) {
+                text.append(line > 0 ? "\n" : "").append("Lord, hear my prayer ".repeat(random.nextInt(4)));
+            }
+            StyleRuns.Builder builder = new StyleRuns.Builder();
+            for (int covered = 0; covered < text.length(); ) {
+                int length = Math.min(text.length() - covered, 1 + random.nextInt(40));
+                builder.add(length, STYLES[random.nextInt(STYLES.length)]);
+                covered += length;
+            }
+            StyleRuns runs = builder.build();
+
+            NoteDocument document = new NoteDocument();
+            document.load(text.toString(), runs);
+
+            assertEquals(text.toString(), document.getText(0, document.getLength()));
+            assertEquals(runs, document.getStyleRuns(), text.toString());
+        }
+    }
+
+    @Test
+    void textPastTheRunsIsPlain() {
+        NoteDocument document = new NoteDocument();
+        int bold = StyleRuns.style(true, false, 0);
+        document.load("Amen.\nAlleluia", new StyleRuns.Builder().add(4, bold).build());
+
+        StyleRuns runs = document.getStyleRuns();
+        assertEquals(1, runs.getRunCount());
+        assertEquals(4, runs.getRunLength(0));
+        assertEquals(bold, runs.getRunStyle(0));
+    }
+}
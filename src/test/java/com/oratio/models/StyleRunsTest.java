@@ -0,0 +1,78 @@
+package com.oratio.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StyleRunsTest {
+    private static final int[] STYLES = {
+            StyleRuns.PLAIN_STYLE,
+            StyleRuns.style(true, false, 0),
+            StyleRuns.style(false, true, 0),
+            StyleRuns.style(true, true, 18),
+            StyleRuns.style(false, false, 4095),
+    };
+
+    private static StyleRuns randomRuns(Random random, int textLength) {
+        StyleRuns.Builder builder = new StyleRuns.Builder();
+        int covered = 0;
+        while (covered < textLength && random.nextInt(8) > 0) {
+            int length = Math.min(textLength - covered, random.nextInt(300));
+            builder.add(length, STYLES[random.nextInt(STYLES.length)]);
+            covered += length;
+        }
+        return builder.build();
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            StyleRuns runs = randomRuns(random, random.nextInt(5000));
+            StyleRuns read = StyleRuns.fromBytes(runs.toBytes());
+            assertEquals(runs, read);
+            assertEquals(runs.hashCode(), read.hashCode());
+        }
+        assertSame(StyleRuns.PLAIN, StyleRuns.fromBytes(StyleRuns.PLAIN.toBytes()));
+    }
+
+    @Test
+    void equalNeighboursMergeAndTrailingPlainTextIsDropped() {
+        int bold = StyleRuns.style(true, false, 0);
+        StyleRuns runs = new StyleRuns.Builder()
+                .add(3, bold).add(0, StyleRuns.PLAIN_STYLE).add(4, bold)
+                .add(2, StyleRuns.PLAIN_STYLE).add(5, StyleRuns.PLAIN_STYLE)
+                .build();
+
+        assertEquals(1, runs.getRunCount());
+        assertEquals(7, runs.getRunLength(0));
+        assertEquals(bold, runs.getRunStyle(0));
+        assertTrue(new StyleRuns.Builder().add(10, StyleRuns.PLAIN_STYLE).build().isPlain());
+    }
+
+    @Test
+    void styleIdsKeepTheirFormatting() {
+        int style = StyleRuns.style(true, true, 24);
+        assertTrue(StyleRuns.isBold(style));
+        assertTrue(StyleRuns.isItalic(style));
+        assertEquals(24, StyleRuns.getFontSize(style));
+        assertEquals(StyleRuns.PLAIN_STYLE, StyleRuns.style(false, false, 0));
+        assertThrows(IllegalArgumentException.class, () -> StyleRuns.style(false, false, 4096));
+    }
+
+    @Test
+    void malformedBytesAreRejected() {
+        byte[] bytes = new StyleRuns.Builder().add(200, StyleRuns.style(true, false, 0)).build().toBytes();
+
+        assertThrows(IllegalArgumentException.class, () -> StyleRuns.fromBytes(new byte[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> StyleRuns.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> StyleRuns.fromBytes(Arrays.copyOf(bytes, bytes.length + 1)));
+        assertThrows(IllegalArgumentException.class, () -> StyleRuns.fromBytes(new byte[]{(byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01}));
+    }
+}
@@ -0,0 +1,135 @@
+package com.oratio.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+    private static final String[] WORDS = {
+            "lord", "shepherd", "still", "waters", "soul", "restoreth", "grace", "mercy", "peace",
+            "light", "psalm", "praise", "heart", "righteousness", "valley", "shadow", "cup", "oil",
+    };
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = 1 + random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            text.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static InvertedIndex build(TreeMap<Integer, String> documents) {
+        InvertedIndex.Builder builder = new InvertedIndex.Builder();
+        documents.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static void assertSameHits(InvertedIndex expected, InvertedIndex actual, String query) {
+        SearchQuery parsed = SearchQuery.parse(query);
+        List<InvertedIndex.Hit> want = expected.search(parsed);
+        List<InvertedIndex.Hit> got = actual.search(parsed);
+        assertEquals(want.size(), got.size(), query);
+        for (int i = 0; i < want.size(); i++) {
+            assertEquals(want.get(i).getDocId(), got.get(i).getDocId(), query);
+            assertEquals(want.get(i).getScore(), got.get(i).getScore(), 1e-5f, query);
+            assertArrayEquals(want.get(i).getMatchOffsets(), got.get(i).getMatchOffsets(), query);
+        }
+    }
+
+    @Test
+    void changedIndexMatchesRebuiltIndex() {
+        Random random = new Random(7);
+        TreeMap<Integer, String> documents = new TreeMap<>();
+        for (int doc = 0; doc < 40; doc++) {
+            documents.put(doc, randomText(random));
+        }
+        InvertedIndex index = build(documents);
+        int nextDoc = documents.size();
+
+        for (int round = 0; round < 50; round++) {
+            // Edit, delete and add a few documents, as edited notes are reindexed
+            List<Integer> removed = new ArrayList<>();
+            List<Integer> added = new ArrayList<>();
+            List<String> addedTexts = new ArrayList<>();
+            for (int change = random.nextInt(4); change >= 0; change--) {
+                Integer doc = documents.higherKey(random.nextInt(nextDoc));
+                if (doc != null && !removed.contains(doc)) {
+                    removed.add(doc);
+                }
+                if (random.nextInt(3) > 0) {
+                    added.add(nextDoc);
+                    addedTexts.add(randomText(random));
+                    nextDoc++;
+                }
+            }
+            for (int doc : removed) {
+                documents.remove(doc);
+            }
+            for (int i = 0; i < added.size(); i++) {
+                documents.put(added.get(i), addedTexts.get(i));
+            }
+
+            index = index.withChanges(removed.stream().mapToInt(Integer::intValue).toArray(),
+                    added.stream().mapToInt(Integer::intValue).toArray(), addedTexts.toArray(new String[0]));
+            InvertedIndex rebuilt = build(documents);
+
+            assertEquals(rebuilt.getDocumentCount(), index.getDocumentCount());
+            assertEquals(rebuilt.getTermCount(), index.getTermCount());
+            for (String query : new String[]{"lord", "still waters", "grace OR mercy", "\"shadow cup\"", "righ", "sheperd"}) {
+                assertSameHits(rebuilt, index, query);
+            }
+            assertSameHits(rebuilt, index, "valey");
+            assertEquals(rebuilt.search(SearchQuery.parse("sheperd").fuzzy(true)).size(),
+                    index.search(SearchQuery.parse("sheperd").fuzzy(true)).size());
+        }
+    }
+
+    @Test
+    void removingEveryUseOfATermDropsIt() {
+        InvertedIndex index = new InvertedIndex.Builder()
+                .add(0, "the lord is my shepherd")
+                .add(1, "the lord is my light")
+                .build();
+        InvertedIndex changed = index.withChanges(new int[]{0}, new int[]{2}, new String[]{"my cup runneth over"});
+
+        assertEquals(0, changed.documentFrequency("shepherd"));
+        assertEquals(1, changed.documentFrequency("lord"));
+        assertEquals(2, changed.documentFrequency("my"));
+        assertEquals(2, changed.getDocumentCount());
+        assertTrue(changed.search(SearchQuery.parse("shepherd")).isEmpty());
+        assertEquals(2, changed.search(SearchQuery.parse("cup")).get(0).getDocId());
+        // The original is untouched
+        assertEquals(1, index.documentFrequency("shepherd"));
+    }
+
+    @Test
+    void termFoundByTypoAndPrefixCountsOnce() {
+        InvertedIndex index = new InvertedIndex.Builder()
+                .add(0, "grace upon grace")
+                .add(1, "mercy and peace")
+                .build();
+        InvertedIndex.Hit exact = index.search(SearchQuery.parse("grace")).get(0);
+        InvertedIndex.Hit typed = index.search(SearchQuery.parseIncremental("grace").fuzzy(true)).get(0);
+
+        assertEquals(exact.getScore(), typed.getScore(), 1e-6f);
+        assertArrayEquals(exact.getMatchOffsets(), typed.getMatchOffsets());
+    }
+
+    @Test
+    void typoInShortWordIsFound() {
+        InvertedIndex index = new InvertedIndex.Builder()
+                .add(0, "god is love")
+                .add(1, "the holy one")
+                .build();
+        for (String typo : new String[]{"gxd", "gid", "lxve", "hxly", "onx"}) {
+            assertFalse(index.search(SearchQuery.parse(typo).fuzzy(true)).isEmpty(), typo);
+        }
+        assertTrue(index.search(SearchQuery.parse("xyz").fuzzy(true)).isEmpty());
+    }
+}
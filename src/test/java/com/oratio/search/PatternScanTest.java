@@ -0,0 +1,121 @@
+package com.oratio.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatternScanTest {
+    private static DocumentFilter filterOf(String text) {
+        return DocumentFilter.of(TextNormalizer.DEFAULT, text);
+    }
+
+    private static void assertFound(String regex, String text) {
+        PatternScan pattern = PatternScan.compile(regex);
+        assertTrue(pattern.matches(text), regex + " should match " + text);
+        assertTrue(pattern.mightMatch(filterOf(text)), regex + " skipped " + text);
+    }
+
+    @Test
+    void escapesWithPayloadsAreNotRequiredText() {
+        assertFound("\\x41men", "Amen");
+        assertFound("\\x{41}men", "Amen");
+        assertFound("\\x{1F54A}peace", "\uD83D\uDD4Apeace");
+        assertFound("\\u0041lleluia", "Alleluia");
+        assertFound("\\0101men", "Amen");
+        assertFound("\\011grace", "\tgrace");
+        assertFound("x\\cJgrace", "x\ngrace");
+        assertFound("(?<w>lord) \\k<w>", "lord lord");
+        assertFound("\\N{LATIN SMALL LETTER A}men", "amen");
+        assertFound("\\pLmen", "Amen");
+        assertFound("\\p{L}men", "Amen");
+        assertFound("(a)(b)(c)(d)(e)(f)(g)(h)(i)(j)\\10", "abcdefghijj");
+        assertFound("mer\\b{g}cy", "mercy");
+    }
+
+    @Test
+    void quotedTextAndClassesAreScannedWhole() {
+        assertFound("(\\Q)\\E)grace", ")grace");
+        assertFound("[\\Q]\\E]+grace", "]]grace");
+        assertFound("\\Qfaith\\E?ful", "faitful");
+        assertFound("[\\x{5D}a]+men", "]amen");
+        assertFound("\uD83D\uDD4A?peace", "peace");
+    }
+
+    @Test
+    void requiredTextStillSkipsDocuments() {
+        PatternScan pattern = PatternScan.compile("shep\\w*herd");
+        assertTrue(pattern.mightMatch(filterOf("The Lord is my shepherd")));
+        assertFalse(pattern.mightMatch(filterOf("Blessed is the man")));
+        assertFalse(PatternScan.compile("\\blord\\b").mightMatch(filterOf("the lordship of Christ")));
+    }
+
+    /**
+     * Random expressions built from pieces, each with a text it matches; whenever the
+     * expression matches the joined texts, the filter must not rule the text out
+     */
+    @Test
+    void randomExpressionsHaveNoFalseNegatives() {
+        String[][] pieces = {
+                {"lord", "lord"}, {"Grace", "grace"}, {"a+", "aaa"}, {"b?", ""}, {"c*", "cc"}, {"d{2}", "dd"},
+                {"e{0,2}", "e"}, {"f+?", "f"}, {"\\.", "."}, {"\\\\", "\\"}, {"\\b", " "}, {"\\s", " "},
+                {"\\w+", "word"}, {"\\d", "7"}, {"[xyz]", "y"}, {"[^a]", "q"}, {"(ho)+", "hoho"},
+                {"(?:mer)?", ""}, {"(?=s)", ""}, {"\\x41", "A"}, {"\\x{42}", "B"}, {"\\u0043", "C"},
+                {"\\0104", "D"}, {"\\cI", "\t"}, {"\\p{Lu}", "Q"}, {"\\pL", "z"}, {"\\Qa.b\\E", "a.b"},
+                {"\\Q*\\E+", "**"}, {"\u00e9", "\u00c9"}, {"\\N{DIGIT ONE}", "1"}, {".", "!"}, {"'", "'"},
+                {"s", "s"}, {"x", "x"}, {"\\h", " "}, {"\\R", "\n"}, {"\\X", "g"},
+        };
+        Random random = new Random(42);
+        int checked = 0;
+        for (int round = 0; round < 20000; round++) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder text = new StringBuilder(random.nextBoolean() ? "" : "the ");
+            int count = 1 + random.nextInt(6);
+            for (int p = 0; p < count; p++) {
+                String[] piece = pieces[random.nextInt(pieces.length)];
+                regex.append(piece[0]);
+                text.append(piece[1]);
+            }
+            if (random.nextBoolean()) {
+                text.append(" of psalms");
+            }
+
+            PatternScan pattern;
+            try {
+                pattern = PatternScan.compile(regex.toString());
+            } catch (PatternSyntaxException e) {
+                continue;
+            }
+            if (pattern.matches(text.toString())) {
+                checked++;
+                assertTrue(pattern.mightMatch(filterOf(text.toString())), regex + " skipped " + text);
+            }
+        }
+        assertTrue(checked > 10000, "only " + checked + " expressions matched");
+    }
+
+    @Test
+    void interruptStopsCatastrophicBacktracking() throws InterruptedException {
+        PatternScan pattern = PatternScan.parseDelimited("/(a+)+\\1$/");
+        String text = "a".repeat(40) + "!";
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread scan = new Thread(() -> {
+            try {
+                pattern.matches(text);
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        scan.start();
+        Thread.sleep(100);
+        scan.interrupt();
+        scan.join(5000);
+
+        assertFalse(scan.isAlive(), "scan still running after interrupt");
+        assertInstanceOf(CancellationException.class, thrown.get());
+    }
+}
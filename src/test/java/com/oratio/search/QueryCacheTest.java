@@ -0,0 +1,59 @@
+package com.oratio.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+    private static QueryCache.Key key(String query, long version) {
+        return new QueryCache.Key("English", query, "ranked", version);
+    }
+
+    @Test
+    void repeatedQueryIsAnsweredFromTheCache() {
+        QueryCache<List<String>> cache = new QueryCache<>(4);
+        AtomicInteger computed = new AtomicInteger();
+
+        List<String> first = cache.get(key("shepherd", 1), () -> List.of("psalm " + computed.incrementAndGet()));
+        List<String> second = cache.get(key("shepherd", 1), () -> List.of("psalm " + computed.incrementAndGet()));
+
+        assertSame(first, second);
+        assertEquals(1, computed.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void newContentVersionMisses() {
+        QueryCache<String> cache = new QueryCache<>(4);
+        cache.get(key("shepherd", 1), () -> "old");
+
+        assertEquals("new", cache.get(key("shepherd", 2), () -> "new"));
+        assertEquals("new", cache.get(key("shepherd", 2), () -> "unused"));
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        // Other languages and modes are separate entries too
+        assertEquals("mode", cache.get(new QueryCache.Key("English", "shepherd", "contains", 2), () -> "mode"));
+        assertEquals("language", cache.get(new QueryCache.Key("Tagalog", "shepherd", "ranked", 2), () -> "language"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        QueryCache<String> cache = new QueryCache<>(2);
+        cache.get(key("a", 1), () -> "a");
+        cache.get(key("b", 1), () -> "b");
+        cache.get(key("a", 1), () -> "unused");
+        cache.get(key("c", 1), () -> "c");
+
+        assertEquals(2, cache.size());
+        assertEquals("a", cache.get(key("a", 1), () -> "recomputed"));
+        assertEquals("recomputed", cache.get(key("b", 1), () -> "recomputed"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,82 @@
+package com.oratio.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchQueryTest {
+    @Test
+    void wordsAreAndedUnlessJoinedByUppercaseOr() {
+        SearchQuery and = SearchQuery.parse("Shepherd  Waters");
+        assertEquals(List.of("shepherd", "waters"), and.getTerms());
+        assertEquals(SearchQuery.Operator.AND, and.getOperator());
+        assertNull(and.getPrefix());
+
+        assertEquals(SearchQuery.Operator.OR, SearchQuery.parse("shepherd OR refuge").getOperator());
+        SearchQuery lowercase = SearchQuery.parse("shepherd or refuge");
+        assertEquals(SearchQuery.Operator.AND, lowercase.getOperator());
+        assertEquals(List.of("shepherd", "or", "refuge"), lowercase.getTerms());
+
+        assertEquals(List.of("lord"), SearchQuery.parse("lord LORD").getTerms());
+        assertTrue(SearchQuery.parse("  ").isEmpty());
+    }
+
+    @Test
+    void quotedWordsFormAPhrase() {
+        SearchQuery query = SearchQuery.parse("\"Still Waters\" OR lord");
+
+        assertEquals(List.of("still", "waters", "lord"), query.getTerms());
+        assertEquals(List.of(SearchQuery.Proximity.phrase(List.of("still", "waters"))), query.getProximities());
+        assertTrue(query.getProximities().get(0).isOrdered());
+        // A phrase is always required, so the query is an AND query
+        assertEquals(SearchQuery.Operator.AND, query.getOperator());
+        assertTrue(SearchQuery.parse("\"lord\"").getProximities().isEmpty());
+    }
+
+    @Test
+    void nearTakesAnOptionalGap() {
+        SearchQuery query = SearchQuery.parse("shepherd NEAR/3 waters psalm");
+        assertEquals(List.of("shepherd", "waters", "psalm"), query.getTerms());
+        assertEquals(List.of(SearchQuery.Proximity.near("shepherd", "waters", 3)), query.getProximities());
+        assertFalse(query.getProximities().get(0).isOrdered());
+
+        assertEquals(SearchQuery.DEFAULT_NEAR_DISTANCE,
+                SearchQuery.parse("shepherd NEAR waters").getProximities().get(0).getMaxGap());
+        // NEAR with nothing before it is an ordinary word
+        SearchQuery leading = SearchQuery.parse("NEAR waters");
+        assertEquals(List.of("near", "waters"), leading.getTerms());
+        assertTrue(leading.getProximities().isEmpty());
+    }
+
+    @Test
+    void incrementalQueryEndsInAPrefix() {
+        SearchQuery typing = SearchQuery.parseIncremental("lord shep");
+        assertEquals(List.of("lord"), typing.getTerms());
+        assertEquals("shep", typing.getPrefix());
+        assertEquals("lord AND shep*", typing.toString());
+
+        assertNull(SearchQuery.parseIncremental("lord shep ").getPrefix());
+        // The unfinished last word of an open phrase waits until it is finished
+        SearchQuery phrase = SearchQuery.parseIncremental("\"still wat");
+        assertEquals(List.of("still"), phrase.getTerms());
+        assertNull(phrase.getPrefix());
+        assertTrue(phrase.getProximities().isEmpty());
+        // A word already typed in full stays whole
+        SearchQuery repeated = SearchQuery.parseIncremental("lord lord");
+        assertEquals(List.of("lord"), repeated.getTerms());
+        assertNull(repeated.getPrefix());
+    }
+
+    @Test
+    void longerQueriesNarrowShorterOnes() {
+        assertTrue(SearchQuery.parseIncremental("shepherd wat").narrows(SearchQuery.parseIncremental("shepherd wa")));
+        assertTrue(SearchQuery.parseIncremental("shepherd waters ").narrows(SearchQuery.parseIncremental("shepherd wa")));
+        assertFalse(SearchQuery.parseIncremental("shepherd w").narrows(SearchQuery.parseIncremental("shepherd wa")));
+        assertFalse(SearchQuery.parseIncremental("shepherd OR wat").narrows(SearchQuery.parseIncremental("shepherd")));
+        assertFalse(SearchQuery.parseIncremental("shepherd wat").fuzzy(true)
+                .narrows(SearchQuery.parseIncremental("shepherd wa").fuzzy(true)));
+        assertEquals("shepherd~ AND wa*~", SearchQuery.parseIncremental("shepherd wa").fuzzy(true).toString());
+    }
+}
@@ -0,0 +1,81 @@
+package com.oratio.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuffixArrayTest {
+    private static String randomText(Random random, int length) {
+        // A small alphabet, so patterns recur and overlap
+        String alphabet = "abAB c";
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    @Test
+    void agreesWithStringContains() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            List<String> fragments = new ArrayList<>();
+            List<Integer> docIds = new ArrayList<>();
+            SuffixArray.Builder builder = new SuffixArray.Builder();
+            int fragmentCount = random.nextInt(6);
+            for (int f = 0; f < fragmentCount; f++) {
+                String fragment = randomText(random, random.nextInt(30));
+                int docId = random.nextInt(4);
+                fragments.add(fragment);
+                docIds.add(docId);
+                builder.add(docId, fragment);
+            }
+            SuffixArray index = builder.build();
+
+            for (int q = 0; q < 20; q++) {
+                String pattern = randomText(random, 1 + random.nextInt(4));
+                String folded = pattern.toLowerCase();
+
+                TreeSet<Integer> expectedDocs = new TreeSet<>();
+                List<String> expectedOccurrences = new ArrayList<>();
+                for (int f = 0; f < fragments.size(); f++) {
+                    String text = fragments.get(f).toLowerCase();
+                    if (text.contains(folded)) {
+                        expectedDocs.add(docIds.get(f));
+                    }
+                    for (int at = text.indexOf(folded); at >= 0; at = text.indexOf(folded, at + 1)) {
+                        expectedOccurrences.add(docIds.get(f) + "/" + f + "/" + at);
+                    }
+                }
+
+                List<String> occurrences = new ArrayList<>();
+                index.forEachOccurrence(pattern, (docId, fragment, offset) ->
+                        occurrences.add(docId + "/" + fragment + "/" + offset));
+
+                assertArrayEquals(expectedDocs.stream().mapToInt(Integer::intValue).toArray(),
+                        index.documents(pattern), pattern + " in " + fragments);
+                assertEquals(expectedOccurrences, occurrences, pattern + " in " + fragments);
+                assertEquals(expectedOccurrences.size(), index.count(pattern), pattern + " in " + fragments);
+            }
+        }
+    }
+
+    @Test
+    void matchesInsideWordsButNotAcrossFragments() {
+        SuffixArray index = new SuffixArray.Builder()
+                .add(23, "The Lord is my Shepherd")
+                .add(23, "I shall not want")
+                .add(100, "Make a joyful noise")
+                .build();
+
+        assertArrayEquals(new int[]{23}, index.documents("HERD"));
+        assertEquals(0, index.count("shepherdi"));
+        assertEquals(2, index.count("no"));
+        assertArrayEquals(new int[]{23, 100}, index.documents(""));
+    }
+}
@@ -0,0 +1,26 @@
+package com.oratio.services;
+
+import com.oratio.utils.Constants;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentRepositoryTest {
+    private final ContentRepository repository = ContentRepository.getInstance();
+
+    @Test
+    void lookupCountsOneMissOnlyWhenNothingIsFound() {
+        // Prayers are the last file lookup tries
+        String prayerId = repository.keys(Constants.ENGLISH, ContentRepository.ContentKind.PRAYERS).iterator().next();
+
+        long lookups = repository.getLookupCount();
+        long misses = repository.getMissCount();
+        assertNotNull(repository.lookup(Constants.ENGLISH, prayerId));
+        assertEquals(lookups + 1, repository.getLookupCount());
+        assertEquals(misses, repository.getMissCount());
+
+        assertNull(repository.lookup(Constants.ENGLISH, "no_such_key"));
+        assertEquals(lookups + 2, repository.getLookupCount());
+        assertEquals(misses + 1, repository.getMissCount());
+    }
+}
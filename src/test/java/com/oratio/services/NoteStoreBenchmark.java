@@ -0,0 +1,141 @@
+package com.oratio.services;
+
+import com.oratio.models.Note;
+import com.oratio.utils.Constants;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Compares ways of listing the notes newest first on a large generated journal: sorting
+ * the notes on every listing, the service's ordered views, and queries on the indexes
+ * of the database store.
+ *
+ * Usage: NoteStoreBenchmark [note count], 100000 by default, run with the test class
+ * path, e.g. mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.oratio.services.NoteStoreBenchmark. Works in a temporary
+ * directory, so the user's notes are untouched.
+ */
+public class NoteStoreBenchmark {
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        String category = Constants.NOTE_CATEGORIES[0];
+
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Note> notes = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Note note = new Note(String.valueOf(i), "Note " + i, "Reflection number " + i + " ".repeat(random.nextInt(200)),
+                    Constants.NOTE_CATEGORIES[random.nextInt(Constants.NOTE_CATEGORIES.length)]);
+            note.setCreatedDate(base.plusMinutes(i));
+            note.setModifiedDate(base.plusMinutes(i + random.nextInt(100_000)));
+            notes.add(note);
+        }
+        System.out.printf("Notes: %d, listing by category '%s'%n%n", count, category);
+
+        // Sorted: a map of notes, sorted on every listing
+        Map<String, Note> byId = new HashMap<>();
+        for (Note note : notes) {
+            byId.put(note.getId(), note);
+        }
+        Comparator<Note> newestFirst = Comparator.comparing(Note::getModifiedDate).reversed();
+        report("sorted", "all notes", time(() -> byId.values().stream().sorted(newestFirst).toList().size()));
+        report("sorted", "by category", time(() -> byId.values().stream()
+                .filter(note -> note.getCategory().equals(category)).sorted(newestFirst).toList().size()));
+
+        // Views: the service's skip lists, refiled on each change and copied on listing
+        NoteViews views = new NoteViews();
+        long start = System.nanoTime();
+        for (Note note : notes) {
+            views.put(note);
+        }
+        System.out.printf("%-10s %-12s %10.1f ms total, %.2f us per note%n", "views", "insert",
+                (System.nanoTime() - start) / 1e6, (System.nanoTime() - start) / 1e3 / count);
+        report("views", "all notes", time(() -> new ArrayList<>(views.all()).size()));
+        report("views", "by category", time(() -> new ArrayList<>(views.byCategory(category)).size()));
+        Note changed = notes.get(count / 2);
+        report("views", "save", time(() -> {
+            changed.setModifiedDate(changed.getModifiedDate().plusSeconds(1));
+            views.put(changed);
+            return 1;
+        }));
+
+        Path directory = Files.createTempDirectory("oratio-notes-benchmark");
+        try {
+            Path database = directory.resolve("notes");
+            start = System.nanoTime();
+            try (DatabaseNoteStore store = DatabaseNoteStore.open(database)) {
+                for (Note note : notes) {
+                    store.put(note);
+                }
+            }
+            System.out.printf("%-10s %-12s %10.1f ms total, %.1f us per note%n", "database", "insert",
+                    (System.nanoTime() - start) / 1e6, (System.nanoTime() - start) / 1e3 / count);
+
+            try (DatabaseNoteStore store = DatabaseNoteStore.open(database)) {
+                start = System.nanoTime();
+                int loaded = store.loadAll().size();
+                System.out.printf("%-10s %-12s %10.1f ms (%d notes)%n", "database", "load",
+                        (System.nanoTime() - start) / 1e6, loaded);
+            }
+
+            // The listings as a tool querying the file would run them, reading the modified date indexes
+            try (Connection connection = DriverManager.getConnection("jdbc:h2:file:" + database.toAbsolutePath());
+                 PreparedStatement all = connection.prepareStatement(
+                         "SELECT id FROM notes ORDER BY modified_at DESC, id");
+                 PreparedStatement byCategory = connection.prepareStatement(
+                         "SELECT id FROM notes WHERE category = ? ORDER BY modified_at DESC, id")) {
+                byCategory.setString(1, category);
+                report("database", "all notes", time(() -> countRows(all)));
+                report("database", "by category", time(() -> countRows(byCategory)));
+            } catch (SQLException e) {
+                throw new IOException("Could not query notes database: " + e.getMessage(), e);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Listing {
+        int run() throws IOException;
+    }
+
+    private static int countRows(PreparedStatement query) throws IOException {
+        int count = 0;
+        try (ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                rows.getString(1);
+                count++;
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+        return count;
+    }
+
+    /**
+     * Average time of a listing in milliseconds, after one warm-up run
+     */
+    private static double time(Listing listing) throws IOException {
+        listing.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            listing.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    private static void report(String store, String query, double millis) {
+        System.out.printf("%-10s %-12s %10.2f ms per listing%n", store, query, millis);
+    }
+}
@@ -0,0 +1,146 @@
+package com.oratio.services;
+
+import com.oratio.models.Note;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotesJournalTest {
+    @TempDir
+    Path directory;
+
+    private static Note note(String id, String title, String content) {
+        Note note = new Note(id, title, content, "Prayer");
+        note.setCreatedDate(LocalDateTime.of(2024, 1, 1, 8, 0));
+        note.setModifiedDate(LocalDateTime.of(2024, 1, 2, 9, 30));
+        return note;
+    }
+
+    private Path journal() {
+        return directory.resolve("notes.journal");
+    }
+
+    @Test
+    void newJournalIsEmpty() throws IOException {
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            assertTrue(journal.isNew());
+            assertTrue(journal.loadAll().isEmpty());
+        }
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            assertFalse(journal.isNew());
+        }
+    }
+
+    @Test
+    void replaysLatestVersionOfEachNote() throws IOException {
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            journal.put(note("1", "First", "one"));
+            journal.put(note("2", "Second", "two"));
+            journal.put(note("1", "First", "one, revised"));
+            journal.put(note("3", "Third", "three"));
+            journal.delete("2");
+        }
+
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            List<Note> notes = journal.loadAll();
+            assertEquals(2, notes.size());
+            // In the order they were last saved
+            assertEquals("1", notes.get(0).getId());
+            assertEquals("3", notes.get(1).getId());
+            assertEquals("one, revised", notes.get(0).getContent());
+            assertEquals(LocalDateTime.of(2024, 1, 2, 9, 30), notes.get(0).getModifiedDate());
+        }
+    }
+
+    @Test
+    void truncatedTailIsCutOffAndKept() throws IOException {
+        long intactSize;
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            journal.put(note("1", "Kept", "saved before the crash"));
+            intactSize = journal.getSize();
+            journal.put(note("2", "Lost", "cut short by the crash"));
+        }
+        long fullSize = Files.size(journal());
+        try (RandomAccessFile file = new RandomAccessFile(journal().toFile(), "rw")) {
+            file.setLength(fullSize - 5);
+        }
+
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            List<Note> notes = journal.loadAll();
+            assertEquals(1, notes.size());
+            assertEquals("1", notes.get(0).getId());
+            assertEquals(intactSize, journal.getSize());
+            journal.put(note("3", "After", "saved after recovery"));
+        }
+        Path damaged = directory.resolve("notes.journal.damaged");
+        assertEquals(fullSize - 5 - intactSize, Files.size(damaged));
+
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            assertEquals(List.of("1", "3"), journal.loadAll().stream().map(Note::getId).toList());
+        }
+    }
+
+    @Test
+    void corruptRecordEndsReplay() throws IOException {
+        long firstEnd;
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            journal.put(note("1", "Good", "intact"));
+            firstEnd = journal.getSize();
+            journal.put(note("2", "Bad", "flipped byte"));
+            journal.put(note("3", "After", "follows the damage"));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(journal().toFile(), "rw")) {
+            // A byte in the payload of the second record, past its length and checksum
+            file.seek(firstEnd + 12);
+            int b = file.read();
+            file.seek(firstEnd + 12);
+            file.write(b ^ 0xFF);
+        }
+
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            assertEquals(List.of("1"), journal.loadAll().stream().map(Note::getId).toList());
+            assertEquals(firstEnd, journal.getSize());
+        }
+    }
+
+    @Test
+    void rejectsFileThatIsNotAJournal() throws IOException {
+        Files.writeString(journal(), "not a journal at all");
+        assertThrows(IOException.class, () -> NotesJournal.open(journal()));
+    }
+
+    @Test
+    void compactionKeepsOnlyLiveRecords() throws IOException {
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            for (int i = 0; i < 50; i++) {
+                journal.put(note("1", "Draft", "revision " + i));
+                journal.put(note("2", "Other", "revision " + i));
+            }
+            journal.put(note("3", "Doomed", "deleted below"));
+            journal.delete("3");
+            long before = journal.getSize();
+
+            journal.compact();
+            assertTrue(journal.getSize() < before / 10, "compacted to " + journal.getSize());
+
+            // The journal stays writable after compaction
+            journal.put(note("4", "New", "after compaction"));
+        }
+        assertFalse(Files.exists(directory.resolve("notes.journal.compacting")));
+
+        try (NotesJournal journal = NotesJournal.open(journal())) {
+            List<Note> notes = journal.loadAll();
+            assertEquals(List.of("1", "2", "4"), notes.stream().map(Note::getId).toList());
+            assertEquals("revision 49", notes.get(0).getContent());
+            assertEquals("revision 49", notes.get(1).getContent());
+        }
+    }
+}
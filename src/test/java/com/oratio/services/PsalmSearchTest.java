@@ -0,0 +1,43 @@
+package com.oratio.services;
+
+import com.oratio.models.Psalm;
+import com.oratio.utils.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PsalmSearchTest {
+    private final PsalmService psalmService = PsalmService.getInstance();
+
+    @Test
+    void containsFindsTextInsideWords() {
+        List<PsalmService.PsalmMatch> matches = psalmService.findPsalmsContaining("herd", Constants.ENGLISH);
+        PsalmService.PsalmMatch psalm23 = matches.stream()
+                .filter(match -> match.getPsalm().getNumber() == 23)
+                .findFirst()
+                .orElseThrow();
+
+        String text = psalmService.getPsalmText(psalm23.getPsalm(), Constants.ENGLISH);
+        int[] offsets = psalm23.getMatchOffsets();
+        assertTrue(offsets.length >= 2);
+        for (int i = 0; i < offsets.length; i += 2) {
+            assertEquals("herd", text.substring(offsets[i], offsets[i + 1]).toLowerCase());
+        }
+    }
+
+    @Test
+    void containsAgreesWithKeywordSearch() {
+        for (String text : new String[]{"herd", "LORD", "still wat", "zzz", ""}) {
+            List<Psalm> expected = psalmService.getAllPsalms().stream()
+                    .filter(psalm -> (psalmService.getPsalmTitle(psalm, Constants.ENGLISH) + "\n"
+                            + psalmService.getPsalmText(psalm, Constants.ENGLISH)).toLowerCase().contains(text.toLowerCase()))
+                    .toList();
+            List<Psalm> found = psalmService.findPsalmsContaining(text, Constants.ENGLISH).stream()
+                    .map(PsalmService.PsalmMatch::getPsalm)
+                    .toList();
+            assertEquals(expected, found, text);
+        }
+    }
+}
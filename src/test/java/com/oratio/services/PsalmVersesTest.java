@@ -0,0 +1,83 @@
+package com.oratio.services;
+
+import com.oratio.models.PsalmReference;
+import com.oratio.models.PsalmText;
+import com.oratio.utils.Constants;
+import com.oratio.utils.VerseMarkers;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PsalmVersesTest {
+    private final PsalmService psalmService = PsalmService.getInstance();
+
+    private String verses(String reference) {
+        return psalmService.getVerses(PsalmReference.parse(reference), Constants.ENGLISH);
+    }
+
+    @Test
+    void psalm23HasSixVerses() {
+        PsalmText psalm = psalmService.getPsalmVerses(psalmService.getPsalmByNumber(23), Constants.ENGLISH);
+        assertEquals(6, psalm.getVerseCount());
+        assertEquals(6, psalm.getLastVerse());
+        assertTrue(psalm.getText().startsWith("The Lord is my shepherd"), "verse numbers are not shown");
+    }
+
+    @Test
+    void psalm23Verse4() {
+        assertEquals("Yea, though I walk through the valley of the shadow of death,\n"
+                + "I will fear no evil: for thou art with me;\n"
+                + "thy rod and thy staff they comfort me.", verses("23:4"));
+    }
+
+    @Test
+    void psalm119Verses1To16() {
+        String text = verses("119:1-16");
+        assertNotNull(text);
+        assertTrue(text.startsWith("Blessed are the undefiled in the way,\nwho walk in the law of the Lord."), text);
+        assertTrue(text.endsWith("I will delight myself in thy statutes: I will not forget thy word."), text);
+        assertEquals(23, text.split("\n").length);
+
+        assertEquals("Wherewithal shall a young man cleanse his way?\n"
+                + "by taking heed thereto according to thy word.", verses("119:9"));
+        assertEquals("Thy word have I hid in mine heart,\nthat I might not sin against thee.", verses("119:11"));
+    }
+
+    @Test
+    void partialPsalmKeepsItsVerseNumbers() {
+        PsalmText psalm = psalmService.getPsalmVerses(psalmService.getPsalmByNumber(51), Constants.ENGLISH);
+        assertEquals(6, psalm.getVerseCount());
+        assertFalse(psalm.hasVerse(4));
+        assertEquals("Create in me a clean heart, O God; and renew a right spirit within me.", verses("51:10"));
+        assertNull(verses("51:4"));
+        // A range ends at the last verse the text gives within it
+        assertEquals("For I acknowledge my transgressions: and my sin is ever before me.", verses("51:3-9"));
+    }
+
+    @Test
+    void verseMarkersAreStrippedIntoATable() {
+        Map<String, String> table = new LinkedHashMap<>();
+        VerseMarkers.stripping(table::put).accept("psalm_7", "1 First verse,\ngoing on.\n2 Second verse.\n\n10 Tenth.");
+        VerseMarkers.stripping(table::put).accept("psalm_7_title", "1 Title");
+
+        assertEquals("First verse,\ngoing on.\nSecond verse.\n\nTenth.", table.get("psalm_7"));
+        assertEquals("1:0,2:2,10:4", table.get("psalm_7_verses"));
+        assertEquals("1 Title", table.get("psalm_7_title"));
+
+        PsalmText psalm = new PsalmText(7, table.get("psalm_7"), new int[]{1, 2, 10}, new int[]{0, 2, 4});
+        assertEquals("First verse,\ngoing on.", psalm.getVerse(1));
+        assertEquals("Second verse.", psalm.getVerse(2));
+        assertEquals(1, psalm.verseAt(psalm.getText().indexOf("going")));
+        assertEquals(10, psalm.verseAt(psalm.getText().indexOf("Tenth")));
+    }
+
+    @Test
+    void verseNumbersMustIncrease() {
+        assertThrows(IllegalArgumentException.class,
+                () -> VerseMarkers.stripping((key, value) -> { }).accept("psalm_7", "2 Second\n1 First"));
+        assertThrows(IllegalArgumentException.class, () -> VerseMarkers.parseTable("1:0,1:2"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.oratio.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentParserTest {
+    private static final String CONTENT = "our_father\r\nOur Father, who art in heaven\r\n===\n"
+            + "  placeholder  \n\n===\n\n===glory_be\nGlory be == to the Father\n";
+
+    @Test
+    void keyOnlySectionsKeepAnEmptyValue() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        int count = ContentParser.parse(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)), entries::put);
+
+        assertEquals(3, count);
+        assertEquals("Our Father, who art in heaven", entries.get("our_father"));
+        assertEquals("", entries.get("placeholder"));
+        assertEquals("Glory be == to the Father", entries.get("glory_be"));
+    }
+
+    @Test
+    void packKeepsEmptyValues() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        ContentParser.parse(ByteBuffer.wrap(CONTENT.getBytes(StandardCharsets.UTF_8)), entries::put);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ContentPack.write(Map.of("prayers_english.txt", entries), out);
+        ContentPack pack = ContentPack.read(ByteBuffer.wrap(out.toByteArray()));
+
+        assertEquals("", pack.get("prayers_english.txt", "placeholder"));
+        assertNull(pack.get("prayers_english.txt", "missing"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.oratio.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdRegistryTest {
+    @Test
+    void idsWithEqualHashCodesArePlacedApart() {
+        // All four share one String.hashCode
+        List<String> ids = List.of("AaAa", "BBBB", "AaBB", "BBAa");
+        assertEquals(1, ids.stream().map(String::hashCode).distinct().count());
+
+        IdRegistry<String> registry = new IdRegistry<>(ids, Function.identity());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, registry.ordinalOf(ids.get(i)));
+        }
+        assertFalse(registry.contains("AaAb"));
+    }
+
+    @Test
+    void looksUpEveryId() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add("prayer_" + i);
+        }
+        IdRegistry<String> registry = new IdRegistry<>(ids, Function.identity());
+
+        for (int i = 0; i < ids.size(); i++) {
+            assertSame(ids.get(i), registry.get(ids.get(i)));
+        }
+        assertNull(registry.get("prayer_100"));
+        assertNull(registry.get(null));
+        assertEquals(List.of("prayer_3", "prayer_7"), registry.select(List.of("prayer_7", "missing", "prayer_3")));
+    }
+
+    @Test
+    void manyIdsFallBackToProbing() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            ids.add("note_" + i);
+        }
+        IdRegistry<String> registry = new IdRegistry<>(ids, Function.identity());
+
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, registry.ordinalOf(ids.get(i)));
+        }
+        assertFalse(registry.contains("note_3000"));
+    }
+
+    @Test
+    void rejectsDuplicateIds() {
+        assertThrows(IllegalArgumentException.class, () -> new IdRegistry<>(List.of("a", "b", "a"), Function.identity()));
+    }
+}